@@ -2,7 +2,8 @@ package com.forkliu.venus;
 
 import android.app.Application;
 
-import com.forkliu.base.logger.FLFileLogAdapter;
+import com.forkliu.base.logger.FLCompositeFileLogAdapter;
+import com.forkliu.base.logger.FLLog;
 import com.forkliu.base.logger.FLRotatingFormatStrategy;
 import com.forkliu.base.logger.FLTimedRotatingFormatStrategy;
 import com.orhanobut.logger.AndroidLogAdapter;
@@ -14,35 +15,28 @@ public class FLApp extends Application {
     public void onCreate() {
         super.onCreate();
 
-        // 初始化日志系统
-        Logger.addLogAdapter(new AndroidLogAdapter());
+        // 初始化日志系统，FLLog 同时注册到 Logger
+        FLLog.addLogAdapter(new AndroidLogAdapter());
         try {
-            // 按照大小分割日志
+            // 按照大小和时间分割日志，先到者先滚动，只写一个文件
             FLRotatingFormatStrategy rotatingFormatStrategy = FLRotatingFormatStrategy
                     .newBuilder()
-                    .backupCount(7)
-                    .maxBytes(1024)  // 1024
                     .logDir(getFilesDir().getAbsolutePath())  // 路径必须指定
-                    .logName("venus_size.log")
-                    .tag("Venus")
+                    .logName("venus.log")
+                    .maxBytes(1024)  // 1024
+                    .when(FLTimedRotatingFormatStrategy.Builder.S)
+                    .interval(10)
+                    .backupCount(7)
+                    .maxTotalBytes(64 * 1024)
+                    .indexInterval(256)  // 按时间段查询日志，见FLLogQuery
                     .build();
-            FLFileLogAdapter sizeLogAdapter = new FLFileLogAdapter(rotatingFormatStrategy);
-            sizeLogAdapter.setLogLevel(Logger.DEBUG);
-            Logger.addLogAdapter(sizeLogAdapter);
 
-            // 按照时间分割日志
-            FLTimedRotatingFormatStrategy timedRotatingFormatStrategy = FLTimedRotatingFormatStrategy
+            FLCompositeFileLogAdapter fileLogAdapter = FLCompositeFileLogAdapter
                     .newBuilder()
-                    .logDir(getFilesDir().getAbsolutePath())
-                    .logName("venus_time.log")
                     .tag("Venus")
-                    .when(FLTimedRotatingFormatStrategy.Builder.S)
-                    .interval(10)
-                    .backupCount(6)
+                    .addSink(rotatingFormatStrategy, Logger.DEBUG)
                     .build();
-            FLFileLogAdapter timedLogAdapter = new FLFileLogAdapter(timedRotatingFormatStrategy);
-            timedLogAdapter.setLogLevel(Logger.INFO);
-            Logger.addLogAdapter(timedLogAdapter);
+            FLLog.addLogAdapter(fileLogAdapter);
         }catch (Exception e){
             e.printStackTrace();
         }
@@ -1,6 +1,6 @@
 package com.forkliu.venus;
 
-import com.orhanobut.logger.Logger;
+import com.forkliu.base.logger.FLLog;
 
 class LogTestThread extends Thread {
     @Override
@@ -8,8 +8,8 @@ class LogTestThread extends Thread {
         int count = 1000;
         int i = 0;
         while(i < count){
-            Logger.d("LogTestThread::run|" + i);
-            Logger.i("LogTestThread::run|" + i);
+            FLLog.d("LogTestThread::run|{}", i);
+            FLLog.i("LogTestThread::run|{}", i);
             try{
                 Thread.sleep(100);
             }catch (Exception e){
@@ -18,7 +18,7 @@ class LogTestThread extends Thread {
             i++;
         }
 
-        Logger.d("LogTestThread::run FINISHED");
-        Logger.i("LogTestThread::run FINISHED");
+        FLLog.d("LogTestThread::run FINISHED");
+        FLLog.i("LogTestThread::run FINISHED");
     }
 }
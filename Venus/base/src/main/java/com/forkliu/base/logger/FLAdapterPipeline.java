@@ -0,0 +1,80 @@
+package com.forkliu.base.logger;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.orhanobut.logger.Logger;
+
+/**
+ * What the file adapters do with a record once its level is let through: the debug ring, the
+ * duplicate filter and the rate limiter, in this order, then the {@link Target}. Each of them
+ * is off until it is set, the settings take effect on all threads right away.
+ */
+final class FLAdapterPipeline {
+
+    /**
+     * Writes the records that get through, the repeat and drop summaries and the debug ring.
+     */
+    interface Target extends FLDuplicateFilter.Target, FLDebugRing.Target {
+    }
+
+    @NonNull private final Target target;
+    // records turned away by level, rate limit or as repeats
+    final FLStripedCounter filtered = new FLStripedCounter();
+    @Nullable private volatile FLRateLimiter rateLimiter;
+    @Nullable private volatile FLDuplicateFilter duplicates;
+    @Nullable private volatile FLDebugRing debugRing;
+
+    FLAdapterPipeline(@NonNull Target target) {
+        this.target = target;
+    }
+
+    void setRateLimiter(@Nullable FLRateLimiter rateLimiter) {
+        this.rateLimiter = rateLimiter;
+    }
+
+    void setDuplicateWindow(long windowMillis) {
+        duplicates = windowMillis > 0 ? new FLDuplicateFilter(windowMillis, target) : null;
+    }
+
+    void setDebugRing(@Nullable FLDebugRing debugRing) {
+        if (debugRing != null) {
+            debugRing.attach(target);
+        }
+        this.debugRing = debugRing;
+    }
+
+    void log(int priority, @Nullable String tag, @NonNull String message) {
+        FLDebugRing debugRing = this.debugRing;
+        if (debugRing != null && debugRing.captures(priority)) {
+            debugRing.add(priority, tag, message);
+            return;
+        }
+        FLDuplicateFilter duplicates = this.duplicates;
+        if (duplicates != null) {
+            FLDuplicateFilter.Run run = duplicates.offer(priority, tag, message);
+            if (run == FLDuplicateFilter.REPEATED) {
+                filtered.increment();
+                return;
+            }
+            if (run != null) {
+                target.write(run.priority, run.tag, run.summary());
+            }
+        }
+        FLRateLimiter rateLimiter = this.rateLimiter;
+        if (rateLimiter != null) {
+            long dropped = rateLimiter.acquire(tag);
+            if (dropped == FLRateLimiter.DENIED) {
+                filtered.increment();
+                return;
+            }
+            if (dropped > 0) {
+                target.write(priority, tag, FLRateLimiter.droppedMessage(dropped));
+            }
+        }
+        if (debugRing != null && priority >= Logger.ERROR) {
+            debugRing.drain(target);
+        }
+        target.write(priority, tag, message);
+    }
+}
@@ -0,0 +1,91 @@
+package com.forkliu.base.logger;
+
+import androidx.annotation.NonNull;
+
+/**
+ * Layout of the binary log files, shared by the writer and {@link FLBinaryLogDecoder}.
+ * <pre>
+ * file    = MAGIC entry*
+ * entry   = SYNC   varint(millis)
+ *         | TAG    varint(length) utf8
+ *         | PREFIX varint(length) utf8
+ *         | RECORD level zigzag(millis - previous millis) varint(tag) varint(length) utf8
+ *         | TEXT   level zigzag(millis - previous millis) varint(tag) varint(prefix) varint(length) utf8
+ * </pre>
+ * Every time the writer opens the file it starts with a SYNC: the tables are cleared and
+ * the time is absolute again, so a segment can be decoded on its own. TAG entries define the
+ * tags 1, 2, 3... in order, a RECORD refers to one of them, or has tag 0 and its tag inline
+ * as varint(length) utf8. PREFIX entries define the message prefixes 1, 2, 3... the same
+ * way, a TEXT record is a RECORD whose message is that prefix followed by the utf8. The
+ * message is stored as logged, new lines included.
+ * <p>
+ * On its way from the logging thread to the writer thread a record has a fixed layout,
+ * see {@code RAW_*}, the writer turns it into the entries above.
+ */
+final class FLBinaryFormat {
+    static final byte[] MAGIC = {'F', 'L', 'B', '1'};
+
+    static final int ENTRY_SYNC = 1;
+    static final int ENTRY_TAG = 2;
+    static final int ENTRY_RECORD = 3;
+    static final int ENTRY_PREFIX = 4;
+    static final int ENTRY_TEXT = 5;
+
+    // raw record: millis(8) level(1) tag length(4) tag message
+    static final int RAW_MILLIS = 0;
+    static final int RAW_LEVEL = 8;
+    static final int RAW_TAG_LENGTH = 9;
+    static final int RAW_HEADER = 13;
+
+    // longest varint of a long
+    static final int MAX_VARINT = 10;
+
+    private FLBinaryFormat() {
+    }
+
+    static void putLong(@NonNull byte[] b, int off, long v) {
+        for (int i = 7; i >= 0; i--) {
+            b[off + i] = (byte) v;
+            v >>>= 8;
+        }
+    }
+
+    static long getLong(@NonNull byte[] b, int off) {
+        long v = 0;
+        for (int i = 0; i < 8; i++) {
+            v = (v << 8) | (b[off + i] & 0xff);
+        }
+        return v;
+    }
+
+    static void putInt(@NonNull byte[] b, int off, int v) {
+        b[off] = (byte) (v >>> 24);
+        b[off + 1] = (byte) (v >>> 16);
+        b[off + 2] = (byte) (v >>> 8);
+        b[off + 3] = (byte) v;
+    }
+
+    static int getInt(@NonNull byte[] b, int off) {
+        return (b[off] & 0xff) << 24 | (b[off + 1] & 0xff) << 16 | (b[off + 2] & 0xff) << 8 | (b[off + 3] & 0xff);
+    }
+
+    /**
+     * @return the position after the varint
+     */
+    static int putVarint(@NonNull byte[] b, int pos, long v) {
+        while ((v & ~0x7fL) != 0) {
+            b[pos++] = (byte) ((v & 0x7f) | 0x80);
+            v >>>= 7;
+        }
+        b[pos++] = (byte) v;
+        return pos;
+    }
+
+    static long zigzag(long v) {
+        return (v << 1) ^ (v >> 63);
+    }
+
+    static long unzigzag(long v) {
+        return (v >>> 1) ^ -(v & 1);
+    }
+}
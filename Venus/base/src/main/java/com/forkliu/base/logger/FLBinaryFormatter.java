@@ -0,0 +1,69 @@
+package com.forkliu.base.logger;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import static com.forkliu.base.logger.FLBinaryFormat.RAW_HEADER;
+import static com.forkliu.base.logger.FLBinaryFormat.RAW_LEVEL;
+import static com.forkliu.base.logger.FLBinaryFormat.RAW_MILLIS;
+import static com.forkliu.base.logger.FLBinaryFormat.RAW_TAG_LENGTH;
+
+/**
+ * Logging thread side of {@link FLRecordFormat#BINARY}: puts the time, level, tag and message
+ * of a record into the raw layout of {@link FLBinaryFormat}. No date formatting and no
+ * escaping, the writer thread does the rest.
+ */
+final class FLBinaryFormatter {
+    @Nullable private final String tag;
+    @NonNull private final ThreadLocal<FLRecordBuffer> buffers = new ThreadLocal<FLRecordBuffer>() {
+        @Override protected FLRecordBuffer initialValue() {
+            return new FLRecordBuffer();
+        }
+    };
+
+    FLBinaryFormatter(@Nullable String tag) {
+        this.tag = tag;
+    }
+
+    /**
+     * Same contract as {@link FLCsvFormatter#format}.
+     */
+    @NonNull FLRecordBuffer format(int priority, @Nullable String onceOnlyTag, @NonNull String message) {
+        return format(System.currentTimeMillis(), priority, onceOnlyTag, message);
+    }
+
+    /**
+     * Same as {@link #format(int, String, String)} for a record that was logged at {@code millis}.
+     */
+    @NonNull FLRecordBuffer format(long millis, int priority, @Nullable String onceOnlyTag, @NonNull String message) {
+        FLRecordBuffer buffer = buffers.get();
+        buffer.reset();
+        FLCsvFormatter.appendTag(buffer, tag, onceOnlyTag);
+        return finish(buffer, millis, priority, message);
+    }
+
+    /**
+     * Same as {@link #format(int, String, String)}, {@code tag} is the complete tag.
+     */
+    @NonNull FLRecordBuffer formatTagged(int priority, @Nullable String tag, @NonNull String message) {
+        FLRecordBuffer buffer = buffers.get();
+        buffer.reset();
+        buffer.append(tag);
+        return finish(buffer, System.currentTimeMillis(), priority, message);
+    }
+
+    @NonNull private static FLRecordBuffer finish(@NonNull FLRecordBuffer buffer, long millis, int priority,
+                                                  @NonNull String message) {
+        int tagChars = buffer.charCount;
+        buffer.append(message);
+
+        int tagEnd = buffer.encode(0, tagChars, RAW_HEADER);
+        buffer.byteCount = buffer.encode(tagChars, buffer.charCount, tagEnd);
+
+        byte[] bytes = buffer.bytes;
+        FLBinaryFormat.putLong(bytes, RAW_MILLIS, millis);
+        bytes[RAW_LEVEL] = (byte) priority;
+        FLBinaryFormat.putInt(bytes, RAW_TAG_LENGTH, tagEnd - RAW_HEADER);
+        return buffer;
+    }
+}
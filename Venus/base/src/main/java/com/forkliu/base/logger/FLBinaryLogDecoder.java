@@ -0,0 +1,176 @@
+package com.forkliu.base.logger;
+
+import androidx.annotation.NonNull;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * Turns files written with {@link FLRecordFormat#BINARY} back into the CSV lines the
+ * {@link FLRecordFormat#CSV} format would have written, byte for byte, provided the date
+ * format, its time zone and the line separator are the ones of the device.
+ * <pre>
+ * new FLBinaryLogDecoder(new FLTimestampFormatter("yyyy.MM.dd HH:mm:ss.SSS", Locale.CHINA))
+ *         .decode(in, out);
+ * </pre>
+ * Pure Java, it runs on the device as well as on a desktop JVM.
+ */
+public final class FLBinaryLogDecoder {
+    // Android's line.separator
+    private static final String DEVICE_NEW_LINE = "\n";
+
+    @NonNull private final FLCsvFormatter formatter;
+
+    public FLBinaryLogDecoder(@NonNull FLTimestampFormatter dateFormat) {
+        this.formatter = new FLCsvFormatter(dateFormat, null, DEVICE_NEW_LINE);
+    }
+
+    /**
+     * @return true if {@code header} starts like a binary log file
+     */
+    public static boolean isBinary(@NonNull byte[] header, int length) {
+        byte[] magic = FLBinaryFormat.MAGIC;
+        if (length < magic.length) return false;
+        for (int i = 0; i < magic.length; i++) {
+            if (header[i] != magic[i]) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Reads a binary log file from {@code in} and writes its CSV lines to {@code out}.
+     * A record cut off at the end of the file, as left by a crash, is skipped, and so is a
+     * zero filled tail.
+     *
+     * @throws IOException if the file isn't a binary log file or is damaged
+     */
+    public void decode(@NonNull InputStream in, @NonNull OutputStream out) throws IOException {
+        Reader reader = new Reader(in);
+        byte[] magic = new byte[FLBinaryFormat.MAGIC.length];
+        if (!reader.readFully(magic) || !isBinary(magic, magic.length)) {
+            throw new IOException("not a binary log file");
+        }
+
+        ArrayList<String> tags = new ArrayList<>();
+        ArrayList<String> prefixes = new ArrayList<>();
+        long millis = 0;
+        int entry;
+        try {
+            while ((entry = reader.read()) >= 0) {
+                switch (entry) {
+                    case 0:
+                        // no entry starts with 0, the rest of a file cut off by a crash
+                        return;
+                    case FLBinaryFormat.ENTRY_SYNC:
+                        millis = reader.readVarint();
+                        tags.clear();
+                        prefixes.clear();
+                        break;
+                    case FLBinaryFormat.ENTRY_TAG:
+                        tags.add(reader.readString());
+                        break;
+                    case FLBinaryFormat.ENTRY_PREFIX:
+                        prefixes.add(reader.readString());
+                        break;
+                    case FLBinaryFormat.ENTRY_RECORD:
+                    case FLBinaryFormat.ENTRY_TEXT:
+                        int level = reader.readByte();
+                        millis += FLBinaryFormat.unzigzag(reader.readVarint());
+                        int id = (int) reader.readVarint();
+                        String tag;
+                        if (id == 0) {
+                            tag = reader.readString();
+                        } else if (id <= tags.size()) {
+                            tag = tags.get(id - 1);
+                        } else {
+                            throw new IOException("unknown tag " + id);
+                        }
+                        String message;
+                        if (entry == FLBinaryFormat.ENTRY_TEXT) {
+                            int prefix = (int) reader.readVarint();
+                            if (prefix < 1 || prefix > prefixes.size()) {
+                                throw new IOException("unknown prefix " + prefix);
+                            }
+                            message = prefixes.get(prefix - 1).concat(reader.readString());
+                        } else {
+                            message = reader.readString();
+                        }
+                        FLRecordBuffer line = formatter.formatTagged(millis, level, tag, message);
+                        out.write(line.bytes, 0, line.byteCount);
+                        break;
+                    default:
+                        throw new IOException("unknown entry " + entry);
+                }
+            }
+        } catch (EOFException e) {
+            // the last entry was cut off
+        }
+    }
+
+    private static final class Reader {
+        @NonNull private final InputStream in;
+        @NonNull private final byte[] buffer = new byte[8192];
+        private int pos;
+        private int limit;
+        @NonNull private byte[] string = new byte[256];
+
+        Reader(@NonNull InputStream in) {
+            this.in = in;
+        }
+
+        int read() throws IOException {
+            if (pos == limit) {
+                limit = in.read(buffer, 0, buffer.length);
+                pos = 0;
+                if (limit <= 0) {
+                    limit = 0;
+                    return -1;
+                }
+            }
+            return buffer[pos++] & 0xff;
+        }
+
+        int readByte() throws IOException {
+            int b = read();
+            if (b < 0) throw new EOFException();
+            return b;
+        }
+
+        boolean readFully(@NonNull byte[] b) throws IOException {
+            for (int i = 0; i < b.length; i++) {
+                int c = read();
+                if (c < 0) return false;
+                b[i] = (byte) c;
+            }
+            return true;
+        }
+
+        long readVarint() throws IOException {
+            long v = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                int b = readByte();
+                v |= (long) (b & 0x7f) << shift;
+                if ((b & 0x80) == 0) return v;
+            }
+            throw new IOException("varint too long");
+        }
+
+        @NonNull String readString() throws IOException {
+            long length = readVarint();
+            if (length > Integer.MAX_VALUE) throw new IOException("string too long");
+            int n = (int) length;
+            if (string.length < n) {
+                string = Arrays.copyOf(string, Math.max(n, string.length * 2));
+            }
+            for (int i = 0; i < n; i++) {
+                string[i] = (byte) readByte();
+            }
+            return new String(string, 0, n, StandardCharsets.UTF_8);
+        }
+    }
+}
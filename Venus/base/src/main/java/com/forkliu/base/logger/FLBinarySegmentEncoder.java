@@ -0,0 +1,202 @@
+package com.forkliu.base.logger;
+
+import androidx.annotation.NonNull;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashMap;
+
+import static com.forkliu.base.logger.FLBinaryFormat.ENTRY_PREFIX;
+import static com.forkliu.base.logger.FLBinaryFormat.ENTRY_RECORD;
+import static com.forkliu.base.logger.FLBinaryFormat.ENTRY_SYNC;
+import static com.forkliu.base.logger.FLBinaryFormat.ENTRY_TAG;
+import static com.forkliu.base.logger.FLBinaryFormat.ENTRY_TEXT;
+import static com.forkliu.base.logger.FLBinaryFormat.MAX_VARINT;
+import static com.forkliu.base.logger.FLBinaryFormat.RAW_HEADER;
+import static com.forkliu.base.logger.FLBinaryFormat.RAW_LEVEL;
+import static com.forkliu.base.logger.FLBinaryFormat.RAW_MILLIS;
+import static com.forkliu.base.logger.FLBinaryFormat.RAW_TAG_LENGTH;
+
+/**
+ * Writer thread side of {@link FLRecordFormat#BINARY}: turns raw records into the entries of
+ * {@link FLBinaryFormat}. Keeps the tag and prefix tables and the time of the previous record
+ * of the active file, {@link #start} resets them whenever the file is opened.
+ * <p>
+ * The prefix of a message is everything before its first digit, like "LogTestThread::run|"
+ * of "LogTestThread::run|42", or the whole message if it has none. A prefix gets an id the
+ * second time it shows up, messages that come only once don't fill the table.
+ */
+final class FLBinarySegmentEncoder {
+    // tags beyond this are written inline, a table that big means the tags are not constant
+    private static final int MAX_TAGS = 1024;
+    // prefixes seen so far, defined or not
+    private static final int MAX_PREFIXES = 1024;
+    private static final int MIN_PREFIX = 4;
+    private static final int MAX_PREFIX = 64;
+    // prefix seen once, no id yet
+    private static final Integer PENDING = 0;
+
+    private final HashMap<Key, Integer> tags = new HashMap<>();
+    private final HashMap<Key, Integer> prefixes = new HashMap<>();
+    private final Key probe = new Key();
+    private int prefixIds;
+    private byte[] out = new byte[256];
+    private boolean synced;
+    private long millis;
+
+    /**
+     * Called every time {@code writer} was opened, writes the file header of a new file.
+     */
+    void start(@NonNull FLLogWriter writer) throws IOException {
+        tags.clear();
+        prefixes.clear();
+        prefixIds = 0;
+        synced = false;
+        if (writer.length() == 0) {
+            writer.write(FLBinaryFormat.MAGIC, 0, FLBinaryFormat.MAGIC.length);
+        }
+    }
+
+    void write(@NonNull FLLogWriter writer, @NonNull byte[] raw, int len) throws IOException {
+        long time = FLBinaryFormat.getLong(raw, RAW_MILLIS);
+        int tagLength = FLBinaryFormat.getInt(raw, RAW_TAG_LENGTH);
+        int messageOffset = RAW_HEADER + tagLength;
+        int messageLength = len - messageOffset;
+
+        // sync + tag definition + prefix definition + record, each with their varints
+        ensure(6 * MAX_VARINT + 4 + 2 * tagLength + MAX_PREFIX + messageLength);
+        byte[] b = out;
+        int pos = 0;
+        if (!synced) {
+            synced = true;
+            millis = time;
+            b[pos++] = ENTRY_SYNC;
+            pos = FLBinaryFormat.putVarint(b, pos, time);
+        }
+
+        int id = 0;
+        probe.set(raw, RAW_HEADER, tagLength);
+        Integer known = tags.get(probe);
+        if (known != null) {
+            id = known;
+        } else if (tags.size() < MAX_TAGS) {
+            id = tags.size() + 1;
+            tags.put(probe.copy(), id);
+            b[pos++] = ENTRY_TAG;
+            pos = FLBinaryFormat.putVarint(b, pos, tagLength);
+            System.arraycopy(raw, RAW_HEADER, b, pos, tagLength);
+            pos += tagLength;
+        }
+
+        int prefix = 0;
+        int prefixLength = prefixLength(raw, messageOffset, messageLength);
+        if (prefixLength > 0) {
+            probe.set(raw, messageOffset, prefixLength);
+            known = prefixes.get(probe);
+            if (known == null) {
+                if (prefixes.size() < MAX_PREFIXES) {
+                    prefixes.put(probe.copy(), PENDING);
+                }
+            } else if (known.equals(PENDING)) {
+                prefix = ++prefixIds;
+                prefixes.put(probe.copy(), prefix);
+                b[pos++] = ENTRY_PREFIX;
+                pos = FLBinaryFormat.putVarint(b, pos, prefixLength);
+                System.arraycopy(raw, messageOffset, b, pos, prefixLength);
+                pos += prefixLength;
+            } else {
+                prefix = known;
+            }
+        }
+        if (prefix == 0) {
+            prefixLength = 0;
+        }
+
+        b[pos++] = (byte) (prefix == 0 ? ENTRY_RECORD : ENTRY_TEXT);
+        b[pos++] = raw[RAW_LEVEL];
+        pos = FLBinaryFormat.putVarint(b, pos, FLBinaryFormat.zigzag(time - millis));
+        millis = time;
+        pos = FLBinaryFormat.putVarint(b, pos, id);
+        if (id == 0) {
+            pos = FLBinaryFormat.putVarint(b, pos, tagLength);
+            System.arraycopy(raw, RAW_HEADER, b, pos, tagLength);
+            pos += tagLength;
+        }
+        if (prefix != 0) {
+            pos = FLBinaryFormat.putVarint(b, pos, prefix);
+        }
+        pos = FLBinaryFormat.putVarint(b, pos, messageLength - prefixLength);
+        System.arraycopy(raw, messageOffset + prefixLength, b, pos, messageLength - prefixLength);
+        pos += messageLength - prefixLength;
+
+        writer.write(b, 0, pos);
+    }
+
+    /**
+     * @return the length of the prefix of the utf8 message, 0 if it is too short to bother
+     */
+    private static int prefixLength(@NonNull byte[] b, int off, int len) {
+        int end = off;
+        int limit = off + Math.min(len, MAX_PREFIX);
+        while (end < limit && (b[end] < '0' || b[end] > '9')) {
+            end++;
+        }
+        // don't cut a character in two
+        while (end < off + len && end > off && (b[end] & 0xc0) == 0x80) {
+            end--;
+        }
+        int length = end - off;
+        return length < MIN_PREFIX ? 0 : length;
+    }
+
+    private void ensure(int capacity) {
+        if (out.length < capacity) {
+            out = new byte[Math.max(capacity, out.length * 2)];
+        }
+    }
+
+    /**
+     * Bytes as a map key, the probe points into the raw record, the keys own a copy.
+     */
+    private static final class Key {
+        byte[] data;
+        int off;
+        int len;
+        int hash;
+
+        void set(@NonNull byte[] data, int off, int len) {
+            this.data = data;
+            this.off = off;
+            this.len = len;
+            int h = 1;
+            for (int i = off; i < off + len; i++) {
+                h = 31 * h + data[i];
+            }
+            this.hash = h;
+        }
+
+        @NonNull Key copy() {
+            Key key = new Key();
+            key.data = Arrays.copyOfRange(data, off, off + len);
+            key.len = len;
+            key.hash = hash;
+            return key;
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Key)) return false;
+            Key t = (Key) o;
+            if (t.len != len || t.hash != hash) return false;
+            for (int i = 0; i < len; i++) {
+                if (data[off + i] != t.data[t.off + i]) return false;
+            }
+            return true;
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package com.forkliu.base.logger;
+
+import androidx.annotation.NonNull;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Append-only writer that keeps the log file open between records.
+ * <p>
+ * Output is collected in a buffer and handed to the file in one write when {@link #flush()}
+ * is called. The buffer grows up to {@code MAX_BUFFER} so that a whole batch of records
+ * still ends up in a single write. The file length is tracked in memory so
+ * the rotation checks never have to stat the file.
+ * <p>
+ * Not thread safe, it is only ever used from the writer thread.
+ */
+final class FLBufferedLogWriter implements FLLogWriter {
+    private static final int MAX_BUFFER = 256 * 1024;
+
+    @NonNull private final File file;
+    @NonNull private final FileOutputStream out;
+    @NonNull private byte[] buffer;
+    private int count;
+    private long length;
+
+    FLBufferedLogWriter(@NonNull File file, int bufferSize) throws IOException {
+        this.file = file;
+        this.out = new FileOutputStream(file, true);
+        this.buffer = new byte[bufferSize];
+        this.length = file.length();
+    }
+
+    @NonNull
+    @Override
+    public File getFile() {
+        return file;
+    }
+
+    @Override
+    public long length() {
+        return length;
+    }
+
+    @Override
+    public long remaining() {
+        return Long.MAX_VALUE;
+    }
+
+    @Override
+    public int buffered() {
+        return count;
+    }
+
+    @Override
+    public void write(@NonNull byte[] b, int off, int len) throws IOException {
+        if (len > buffer.length - count && !grow(count + len)) {
+            flushBuffer();
+            if (len >= buffer.length) {
+                // larger than the whole buffer, no point in copying it
+                out.write(b, off, len);
+                length += len;
+                return;
+            }
+        }
+        System.arraycopy(b, off, buffer, count, len);
+        count += len;
+        length += len;
+    }
+
+    @Override
+    public void flush() throws IOException {
+        flushBuffer();
+    }
+
+    /**
+     * Takes the length from the file again, after other processes appended to it.
+     */
+    void refreshLength() throws IOException {
+        length = out.getChannel().size() + count;
+    }
+
+    @Override
+    public void sync() throws IOException {
+        flushBuffer();
+        // the length is tracked in memory, the file metadata can wait
+        out.getChannel().force(false);
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            flushBuffer();
+        } finally {
+            out.close();
+        }
+    }
+
+    private boolean grow(int minCapacity) {
+        if (minCapacity > MAX_BUFFER) return false;
+        int capacity = buffer.length;
+        while (capacity < minCapacity) {
+            capacity <<= 1;
+        }
+        buffer = Arrays.copyOf(buffer, Math.min(capacity, MAX_BUFFER));
+        return true;
+    }
+
+    private void flushBuffer() throws IOException {
+        if (count > 0) {
+            out.write(buffer, 0, count);
+            count = 0;
+        }
+    }
+}
@@ -0,0 +1,251 @@
+package com.forkliu.base.logger;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.orhanobut.logger.FormatStrategy;
+import com.orhanobut.logger.LogAdapter;
+
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Locale;
+
+import static com.forkliu.base.logger.FLLogUtils.checkNotNull;
+
+/**
+ * One adapter for several file sinks. Every record is formatted once and the same encoded
+ * line goes to every sink whose level lets it through, instead of one {@link FLFileLogAdapter}
+ * per sink that each format the record again.
+ * <pre>
+ * Logger.addLogAdapter(FLCompositeFileLogAdapter.newBuilder()
+ *         .tag("Venus")
+ *         .addSink(rotatingFormatStrategy, Logger.DEBUG)
+ *         .addSink(timedRotatingFormatStrategy, Logger.INFO)
+ *         .build());
+ * </pre>
+ * The line is built with the tag and date format of this adapter, the ones set on the
+ * {@link FLRotatingFormatStrategy} and {@link FLTimedRotatingFormatStrategy} sinks are not
+ * used. Any other {@link FormatStrategy} is called as usual and formats on its own.
+ * <p>
+ * {@link #setLogLevel(FormatStrategy, String, int)} changes the level of one tag for one sink
+ * at runtime, e.g. to see the VERBOSE records of "Network" in the debug file for a while. The
+ * other sinks keep their levels.
+ */
+public class FLCompositeFileLogAdapter implements LogAdapter {
+    @NonNull private final FLCsvFormatter formatter;
+    @NonNull private final FLBinaryFormatter binaryFormatter;
+    @NonNull private final FormatStrategy[] sinks;
+    // the file strategy behind each sink, null if the sink formats on its own
+    @NonNull private final FLFileLogStrategy[] files;
+    @NonNull private final boolean[] binary;
+    // the level and the tag overrides of each sink
+    @NonNull private final FLLevelFilter[] levels;
+    @NonNull private final FLAdapterPipeline pipeline = new FLAdapterPipeline(new FLAdapterPipeline.Target() {
+        @Override
+        public void write(int priority, @Nullable String tag, @NonNull String message) {
+            FLCompositeFileLogAdapter.this.write(System.currentTimeMillis(), priority, tag, message);
+        }
+
+        @Override
+        public void write(long millis, int priority, @Nullable String tag, @NonNull String message) {
+            FLCompositeFileLogAdapter.this.write(millis, priority, tag, message);
+        }
+
+        @Override
+        public void sync(long timeoutMillis) {
+            long deadline = System.nanoTime() + timeoutMillis * 1000000L;
+            for (FLFileLogStrategy file : files) {
+                long left = (deadline - System.nanoTime()) / 1000000L;
+                if (file != null && left > 0) {
+                    file.sync(left);
+                }
+            }
+        }
+    });
+
+    private FLCompositeFileLogAdapter(@NonNull Builder builder) {
+        formatter = new FLCsvFormatter(builder.dateFormat, builder.tag);
+        binaryFormatter = new FLBinaryFormatter(builder.tag);
+        sinks = builder.sinks.toArray(new FormatStrategy[0]);
+        files = new FLFileLogStrategy[sinks.length];
+        binary = new boolean[sinks.length];
+        levels = new FLLevelFilter[sinks.length];
+        for (int i = 0; i < sinks.length; i++) {
+            if (sinks[i] instanceof FLRotatingFormatStrategy) {
+                FLRotatingFormatStrategy sink = (FLRotatingFormatStrategy) sinks[i];
+                files[i] = sink.fileStrategy();
+                binary[i] = sink.isBinary();
+            } else if (sinks[i] instanceof FLTimedRotatingFormatStrategy) {
+                FLTimedRotatingFormatStrategy sink = (FLTimedRotatingFormatStrategy) sinks[i];
+                files[i] = sink.fileStrategy();
+                binary[i] = sink.isBinary();
+            }
+            levels[i] = new FLLevelFilter(builder.levels.get(i));
+        }
+        pipeline.setRateLimiter(builder.rateLimiter);
+        pipeline.setDuplicateWindow(builder.duplicateWindow);
+        pipeline.setDebugRing(builder.debugRing);
+    }
+
+    @NonNull public static Builder newBuilder() {
+        return new Builder();
+    }
+
+    @Override
+    public boolean isLoggable(int priority, @Nullable String tag) {
+        if (!accepts(priority, tag)) {
+            pipeline.filtered.increment();
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * {@link #isLoggable} without counting a filtered record, for {@link FLLog#isLoggable}.
+     */
+    boolean accepts(int priority, @Nullable String tag) {
+        for (FLLevelFilter level : levels) {
+            if (level.isLoggable(priority, tag)) return true;
+        }
+        return false;
+    }
+
+    /**
+     * The level of {@code sink}, for the records whose tag has no override.
+     */
+    public void setLogLevel(@NonNull FormatStrategy sink, int logLevel) {
+        levels[indexOf(sink)].setLevel(logLevel);
+    }
+
+    /**
+     * {@code sink} takes the records with this tag from {@code logLevel} on, instead of from
+     * its own level, until {@link #clearLogLevel(FormatStrategy, String)}. Takes effect on all
+     * threads right away.
+     */
+    public void setLogLevel(@NonNull FormatStrategy sink, @NonNull String tag, int logLevel) {
+        levels[indexOf(sink)].setLevel(tag, logLevel);
+    }
+
+    public void clearLogLevel(@NonNull FormatStrategy sink, @NonNull String tag) {
+        levels[indexOf(sink)].clearLevel(tag);
+    }
+
+    private int indexOf(@NonNull FormatStrategy sink) {
+        for (int i = 0; i < sinks.length; i++) {
+            if (sinks[i] == sink) return i;
+        }
+        throw new IllegalArgumentException("not a sink of this adapter: " + sink);
+    }
+
+    /**
+     * The numbers of all sinks added up. Records that only some of the sinks take are not
+     * counted as filtered.
+     */
+    @NonNull public FLLoggerStats getStats() {
+        FLLoggerMetrics[] metrics = new FLLoggerMetrics[sinks.length];
+        for (int i = 0; i < sinks.length; i++) {
+            if (files[i] != null) {
+                metrics[i] = files[i].metrics();
+            }
+        }
+        return FLLoggerStats.create(pipeline.filtered.sum(), metrics);
+    }
+
+    @Override
+    public void log(int priority, @Nullable String tag, @NonNull String message) {
+        pipeline.log(priority, tag, checkNotNull(message));
+    }
+
+    private void write(long millis, int priority, @Nullable String tag, @NonNull String message) {
+        // formatted on first use, the buffers belong to this thread until it formats again
+        FLRecordBuffer csv = null;
+        FLRecordBuffer bin = null;
+        for (int i = 0; i < sinks.length; i++) {
+            if (!levels[i].isLoggable(priority, tag)) continue;
+            if (files[i] == null) {
+                sinks[i].log(priority, tag, message);
+            } else if (binary[i]) {
+                if (bin == null) bin = binaryFormatter.format(millis, priority, tag, message);
+                files[i].log(priority, bin);
+            } else {
+                if (csv == null) csv = formatter.format(millis, priority, tag, message);
+                files[i].log(priority, csv);
+            }
+        }
+    }
+
+    public static final class Builder {
+        FLTimestampFormatter dateFormat;
+        String tag;
+        final ArrayList<FormatStrategy> sinks = new ArrayList<>();
+        final ArrayList<Integer> levels = new ArrayList<>();
+        FLRateLimiter rateLimiter;
+        long duplicateWindow;
+        FLDebugRing debugRing;
+
+        private Builder() {
+        }
+
+        @NonNull public Builder dateFormat(@Nullable SimpleDateFormat val) {
+            dateFormat = val == null ? null : new FLTimestampFormatter(val);
+            return this;
+        }
+
+        @NonNull public Builder dateFormat(@Nullable FLTimestampFormatter val) {
+            dateFormat = val;
+            return this;
+        }
+
+        @NonNull public Builder tag(@Nullable String tag) {
+            this.tag = tag;
+            return this;
+        }
+
+        /**
+         * @param logLevel the sink only gets records of this level and above
+         */
+        @NonNull public Builder addSink(@NonNull FormatStrategy sink, int logLevel) {
+            sinks.add(checkNotNull(sink));
+            levels.add(logLevel);
+            return this;
+        }
+
+        /**
+         * Limits how many records each tag may log, for all sinks. No limit by default.
+         */
+        @NonNull public Builder rateLimiter(@Nullable FLRateLimiter val) {
+            rateLimiter = val;
+            return this;
+        }
+
+        /**
+         * Writes a record that repeats the one before only once, followed by a line with the
+         * number of repeats, at the latest after {@code windowMillis}. 0 (default) writes every
+         * record.
+         */
+        @NonNull public Builder duplicateWindow(long windowMillis) {
+            duplicateWindow = windowMillis;
+            return this;
+        }
+
+        /**
+         * Keeps the records below the file level of {@code debugRing} in memory and writes
+         * them to the sinks that take their level only before an ERROR or ASSERT record.
+         * Null (default) writes everything.
+         */
+        @NonNull public Builder debugRing(@Nullable FLDebugRing val) {
+            debugRing = val;
+            return this;
+        }
+
+        @NonNull public FLCompositeFileLogAdapter build() throws FLLoggerException {
+            if (sinks.isEmpty()) {
+                throw new FLLoggerException("no sink added");
+            }
+            if (dateFormat == null) {
+                dateFormat = new FLTimestampFormatter("yyyy.MM.dd HH:mm:ss.SSS", Locale.CHINA);
+            }
+            return new FLCompositeFileLogAdapter(this);
+        }
+    }
+}
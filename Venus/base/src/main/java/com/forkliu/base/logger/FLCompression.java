@@ -0,0 +1,80 @@
+package com.forkliu.base.logger;
+
+import androidx.annotation.NonNull;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Compression modes for the file strategies, see {@code compression(int)} on the builders.
+ * CSV logs usually shrink to about a tenth.
+ */
+public final class FLCompression {
+    /** segments are kept as plain text (default) */
+    public static final int NONE = 0;
+    /** rotated segments are gzipped in the background, e.g. log.log.1.gz */
+    public static final int GZIP = 1;
+    /**
+     * the active segment is written through a gzip stream that is sync flushed whenever the
+     * writer flushes, so less data ever hits the flash. The active file is named log.log.gz.
+     * After a crash the last gzip member has no trailer, stream decoders still read everything
+     * up to the last flush.
+     */
+    public static final int GZIP_STREAM = 2;
+
+    static final String EXTENSION = ".gz";
+
+    private static final int BUFFER_SIZE = 8 * 1024;
+
+    private FLCompression() {
+    }
+
+    /**
+     * Gzips {@code src} into {@code dst} through a temporary file and deletes {@code src}.
+     * Leaves {@code src} alone if anything goes wrong.
+     *
+     * @return the file that holds the data now
+     */
+    @NonNull
+    @SuppressWarnings("checkstyle:emptyblock")
+    static File compress(@NonNull File src, @NonNull File dst) {
+        File tmp = new File(dst.getPath() + ".tmp");
+        InputStream in = null;
+        OutputStream out = null;
+        try {
+            in = new FileInputStream(src);
+            out = new GZIPOutputStream(new FileOutputStream(tmp), BUFFER_SIZE);
+            byte[] buffer = new byte[BUFFER_SIZE];
+            int n;
+            while ((n = in.read(buffer)) > 0) {
+                out.write(buffer, 0, n);
+            }
+            out.close();
+            out = null;
+            if (tmp.renameTo(dst)) {
+                src.delete();
+                return dst;
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        } finally {
+            if (in != null) {
+                try {
+                    in.close();
+                } catch (IOException e) { /* fail silently */ }
+            }
+            if (out != null) {
+                try {
+                    out.close();
+                } catch (IOException e) { /* fail silently */ }
+            }
+        }
+        tmp.delete();
+        return src;
+    }
+}
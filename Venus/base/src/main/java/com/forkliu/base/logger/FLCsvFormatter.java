@@ -0,0 +1,125 @@
+package com.forkliu.base.logger;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+/**
+ * Builds the CSV line shared by the file format strategies:
+ * <pre>
+ * millis,human readable date,level,tag,message
+ * </pre>
+ * Every logging thread formats into its own {@link FLRecordBuffer}, the date comes from the
+ * lock-free {@link FLTimestampFormatter}.
+ */
+final class FLCsvFormatter {
+    static final String NEW_LINE = System.getProperty("line.separator");
+    static final String NEW_LINE_REPLACEMENT = " <br> ";
+    private static final char SEPARATOR = ',';
+
+    @NonNull private final FLTimestampFormatter dateFormat;
+    @Nullable private final String tag;
+    @NonNull private final String newLine;
+    @NonNull private final ThreadLocal<FLRecordBuffer> buffers = new ThreadLocal<FLRecordBuffer>() {
+        @Override protected FLRecordBuffer initialValue() {
+            return new FLRecordBuffer();
+        }
+    };
+
+    FLCsvFormatter(@NonNull FLTimestampFormatter dateFormat, @Nullable String tag) {
+        this(dateFormat, tag, NEW_LINE);
+    }
+
+    /**
+     * @param newLine ends every line and is escaped in the messages
+     */
+    FLCsvFormatter(@NonNull FLTimestampFormatter dateFormat, @Nullable String tag, @NonNull String newLine) {
+        this.dateFormat = dateFormat;
+        this.tag = tag;
+        this.newLine = newLine;
+    }
+
+    /**
+     * Formats the record into the calling thread's buffer. The buffer stays valid until the
+     * same thread formats the next record.
+     */
+    @NonNull FLRecordBuffer format(int priority, @Nullable String onceOnlyTag, @NonNull String message) {
+        return format(System.currentTimeMillis(), priority, onceOnlyTag, message);
+    }
+
+    /**
+     * Same as {@link #format(int, String, String)} for a record that was logged at {@code millis}.
+     */
+    @NonNull FLRecordBuffer format(long millis, int priority, @Nullable String onceOnlyTag, @NonNull String message) {
+        FLRecordBuffer buffer = buffers.get();
+        buffer.reset();
+        appendHead(buffer, millis, priority);
+        appendTag(buffer, tag, onceOnlyTag);
+        appendTail(buffer, message);
+        return buffer;
+    }
+
+    /**
+     * Formats a record that was logged earlier, {@code tag} is the complete tag column.
+     */
+    @NonNull FLRecordBuffer formatTagged(long millis, int priority, @NonNull String tag, @NonNull String message) {
+        FLRecordBuffer buffer = buffers.get();
+        buffer.reset();
+        appendHead(buffer, millis, priority);
+        buffer.append(tag);
+        appendTail(buffer, message);
+        return buffer;
+    }
+
+    private void appendHead(@NonNull FLRecordBuffer buffer, long millis, int priority) {
+        // machine-readable date/time
+        buffer.append(millis);
+
+        // human-readable date/time
+        buffer.append(SEPARATOR);
+        dateFormat.format(millis, buffer);
+
+        // level
+        buffer.append(SEPARATOR);
+        buffer.append(FLLogUtils.logLevel(priority));
+
+        // tag
+        buffer.append(SEPARATOR);
+    }
+
+    private void appendTail(@NonNull FLRecordBuffer buffer, @NonNull String message) {
+        // message, a new line would break the CSV format, so we replace it here
+        buffer.append(SEPARATOR);
+        appendEscaped(buffer, message);
+
+        // new line
+        buffer.append(newLine);
+
+        buffer.encode();
+    }
+
+    @Nullable String formatTag(@Nullable String tag) {
+        if (!FLLogUtils.isEmpty(tag) && !FLLogUtils.equals(this.tag, tag)) {
+            return this.tag + "-" + tag;
+        }
+        return this.tag;
+    }
+
+    static void appendTag(@NonNull FLRecordBuffer buffer, @Nullable String tag, @Nullable String onceOnlyTag) {
+        buffer.append(tag);
+        if (!FLLogUtils.isEmpty(onceOnlyTag) && !FLLogUtils.equals(tag, onceOnlyTag)) {
+            buffer.append('-');
+            buffer.append(onceOnlyTag);
+        }
+    }
+
+    private void appendEscaped(@NonNull FLRecordBuffer buffer, @NonNull String message) {
+        int start = 0;
+        int index;
+        while ((index = message.indexOf(newLine, start)) >= 0) {
+            buffer.append(message, start, index);
+            buffer.append(NEW_LINE_REPLACEMENT);
+            start = index + newLine.length();
+        }
+        buffer.append(message, start, message.length());
+    }
+}
@@ -0,0 +1,142 @@
+package com.forkliu.base.logger;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.orhanobut.logger.Logger;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Keeps the last records below {@code fileLevel} in memory instead of writing them. They are
+ * written, with the time they were logged, only right before an ERROR or ASSERT record, or
+ * when the app crashes:
+ * <pre>
+ * FLDebugRing ring = new FLDebugRing(1024, Logger.INFO);
+ * ring.installCrashHandler();
+ * adapter.setLogLevel(Logger.VERBOSE);
+ * adapter.setDebugRing(ring);
+ * </pre>
+ * So the files get the full DEBUG context of every failure, and nothing else of it.
+ * <p>
+ * One ring per adapter. Logging into it is lock-free: a record claims the next slot and
+ * replaces the oldest one. Records logged while the ring is written out can be missed.
+ */
+public final class FLDebugRing {
+    // how long a crashing thread waits for the writer threads
+    private static final long CRASH_TIMEOUT = 2000; // ms
+
+    private final int fileLevel;
+    private final int mask;
+    @NonNull private final AtomicReferenceArray<Entry> slots;
+    // sequence of the next record
+    @NonNull private final AtomicLong head = new AtomicLong();
+    // records before this sequence are written or dropped
+    @NonNull private final AtomicLong written = new AtomicLong();
+    @Nullable private volatile Target target;
+
+    /**
+     * @param capacity records kept, rounded up to a power of two
+     * @param fileLevel records of this level and above go to the file as usual
+     */
+    public FLDebugRing(int capacity, int fileLevel) {
+        int size = Integer.highestOneBit(Math.max(2, Math.min(capacity, 1 << 20)) * 2 - 1);
+        this.slots = new AtomicReferenceArray<>(size);
+        this.mask = size - 1;
+        this.fileLevel = fileLevel;
+    }
+
+    /**
+     * Writes the ring out and waits for the files when a thread dies of an uncaught exception,
+     * then hands the exception on to the handler that was set before.
+     */
+    public void installCrashHandler() {
+        final Thread.UncaughtExceptionHandler previous = Thread.getDefaultUncaughtExceptionHandler();
+        Thread.setDefaultUncaughtExceptionHandler(new Thread.UncaughtExceptionHandler() {
+            @Override
+            public void uncaughtException(@NonNull Thread thread, @NonNull Throwable e) {
+                Target t = target;
+                if (t != null) {
+                    try {
+                        drain(t);
+                        t.write(System.currentTimeMillis(), Logger.ASSERT, null,
+                                FLMessageFormatter.withThrowable("uncaught exception in " + thread.getName(), e));
+                        t.sync(CRASH_TIMEOUT);
+                    } catch (Throwable ignored) {
+                        // the crash is reported below anyway
+                    }
+                }
+                if (previous != null) {
+                    previous.uncaughtException(thread, e);
+                }
+            }
+        });
+    }
+
+    void attach(@NonNull Target target) {
+        this.target = target;
+    }
+
+    /**
+     * @return true if the record belongs into the ring and not into the file
+     */
+    boolean captures(int priority) {
+        return priority < fileLevel;
+    }
+
+    void add(int priority, @Nullable String tag, @NonNull String message) {
+        long seq = head.getAndIncrement();
+        slots.set((int) seq & mask, new Entry(seq, System.currentTimeMillis(), priority, tag, message));
+    }
+
+    /**
+     * Writes the records that are in the ring, oldest first, and empties it.
+     */
+    void drain(@NonNull Target target) {
+        long end = head.get();
+        long start;
+        for (;;) {
+            long done = written.get();
+            if (done >= end) return;
+            if (written.compareAndSet(done, end)) {
+                start = Math.max(done, end - slots.length());
+                break;
+            }
+        }
+        for (long seq = start; seq < end; seq++) {
+            Entry e = slots.get((int) seq & mask);
+            // still being written, or already replaced by a newer record
+            if (e == null || e.seq != seq) continue;
+            target.write(e.millis, e.priority, e.tag, e.message);
+        }
+    }
+
+    /**
+     * Where an adapter wants the ring written.
+     */
+    interface Target {
+        void write(long millis, int priority, @Nullable String tag, @NonNull String message);
+
+        /**
+         * Blocks until the files have everything, at most {@code timeoutMillis}.
+         */
+        void sync(long timeoutMillis);
+    }
+
+    private static final class Entry {
+        final long seq;
+        final long millis;
+        final int priority;
+        @Nullable final String tag;
+        @NonNull final String message;
+
+        Entry(long seq, long millis, int priority, @Nullable String tag, @NonNull String message) {
+            this.seq = seq;
+            this.millis = millis;
+            this.priority = priority;
+            this.tag = tag;
+            this.message = message;
+        }
+    }
+}
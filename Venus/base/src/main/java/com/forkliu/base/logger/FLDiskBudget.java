@@ -0,0 +1,209 @@
+package com.forkliu.base.logger;
+
+import androidx.annotation.NonNull;
+
+import java.io.File;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+
+/**
+ * A limit on the disk space and age of the rolled segments of any number of file strategies,
+ * on top of their own {@code backupCount}. Pass the same instance to every builder:
+ * <pre>
+ * FLDiskBudget budget = new FLDiskBudget(20 * 1024 * 1024, 7 * 24 * 3600 * 1000L);
+ * FLRotatingFormatStrategy.newBuilder()
+ *         .diskBudget(budget)
+ * FLTimedRotatingFormatStrategy.newBuilder()
+ *         .diskBudget(budget)
+ * </pre>
+ * When a strategy is built, its folder is listed once for the segments it named. After
+ * that the strategies report every segment they roll, rename or delete, so the budget knows
+ * the sizes without listing the folder again. Once the segments take more than
+ * {@code maxBytes}, or the oldest was last written more than {@code maxAge} ms ago, the
+ * oldest segments of all strategies are deleted first, and the strategy that rolled them is
+ * told. The age is checked again when the oldest segment is due, even if nothing is logged.
+ * <p>
+ * Everything runs on the {@link FLLogMaintenance} thread, never on the writer threads. The
+ * active files don't count.
+ */
+public final class FLDiskBudget {
+    private final long maxBytes;
+    private final long maxAge; // ms
+
+    // maintenance thread only
+    private final ArrayDeque<Entry> entries = new ArrayDeque<>();
+    private final HashMap<File, Entry> byFile = new HashMap<>();
+    private final HashSet<File> active = new HashSet<>();
+    private volatile long totalBytes;
+    // when the age check is due, Long.MAX_VALUE if none is scheduled
+    private long ageCheckAt = Long.MAX_VALUE;
+    @NonNull private final Runnable ageCheck = new Runnable() {
+        @Override
+        public void run() {
+            ageCheckAt = Long.MAX_VALUE;
+            enforce();
+        }
+    };
+
+    /**
+     * @param maxBytes the segments of all strategies may take this many bytes, 0 for no limit
+     * @param maxAgeMillis segments last written longer ago are deleted, 0 for no limit
+     */
+    public FLDiskBudget(long maxBytes, long maxAgeMillis) {
+        if (maxBytes < 0 || maxAgeMillis < 0) {
+            throw new IllegalArgumentException("maxBytes and maxAgeMillis can't be negative");
+        }
+        this.maxBytes = maxBytes;
+        this.maxAge = maxAgeMillis;
+    }
+
+    /**
+     * @return the size of the rolled segments the budget knows about, index files included
+     */
+    public long getTotalBytes() {
+        return totalBytes;
+    }
+
+    /**
+     * Called when a write handler is created. Lists the segments of {@code owner} in its
+     * folder on the maintenance thread.
+     */
+    void register(@NonNull final FLFileWriteHandler owner) {
+        FLLogMaintenance.execute(new Runnable() {
+            @Override
+            public void run() {
+                File folder = new File(owner.folder);
+                File file = new File(folder, owner.activeName);
+                active.add(file);
+                remove(file);
+                scan(folder, owner);
+                enforce();
+            }
+        });
+    }
+
+    /**
+     * Maintenance thread only. {@code segment} of {@code owner} was rolled, or its size changed.
+     */
+    void add(@NonNull File segment, @NonNull FLFileWriteHandler owner) {
+        if (active.contains(segment)) return;
+        Entry entry = byFile.get(segment);
+        long length = size(segment);
+        if (entry == null) {
+            entry = new Entry(segment, owner, length, segment.lastModified());
+            entries.addLast(entry);
+            byFile.put(segment, entry);
+            totalBytes = totalBytes + length;
+        } else {
+            totalBytes = totalBytes + length - entry.length;
+            entry.length = length;
+        }
+        enforce();
+    }
+
+    /**
+     * Maintenance thread only. A segment was renamed, it keeps its place among the others.
+     */
+    void rename(@NonNull File from, @NonNull File to) {
+        Entry entry = byFile.remove(from);
+        if (entry == null) return;
+        entry.file = to;
+        byFile.put(to, entry);
+    }
+
+    /**
+     * Maintenance thread only. A strategy deleted a segment on its own.
+     */
+    void remove(@NonNull File segment) {
+        Entry entry = byFile.remove(segment);
+        if (entry == null) return;
+        // dropped from the queue when it gets to the front
+        entry.removed = true;
+        totalBytes = totalBytes - entry.length;
+    }
+
+    private void enforce() {
+        long now = System.currentTimeMillis();
+        Entry oldest;
+        while ((oldest = entries.peekFirst()) != null) {
+            if (!oldest.removed
+                    && (maxBytes <= 0 || totalBytes <= maxBytes)
+                    && (maxAge <= 0 || now - oldest.modified <= maxAge)) {
+                break;
+            }
+            entries.pollFirst();
+            if (oldest.removed) continue;
+            byFile.remove(oldest.file);
+            totalBytes = totalBytes - oldest.length;
+            oldest.file.delete();
+            FLSegmentIndex.delete(oldest.file);
+            oldest.owner.onSegmentEvicted(oldest.file);
+        }
+        scheduleAgeCheck();
+    }
+
+    /**
+     * Wakes the maintenance thread up when the oldest segment gets too old.
+     */
+    private void scheduleAgeCheck() {
+        Entry oldest = entries.peekFirst();
+        if (maxAge <= 0 || oldest == null) return;
+        long due = oldest.modified + maxAge;
+        // an earlier check schedules the next one
+        if (due >= ageCheckAt) return;
+        ageCheckAt = due;
+        FLLogMaintenance.schedule(ageCheck, Math.max(0, due - System.currentTimeMillis()) + 1);
+    }
+
+    private void scan(@NonNull File folder, @NonNull FLFileWriteHandler owner) {
+        File[] files = folder.listFiles();
+        if (files == null) return;
+        boolean added = false;
+        for (File file : files) {
+            if (!owner.isSegment(file.getName())
+                    || active.contains(file) || byFile.containsKey(file) || !file.isFile()) {
+                continue;
+            }
+            Entry entry = new Entry(file, owner, size(file), file.lastModified());
+            entries.addLast(entry);
+            byFile.put(file, entry);
+            totalBytes = totalBytes + entry.length;
+            added = true;
+        }
+        if (!added) return;
+
+        // oldest first, across the strategies listed so far
+        ArrayList<Entry> sorted = new ArrayList<>(entries);
+        Collections.sort(sorted, new Comparator<Entry>() {
+            @Override
+            public int compare(Entry o1, Entry o2) {
+                return o1.modified < o2.modified ? -1 : (o1.modified == o2.modified ? 0 : 1);
+            }
+        });
+        entries.clear();
+        entries.addAll(sorted);
+    }
+
+    private static long size(@NonNull File segment) {
+        return segment.length() + FLSegmentIndex.sidecar(segment).length();
+    }
+
+    private static final class Entry {
+        @NonNull File file;
+        @NonNull final FLFileWriteHandler owner;
+        long length;
+        final long modified;
+        boolean removed;
+
+        Entry(@NonNull File file, @NonNull FLFileWriteHandler owner, long length, long modified) {
+            this.file = file;
+            this.owner = owner;
+            this.length = length;
+            this.modified = modified;
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package com.forkliu.base.logger;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Collapses a record that is logged again and again into the first one and a line
+ * "... repeated 5321 times", written with the next record that is different. A run that lasts
+ * longer than the window is summed up then, and the record is written again. A run that is
+ * still open when its window is up, because nothing was logged since, is summed up by the
+ * {@link FLLogMaintenance} thread through the {@link Target}.
+ * <p>
+ * Lock-free: the last record is swapped with a compare-and-set, its repeats are counted until
+ * the run is closed by the record that replaces it, so no repeat is lost between threads.
+ */
+final class FLDuplicateFilter {
+    // the record repeats the last one, don't write it
+    static final Run REPEATED = new Run(0, null, "", 0);
+
+    /**
+     * Writes the summary of a run whose window is up.
+     */
+    interface Target {
+        void write(int priority, @Nullable String tag, @NonNull String message);
+    }
+
+    private final long window;
+    @NonNull private final Target target;
+    @NonNull private final AtomicReference<Run> last = new AtomicReference<>();
+
+    FLDuplicateFilter(long windowMillis, @NonNull Target target) {
+        this.window = windowMillis * 1000000L;
+        this.target = target;
+    }
+
+    /**
+     * @return {@link #REPEATED} if the record should not be written, otherwise the run it
+     * ends if that needs its summary written first, or null
+     */
+    @Nullable Run offer(int priority, @Nullable String tag, @NonNull String message) {
+        long now = System.nanoTime();
+        for (;;) {
+            final Run run = last.get();
+            if (run != null && run.matches(priority, tag, message) && now - run.start < window) {
+                int repeats = run.repeat();
+                if (repeats == 0) {
+                    // the first repeat, the summary is due when the window is up
+                    FLLogMaintenance.schedule(new Runnable() {
+                        @Override
+                        public void run() {
+                            expire(run);
+                        }
+                    }, (run.start + window - now) / 1000000L + 1);
+                }
+                if (repeats >= 0) return REPEATED;
+            }
+            if (last.compareAndSet(run, new Run(priority, tag, message, now))) {
+                return run != null && run.close() > 0 ? run : null;
+            }
+        }
+    }
+
+    /**
+     * Maintenance thread only. Writes the summary of {@code run} unless a record that is
+     * different or came after the window ended it already.
+     */
+    private void expire(@NonNull Run run) {
+        if (last.compareAndSet(run, null) && run.close() > 0) {
+            target.write(run.priority, run.tag, run.summary());
+        }
+    }
+
+    static final class Run {
+        private static final AtomicIntegerFieldUpdater<Run> REPEATS =
+                AtomicIntegerFieldUpdater.newUpdater(Run.class, "repeats");
+
+        final int priority;
+        @Nullable final String tag;
+        @NonNull private final String message;
+        private final long start;
+        // -1 once the run is closed
+        private volatile int repeats;
+        // repeats when closed, only read by the thread that closed the run
+        private int total;
+
+        Run(int priority, @Nullable String tag, @NonNull String message, long start) {
+            this.priority = priority;
+            this.tag = tag;
+            this.message = message;
+            this.start = start;
+        }
+
+        boolean matches(int priority, @Nullable String tag, @NonNull String message) {
+            return this.priority == priority && FLLogUtils.equals(this.tag, tag)
+                    && this.message.equals(message);
+        }
+
+        /**
+         * @return the repeats before this one, -1 if the run is closed
+         */
+        private int repeat() {
+            for (;;) {
+                int n = repeats;
+                if (n < 0) return -1;
+                if (REPEATS.compareAndSet(this, n, n + 1)) return n;
+            }
+        }
+
+        private int close() {
+            total = REPEATS.getAndSet(this, -1);
+            return total;
+        }
+
+        /**
+         * Only valid for the run returned by {@link #offer} or handed to the {@link Target}.
+         */
+        @NonNull String summary() {
+            return "... repeated " + total + " times";
+        }
+    }
+}
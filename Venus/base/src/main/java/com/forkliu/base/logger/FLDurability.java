@@ -0,0 +1,87 @@
+package com.forkliu.base.logger;
+
+import androidx.annotation.NonNull;
+
+/**
+ * When the file strategies force written records from the page cache to storage, see
+ * {@code durability(FLDurability)} on the builders. A flush only hands the data to the kernel,
+ * it survives a crash of the process but not a power loss or a kernel panic.
+ * <p>
+ * The writer thread forces once per batch it drains, so under load one fsync covers many
+ * records (group commit) and {@link #always()} costs far less than one fsync per record.
+ * Except for {@link #none()}, records that aren't forced yet are forced before the active file
+ * is rolled over or closed.
+ */
+public final class FLDurability {
+    static final int NONE = 0;
+    static final int INTERVAL = 1;
+    static final int ON_LEVEL = 2;
+    static final int ALWAYS = 3;
+
+    private static final FLDurability NEVER = new FLDurability(NONE, 0, 0);
+
+    final int policy;
+    final long interval; // ms
+    final int level;
+
+    private FLDurability(int policy, long interval, int level) {
+        this.policy = policy;
+        this.interval = interval;
+        this.level = level;
+    }
+
+    /**
+     * Never forces, the kernel writes the page cache back on its own (default).
+     */
+    @NonNull public static FLDurability none() {
+        return NEVER;
+    }
+
+    /**
+     * Forces at the latest {@code millis} after a record was written, so a power loss costs
+     * at most that much log.
+     */
+    @NonNull public static FLDurability interval(long millis) {
+        if (millis <= 0) {
+            throw new IllegalArgumentException("interval must be positive");
+        }
+        return new FLDurability(INTERVAL, millis, 0);
+    }
+
+    /**
+     * Forces every batch with a record of {@code level} or above, e.g. {@link com.orhanobut.logger.Logger#ERROR},
+     * together with everything written before it.
+     */
+    @NonNull public static FLDurability onLevel(int level) {
+        return new FLDurability(ON_LEVEL, 0, level);
+    }
+
+    /**
+     * Forces every batch before the writer thread takes the next one.
+     */
+    @NonNull public static FLDurability always() {
+        return new FLDurability(ALWAYS, 0, 0);
+    }
+
+    /**
+     * @return true if a batch whose highest level is {@code maxLevel} has to be forced right away
+     */
+    boolean forces(int maxLevel) {
+        return policy == ALWAYS || (policy == ON_LEVEL && maxLevel >= level);
+    }
+
+    @NonNull
+    @Override
+    public String toString() {
+        switch (policy) {
+            case INTERVAL:
+                return "FLDurability{interval=" + interval + "ms}";
+            case ON_LEVEL:
+                return "FLDurability{level=" + FLLogUtils.logLevel(level) + "}";
+            case ALWAYS:
+                return "FLDurability{always}";
+            default:
+                return "FLDurability{none}";
+        }
+    }
+}
@@ -12,9 +12,35 @@ import com.orhanobut.logger.Logger;
 import static com.forkliu.base.logger.FLLogUtils.checkNotNull;
 
 public class FLFileLogAdapter implements LogAdapter {
-    // 默认只输出INFO级别及以上的日志
-    private int logLevel = Logger.DEBUG;
+    // 默认只输出DEBUG级别及以上的日志
+    @NonNull private final FLLevelFilter levels = new FLLevelFilter(Logger.DEBUG);
     @NonNull private final FormatStrategy formatStrategy;
+    @NonNull private final FLAdapterPipeline pipeline = new FLAdapterPipeline(new FLAdapterPipeline.Target() {
+        @Override
+        public void write(int priority, @Nullable String tag, @NonNull String message) {
+            formatStrategy.log(priority, tag, message);
+        }
+
+        @Override
+        public void write(long millis, int priority, @Nullable String tag, @NonNull String message) {
+            if (formatStrategy instanceof FLRotatingFormatStrategy) {
+                ((FLRotatingFormatStrategy) formatStrategy).log(millis, priority, tag, message);
+            } else if (formatStrategy instanceof FLTimedRotatingFormatStrategy) {
+                ((FLTimedRotatingFormatStrategy) formatStrategy).log(millis, priority, tag, message);
+            } else {
+                formatStrategy.log(priority, tag, message);
+            }
+        }
+
+        @Override
+        public void sync(long timeoutMillis) {
+            if (formatStrategy instanceof FLRotatingFormatStrategy) {
+                ((FLRotatingFormatStrategy) formatStrategy).sync(timeoutMillis);
+            } else if (formatStrategy instanceof FLTimedRotatingFormatStrategy) {
+                ((FLTimedRotatingFormatStrategy) formatStrategy).sync(timeoutMillis);
+            }
+        }
+    });
     public FLFileLogAdapter(Context context) throws FLLoggerException{
         formatStrategy = FLRotatingFormatStrategy.newBuilder()
                 .logDir(context.getFilesDir().getAbsolutePath())
@@ -25,17 +51,77 @@ public class FLFileLogAdapter implements LogAdapter {
     }
 
     public void setLogLevel(int logLevel){
-        this.logLevel = logLevel;
+        levels.setLevel(logLevel);
+    }
+
+    /**
+     * Records with this tag are logged from {@code logLevel} on, whatever the level of the
+     * others, until {@link #clearLogLevel(String)}. Takes effect on all threads right away.
+     */
+    public void setLogLevel(@NonNull String tag, int logLevel) {
+        levels.setLevel(tag, logLevel);
+    }
+
+    public void clearLogLevel(@NonNull String tag) {
+        levels.clearLevel(tag);
+    }
+
+    /**
+     * Limits how many records each tag may log, null (default) for no limit.
+     */
+    public void setRateLimiter(@Nullable FLRateLimiter rateLimiter) {
+        pipeline.setRateLimiter(rateLimiter);
+    }
+
+    /**
+     * Writes a record that repeats the one before only once, followed by a line with the
+     * number of repeats, at the latest after {@code windowMillis}. 0 (default) writes every
+     * record.
+     */
+    public void setDuplicateWindow(long windowMillis) {
+        pipeline.setDuplicateWindow(windowMillis);
     }
 
     @Override
     public boolean isLoggable(int priority, @Nullable String tag) {
-        if (priority < logLevel) return false;
+        if (!accepts(priority, tag)) {
+            pipeline.filtered.increment();
+            return false;
+        }
         return true;
     }
 
+    /**
+     * {@link #isLoggable} without counting a filtered record, for {@link FLLog#isLoggable}.
+     */
+    boolean accepts(int priority, @Nullable String tag) {
+        return levels.isLoggable(priority, tag);
+    }
+
+    /**
+     * What the adapter and its file writer have done so far, cheap enough to call often.
+     */
+    @NonNull public FLLoggerStats getStats() {
+        FLLoggerMetrics metrics = null;
+        if (formatStrategy instanceof FLRotatingFormatStrategy) {
+            metrics = ((FLRotatingFormatStrategy) formatStrategy).metrics();
+        } else if (formatStrategy instanceof FLTimedRotatingFormatStrategy) {
+            metrics = ((FLTimedRotatingFormatStrategy) formatStrategy).metrics();
+        }
+        return FLLoggerStats.create(pipeline.filtered.sum(), metrics);
+    }
+
+    /**
+     * Keeps the records below the file level of {@code debugRing} in memory and writes them
+     * only before an ERROR or ASSERT record, null (default) writes everything. The log level
+     * still decides what gets that far.
+     */
+    public void setDebugRing(@Nullable FLDebugRing debugRing) {
+        pipeline.setDebugRing(debugRing);
+    }
+
     @Override
     public void log(int priority, @Nullable String tag, @NonNull String message) {
-        formatStrategy.log(priority,tag,message);
+        pipeline.log(priority, tag, message);
     }
 }
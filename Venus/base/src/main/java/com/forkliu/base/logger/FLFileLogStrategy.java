@@ -0,0 +1,206 @@
+package com.forkliu.base.logger;
+
+import android.os.Looper;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.orhanobut.logger.LogStrategy;
+import com.orhanobut.logger.Logger;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Common front end of the file strategies, it only hands records to the writer thread.
+ * <p>
+ * The builders create the write handler lazily: the writer thread, the handler and whatever
+ * it needs are set up on the {@link FLLogMaintenance} thread, so building a strategy on the
+ * main thread at launch costs next to nothing. Records logged until then wait in a small
+ * preallocated startup buffer. Once it is full, records below ERROR are dropped and ERROR and
+ * ASSERT records push out the oldest ones. Calls that need the handler, like
+ * {@link #flush()}, set it up on the calling thread if it isn't there yet. Logging threads
+ * never wait for the setup, only for the startup buffer.
+ * <p>
+ * If the handler can't be set up, the strategy drops every record and counts it, the stats
+ * report the failure as an error.
+ */
+abstract class FLFileLogStrategy implements LogStrategy {
+    static final int STARTUP_RECORDS = 64;
+
+    /**
+     * Sets up the write handler of a lazy strategy, called once.
+     */
+    interface HandlerFactory {
+        @NonNull FLFileWriteHandler create();
+    }
+
+    @NonNull private final FLWriterConfig config;
+    // a line formatted elsewhere still needs the binary record layout
+    @Nullable private final FLBinaryFormatter binaryFormatter;
+    @Nullable private final HandlerFactory factory;
+    private volatile FLFileWriteHandler handler;
+    // instead of the handler's if it couldn't be set up
+    private volatile FLLoggerMetrics failed;
+    @NonNull private final Object startupLock = new Object();
+    // guarded by startupLock, null once the handler is there or failed
+    @Nullable private FLLogTransport startup;
+    private long startupDropped;
+
+    FLFileLogStrategy(@NonNull FLFileWriteHandler handler) {
+        this.config = handler.config;
+        this.handler = handler;
+        this.factory = null;
+        handler.onCreated();
+        this.binaryFormatter = config.recordFormat == FLRecordFormat.BINARY
+                ? new FLBinaryFormatter(null) : null;
+    }
+
+    FLFileLogStrategy(@NonNull FLWriterConfig config, @NonNull HandlerFactory factory) {
+        this.config = config;
+        this.factory = factory;
+        this.startup = FLLogTransport.ringBuffer(STARTUP_RECORDS, FLLogTransport.OVERFLOW_DROP_BELOW_LEVEL, Logger.ERROR);
+        this.binaryFormatter = config.recordFormat == FLRecordFormat.BINARY
+                ? new FLBinaryFormatter(null) : null;
+        FLLogMaintenance.execute(new Runnable() {
+            @Override
+            public void run() {
+                handler();
+            }
+        });
+    }
+
+    /**
+     * Sets the write handler up on the calling thread if it isn't there yet.
+     *
+     * @return null if it couldn't be set up
+     */
+    @Nullable
+    private FLFileWriteHandler handler() {
+        FLFileWriteHandler h = handler;
+        if (h != null || failed != null) return h;
+        // only the threads setting up take this lock, never the logging threads
+        synchronized (this) {
+            if (handler != null || failed != null) return handler;
+            try {
+                h = factory.create();
+                h.onCreated();
+            } catch (RuntimeException e) {
+                e.printStackTrace();
+                synchronized (startupLock) {
+                    FLLoggerMetrics metrics = new FLLoggerMetrics(startup);
+                    metrics.onError();
+                    metrics.dropped.add(startupDropped + startup.size());
+                    startup.clear();
+                    failed = metrics;
+                    startup = null;
+                }
+                return null;
+            }
+            synchronized (startupLock) {
+                // in order, records logged meanwhile wait for the lock and come after them
+                FLLogRecord record = new FLLogRecord();
+                while (startup.poll(record)) {
+                    h.enqueue(record.level, record.nanos, record.data, 0, record.length);
+                }
+                h.metrics.dropped.add(startupDropped + startup.dropped());
+                handler = h;
+                startup = null;
+            }
+            return h;
+        }
+    }
+
+    private void enqueue(int level, @NonNull byte[] data, int off, int len) {
+        FLFileWriteHandler h = handler;
+        if (h == null) {
+            synchronized (startupLock) {
+                if (startup != null) {
+                    if (!startup.offer(level, System.nanoTime(), data, off, len)) {
+                        startupDropped++;
+                    }
+                    return;
+                }
+            }
+            h = handler;
+            if (h == null) {
+                failed.dropped.increment();
+                return;
+            }
+        }
+        h.enqueue(level, System.nanoTime(), data, off, len);
+    }
+
+    @Override
+    public void log(int level, @Nullable String tag, @NonNull String message) {
+        if (binaryFormatter != null) {
+            log(level, binaryFormatter.formatTagged(level, tag, message));
+            return;
+        }
+        // do nothing on the calling thread, simply pass the tag/msg to the background thread
+        byte[] bytes = message.getBytes(StandardCharsets.UTF_8);
+        enqueue(level, bytes, 0, bytes.length);
+    }
+
+    /**
+     * Same as {@link #log(int, String, String)} for a record that is already encoded,
+     * without creating a String for it.
+     */
+    void log(int level, @NonNull FLRecordBuffer record) {
+        enqueue(level, record.bytes, 0, record.byteCount);
+    }
+
+    @NonNull FLLoggerMetrics metrics() {
+        FLFileWriteHandler handler = handler();
+        return handler != null ? handler.metrics : failed;
+    }
+
+    /**
+     * @return the {@link FLRecordFormat} the records have to be handed over in
+     */
+    int recordFormat() {
+        return config.recordFormat;
+    }
+
+    /**
+     * Writes everything that is buffered so far to the file.
+     */
+    void flush() {
+        FLFileWriteHandler handler = handler();
+        if (handler == null) return;
+        handler.sendEmptyMessage(FLFileWriteHandler.MSG_FLUSH);
+    }
+
+    /**
+     * Blocks until everything logged so far is written to the file, at most
+     * {@code timeoutMillis}. Meant for a process that is about to die, don't call it on the
+     * writer thread.
+     */
+    void sync(long timeoutMillis) {
+        FLFileWriteHandler handler = handler();
+        if (handler == null || Looper.myLooper() == handler.getLooper()) return;
+        final CountDownLatch written = new CountDownLatch(1);
+        handler.sendEmptyMessage(FLFileWriteHandler.MSG_FLUSH);
+        handler.post(new Runnable() {
+            @Override
+            public void run() {
+                written.countDown();
+            }
+        });
+        try {
+            written.await(timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Writes the pending records and closes the file. Records logged afterwards open it again.
+     */
+    void close() {
+        FLFileWriteHandler handler = handler();
+        if (handler == null) return;
+        handler.sendEmptyMessage(FLFileWriteHandler.MSG_CLOSE);
+    }
+}
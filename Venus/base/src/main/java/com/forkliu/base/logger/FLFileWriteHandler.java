@@ -0,0 +1,504 @@
+package com.forkliu.base.logger;
+
+import android.os.Handler;
+import android.os.Message;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.orhanobut.logger.Logger;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Background side of the file strategies.
+ * <p>
+ * Callers put records into the {@link FLLogTransport} and at most one drain message is in
+ * flight at a time. The writer thread waits {@code linger} ms after the first record, then drains up to
+ * {@code batchSize} records in one pass and hands them to the file in a single write.
+ * <p>
+ * Keeps one {@link FLLogWriter} open for the active log file and only reopens it after a
+ * rollover. Buffered output is flushed when it reaches {@code flushBytes}, when
+ * {@code flushInterval} has passed, or right away for ERROR and ASSERT records. The interval
+ * flush is left to the {@link FLLogWriterScheduler.Worker}, which flushes all sinks of the
+ * thread together.
+ * <p>
+ * With an {@code indexInterval} the CSV segments get a {@link FLSegmentIndex}, its blocks are
+ * appended once the data they cover is out of the buffer.
+ * <p>
+ * In the multi-process mode every batch is written and flushed under a {@link FLProcessLock},
+ * so the processes that share the file append whole batches in turn and only the one that
+ * holds the lock rolls the file over.
+ * <p>
+ * The {@link FLDurability} decides when the written data is forced to storage: after every
+ * batch that needs it, so one fsync covers the whole batch, or by a MSG_SYNC timer.
+ * Subclasses only decide when and how the active file is rolled over.
+ */
+abstract class FLFileWriteHandler extends Handler {
+    static final int MSG_DRAIN = 0x100;
+    static final int MSG_FLUSH = 0x101;
+    static final int MSG_CLOSE = 0x102;
+    static final int MSG_SYNC = 0x103;
+
+    private static final int DRAIN_IDLE = 0;
+    private static final int DRAIN_DELAYED = 1;
+    private static final int DRAIN_NOW = 2;
+
+    // results of write(), it returns the bytes written otherwise
+    private static final int WRITE_FAILED = -1;
+    private static final int NO_FILE = -2;
+
+    @NonNull final String folder;
+    @NonNull final String logName;
+    // logName, with the compression suffix if the active file is compressed
+    @NonNull final String activeName;
+    @NonNull final FLWriterConfig config;
+
+    @NonNull private final FLLogWriterScheduler.Worker worker;
+    @NonNull private final FLLogTransport transport;
+    @NonNull final FLLoggerMetrics metrics;
+    // null for CSV, the records are written as they come
+    @Nullable private final FLBinarySegmentEncoder encoder;
+    // null if the segments aren't indexed
+    @Nullable private final FLSegmentIndex.Writer index;
+    // null unless other processes write the same file
+    @Nullable final FLProcessLock processLock;
+    private final FLLogRecord record = new FLLogRecord();
+    private final AtomicInteger drainState = new AtomicInteger(DRAIN_IDLE);
+
+    private FLLogWriter writer;
+    private boolean flushScheduled;
+    private boolean syncScheduled;
+    // records written since the last sync
+    private boolean unsynced;
+    // the rollover generation of the open file, multi-process mode only
+    private long generation = -1;
+
+    FLFileWriteHandler(
+            @NonNull FLLogWriterScheduler.Worker worker,
+            @NonNull String folder,
+            @NonNull String logName,
+            @NonNull FLWriterConfig config
+    ) {
+        super(worker.getLooper());
+        this.worker = worker;
+        this.folder = folder;
+        this.logName = logName;
+        this.config = config;
+        this.activeName = config.compression == FLCompression.GZIP_STREAM
+                ? logName + FLCompression.EXTENSION : logName;
+        this.transport = config.transport;
+        this.metrics = new FLLoggerMetrics(transport);
+        this.encoder = config.recordFormat == FLRecordFormat.BINARY ? new FLBinarySegmentEncoder() : null;
+        this.index = config.indexInterval > 0 && encoder == null
+                ? new FLSegmentIndex.Writer(config.indexInterval) : null;
+        this.processLock = config.multiProcess ? FLProcessLock.forFile(new File(folder, logName + FLProcessLock.EXTENSION)) : null;
+    }
+
+    /**
+     * Called by the strategy once the handler, subclass included, is constructed.
+     */
+    void onCreated() {
+        if (config.diskBudget != null) {
+            config.diskBudget.register(this);
+        }
+    }
+
+    /**
+     * Called on the logging thread.
+     *
+     * @param nanos System.nanoTime() when the record was logged
+     */
+    void enqueue(int level, long nanos, @NonNull byte[] data, int off, int len) {
+        if (!transport.offer(level, nanos, data, off, len)) {
+            metrics.dropped.increment();
+            return;
+        }
+        metrics.enqueued.increment();
+        if (level >= Logger.ERROR) {
+            if (drainState.getAndSet(DRAIN_NOW) != DRAIN_NOW) {
+                sendEmptyMessage(MSG_DRAIN);
+            }
+        } else if (drainState.compareAndSet(DRAIN_IDLE, DRAIN_DELAYED)) {
+            sendEmptyMessageDelayed(MSG_DRAIN, config.linger);
+        }
+    }
+
+    @Override
+    public void handleMessage(@NonNull Message msg) {
+        switch (msg.what) {
+            case MSG_DRAIN:
+                drainState.set(DRAIN_IDLE);
+                commit(drain(config.batchSize));
+                if (!transport.isEmpty() && drainState.getAndSet(DRAIN_NOW) != DRAIN_NOW) {
+                    // let the other messages of this looper run before the next batch
+                    sendEmptyMessage(MSG_DRAIN);
+                }
+                break;
+            case MSG_FLUSH:
+                flushNow();
+                break;
+            case MSG_SYNC:
+                syncScheduled = false;
+                drain(Integer.MAX_VALUE);
+                syncWriter();
+                break;
+            case MSG_CLOSE:
+                // the thread belongs to the scheduler and keeps running
+                drain(Integer.MAX_VALUE);
+                if (config.durability.policy != FLDurability.NONE) syncWriter();
+                closeWriter();
+                if (processLock != null) processLock.close();
+                break;
+            default:
+                break;
+        }
+    }
+
+    /**
+     * @return true if the active file has to be rolled over before the next record is written
+     */
+    abstract boolean shouldRollover(@NonNull FLLogWriter writer, int nextLength);
+
+    /**
+     * Moves the active file out of the way. The writer has already been closed.
+     */
+    abstract void doRollover(@NonNull File folder, @NonNull File logFile);
+
+    /**
+     * @return true if {@code name} is the name of a segment this handler rolled, sidecars
+     * excluded, thread safe
+     */
+    abstract boolean isSegment(@NonNull String name);
+
+    /**
+     * Opens the writer for the active file, a buffered or gzip stream unless a subclass says
+     * otherwise.
+     */
+    @NonNull
+    FLLogWriter createWriter(@NonNull File logFile) throws IOException {
+        if (config.compression == FLCompression.GZIP_STREAM) {
+            return new FLGzipLogWriter(logFile, config.flushBytes);
+        }
+        return new FLBufferedLogWriter(logFile, config.flushBytes);
+    }
+
+    /**
+     * Maintenance thread only. Subclasses report the segments they roll, rename and delete,
+     * so the {@link FLDiskBudget} doesn't have to list the folder.
+     */
+    void onSegmentAdded(@NonNull File segment) {
+        if (config.diskBudget != null) config.diskBudget.add(segment, this);
+    }
+
+    void onSegmentRenamed(@NonNull File from, @NonNull File to) {
+        if (config.diskBudget != null) config.diskBudget.rename(from, to);
+    }
+
+    void onSegmentDeleted(@NonNull File segment) {
+        if (config.diskBudget != null) config.diskBudget.remove(segment);
+    }
+
+    /**
+     * Maintenance thread only. The {@link FLDiskBudget} deleted {@code segment}, subclasses
+     * that keep track of their segments forget it.
+     */
+    void onSegmentEvicted(@NonNull File segment) {
+    }
+
+    /**
+     * Called every time the active file is (re)opened.
+     */
+    void onOpen(@NonNull FLLogWriter writer) {
+    }
+
+    /**
+     * Writes up to {@code max} pending records into the writer buffer.
+     *
+     * @return the highest level among them, 0 if nothing was written
+     */
+    private int drain(int max) {
+        if (processLock == null) return drainRecords(max);
+        if (transport.isEmpty()) return 0;
+        try {
+            processLock.lock();
+        } catch (IOException e) {
+            e.printStackTrace();
+            return drainRecords(max);
+        }
+        try {
+            joinProcesses();
+            int maxLevel = drainRecords(max);
+            // nothing may stay in the buffer once another process can append
+            flushWriter();
+            return maxLevel;
+        } finally {
+            processLock.unlock();
+        }
+    }
+
+    /**
+     * Lock holders only. Catches up with what the other processes did to the active file.
+     */
+    private void joinProcesses() {
+        try {
+            long g = processLock.generation();
+            if (g != generation) {
+                // rolled over by another process, the next record opens the new file
+                closeWriter();
+                generation = g;
+            } else if (writer instanceof FLBufferedLogWriter) {
+                ((FLBufferedLogWriter) writer).refreshLength();
+            }
+        } catch (IOException e) {
+            closeWriter();
+        }
+    }
+
+    private int drainRecords(int max) {
+        int maxLevel = 0;
+        int count = 0;
+        long start = System.nanoTime();
+        long now = start;
+        while (count < max && transport.poll(record)) {
+            count++;
+            int result = write(record.level, record.data, record.length);
+            if (result == NO_FILE) {
+                // the file can't be opened, drop everything that is queued
+                metrics.dropped.add(1 + transport.size());
+                transport.clear();
+                return 0;
+            }
+            now = System.nanoTime();
+            if (result == WRITE_FAILED) {
+                // never reached the file
+                metrics.dropped.increment();
+                continue;
+            }
+            metrics.onWritten(result, record.nanos, now);
+            maxLevel = Math.max(maxLevel, record.level);
+        }
+        if (count > 0) {
+            metrics.onWrite(now - start);
+        }
+        return maxLevel;
+    }
+
+    private void commit(int maxLevel) {
+        if (writer == null) return;
+        FLDurability durability = config.durability;
+        if (maxLevel > 0 && durability.forces(maxLevel)) {
+            // group commit, one sync for the whole batch
+            syncWriter();
+            return;
+        }
+        if (durability.policy == FLDurability.INTERVAL && unsynced && !syncScheduled) {
+            syncScheduled = true;
+            sendEmptyMessageDelayed(MSG_SYNC, durability.interval);
+        }
+        if (writer.buffered() == 0) {
+            // nothing held back, e.g. a mapped file
+            if (index != null) index.flush();
+            return;
+        }
+
+        if (maxLevel >= Logger.ERROR || writer.buffered() >= config.flushBytes) {
+            flushWriter();
+        } else if (!flushScheduled) {
+            flushScheduled = true;
+            worker.scheduleFlush(this, config.flushInterval);
+        }
+    }
+
+    /**
+     * Writer thread only, called by the worker when the flush interval is up.
+     */
+    void flushNow() {
+        flushScheduled = false;
+        int maxLevel = drain(Integer.MAX_VALUE);
+        if (maxLevel > 0 && config.durability.forces(maxLevel)) {
+            syncWriter();
+        } else {
+            flushWriter();
+        }
+    }
+
+    /**
+     * @return the bytes that reached the writer, the encoded size of a binary record,
+     * {@link #WRITE_FAILED} or {@link #NO_FILE}
+     */
+    private int write(int level, @NonNull byte[] data, int len) {
+        FLLogWriter w;
+        try {
+            w = getWriter(len);
+        } catch (Exception e) {
+            e.printStackTrace();
+            metrics.onError();
+            return NO_FILE;
+        }
+
+        try {
+            long offset = w.length();
+            if (encoder != null) {
+                encoder.write(w, data, len);
+            } else {
+                w.write(data, 0, len);
+                if (index != null) {
+                    index.add(offset, w.length(), level, data, len);
+                }
+            }
+            unsynced = true;
+            return (int) (w.length() - offset);
+        } catch (IOException e) {
+            // drop the writer, the next record reopens the file
+            metrics.onError();
+            closeWriter();
+            return WRITE_FAILED;
+        }
+    }
+
+    @NonNull
+    private FLLogWriter getWriter(int nextLength) throws FLLoggerException, IOException {
+        if (writer == null) {
+            File folder = new File(this.folder);
+            if (!folder.exists()) {
+                // another strategy may create the same folder at the same time
+                boolean r = folder.mkdirs() || folder.isDirectory();
+                if (!r) {
+                    throw new FLLoggerException("folder mkdirs fail:" + folder.getAbsolutePath());
+                }
+            }
+            openWriter(new File(folder, activeName));
+        }
+
+        if (shouldRollover(writer, nextLength)) {
+            // 开始滚动
+            openWriter(roll());
+        }
+        return writer;
+    }
+
+    /**
+     * Writer thread only. Writes what is queued and rolls the active file over if
+     * {@link #shouldRollover} says so, without waiting for the next record. The next record
+     * opens the new file. In multi-process mode the check and the rollover happen under the
+     * lock, like those of {@link #getWriter}.
+     */
+    void rolloverIfDue() {
+        commit(drain(Integer.MAX_VALUE));
+        if (processLock != null) {
+            try {
+                processLock.lock();
+            } catch (IOException e) {
+                e.printStackTrace();
+                return;
+            }
+        }
+        try {
+            if (processLock != null) {
+                // another process may have rolled it over already
+                joinProcesses();
+            }
+            if (writer != null && shouldRollover(writer, 0)) {
+                roll();
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+            metrics.onError();
+        } finally {
+            if (processLock != null) processLock.unlock();
+        }
+    }
+
+    /**
+     * Rolls the active file over and, in multi-process mode, lets the other processes know.
+     * Lock holders only in that mode.
+     *
+     * @return the active file to open again
+     */
+    @NonNull
+    private File roll() throws IOException {
+        long start = System.nanoTime();
+        File logFile = rollover();
+        if (processLock != null) {
+            generation = processLock.advance();
+        }
+        metrics.onRotation(System.nanoTime() - start);
+        return logFile;
+    }
+
+    /**
+     * Closes the active file and moves it out of the way.
+     *
+     * @return the active file to open again
+     */
+    @NonNull
+    private File rollover() {
+        File logFile = writer.getFile();
+        if (config.durability.policy != FLDurability.NONE) syncWriter();
+        closeWriter();
+        doRollover(logFile.getParentFile(), logFile);
+        return logFile;
+    }
+
+    private void openWriter(@NonNull File logFile) throws IOException {
+        writer = createWriter(logFile);
+        if (index != null) {
+            index.open(logFile, writer.length());
+        }
+        if (encoder != null) {
+            try {
+                encoder.start(writer);
+            } catch (IOException e) {
+                closeWriter();
+                throw e;
+            }
+        }
+        onOpen(writer);
+    }
+
+    private void flushWriter() {
+        if (writer == null) return;
+        long start = System.nanoTime();
+        try {
+            writer.flush();
+            if (index != null) index.flush();
+        } catch (IOException e) {
+            closeWriter();
+        }
+        metrics.onFlush(System.nanoTime() - start);
+    }
+
+    /**
+     * Flushes the writer and forces everything written so far to storage.
+     */
+    private void syncWriter() {
+        if (writer == null || !unsynced) return;
+        long start = System.nanoTime();
+        try {
+            writer.sync();
+            if (index != null) index.flush();
+        } catch (IOException e) {
+            closeWriter();
+        }
+        unsynced = false;
+        metrics.onSync(System.nanoTime() - start);
+    }
+
+    @SuppressWarnings("checkstyle:emptyblock")
+    private void closeWriter() {
+        if (writer == null) return;
+        long length = writer.length();
+        boolean closed = false;
+        try {
+            writer.close();
+            closed = true;
+        } catch (IOException e) { /* fail silently */ }
+        writer = null;
+        if (index != null) {
+            index.close(closed, length);
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package com.forkliu.base.logger;
+
+import androidx.annotation.NonNull;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Appends records to the active file through a gzip stream.
+ * <p>
+ * {@link #flush()} does a sync flush, everything written so far becomes decodable without
+ * closing the stream. Reopening an existing file starts a new gzip member, which gzip readers
+ * treat as one concatenated stream.
+ * <p>
+ * {@link #length()} counts uncompressed bytes, so {@code maxBytes} still limits how much log
+ * a segment holds. For a reopened file the compressed size of what is there already is used.
+ */
+final class FLGzipLogWriter implements FLLogWriter {
+    @NonNull private final File file;
+    @NonNull private final GZIPOutputStream out;
+    @NonNull private final FileChannel channel;
+    private int pending;
+    private long length;
+
+    FLGzipLogWriter(@NonNull File file, int bufferSize) throws IOException {
+        this.file = file;
+        this.length = file.length();
+        FileOutputStream fos = new FileOutputStream(file, true);
+        try {
+            this.out = new GZIPOutputStream(fos, bufferSize, true);
+            this.channel = fos.getChannel();
+        } catch (IOException e) {
+            fos.close();
+            throw e;
+        }
+    }
+
+    @NonNull
+    @Override
+    public File getFile() {
+        return file;
+    }
+
+    @Override
+    public long length() {
+        return length;
+    }
+
+    @Override
+    public long remaining() {
+        return Long.MAX_VALUE;
+    }
+
+    @Override
+    public int buffered() {
+        return pending;
+    }
+
+    @Override
+    public void write(@NonNull byte[] b, int off, int len) throws IOException {
+        out.write(b, off, len);
+        pending += len;
+        length += len;
+    }
+
+    @Override
+    public void flush() throws IOException {
+        out.flush();
+        pending = 0;
+    }
+
+    @Override
+    public void sync() throws IOException {
+        flush();
+        channel.force(false);
+    }
+
+    @Override
+    public void close() throws IOException {
+        out.close();
+    }
+}
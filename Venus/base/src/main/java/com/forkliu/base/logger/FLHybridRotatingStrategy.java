@@ -0,0 +1,293 @@
+package com.forkliu.base.logger;
+
+import androidx.annotation.NonNull;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static com.forkliu.base.logger.FLRotatingFormatStrategy.Builder.WRITER_MMAP;
+
+class FLHybridRotatingStrategy extends FLFileLogStrategy {
+
+    public FLHybridRotatingStrategy(@NonNull WriteHandler handler) {
+        super(handler);
+    }
+
+    FLHybridRotatingStrategy(@NonNull FLWriterConfig config, @NonNull HandlerFactory factory) {
+        super(config, factory);
+    }
+
+    /**
+     * Rolls over at the boundaries of the timed strategy or once the active file reaches
+     * {@code maxFileSize}, whichever comes first. The rolled segments are named after their
+     * period and a sequence number within it, e.g. log.log.2026-10-18_14.3.
+     * <p>
+     * After every rollover the oldest segments are deleted until at most {@code backupCount}
+     * are left, they take at most {@code maxTotalBytes} and none was last written more than
+     * {@code maxAge} ms ago. 0 turns the byte and age limits off. The active file doesn't count.
+     * Segments also age out while nothing is logged, the oldest one is checked when it is due.
+     * <p>
+     * The folder is listed once, on the {@link FLLogMaintenance} thread, when the handler is
+     * created. After that the rolled segments and the highest sequence number of every period
+     * are tracked there, a rollover only looks the sequence up when the period changes.
+     */
+    static class WriteHandler extends FLTimedRotatingStrategy.WriteHandler {
+        private final int maxFileSize;
+        private final int writerMode;
+        private final long maxTotalBytes;
+        private final long maxAge; // ms
+        // writer thread only, the period of the last rolled segment and its sequence number
+        private String lastPeriod;
+        private int sequence;
+        // the highest sequence number of each period with segments, written by the maintenance
+        // thread, read by the writer thread when the period changes
+        @NonNull private final ConcurrentHashMap<String, Integer> sequences = new ConcurrentHashMap<>();
+        private volatile boolean listed;
+        // rolled segments oldest first, maintenance thread only, null until the folder was listed
+        private ArrayDeque<Segment> segments;
+        private long totalBytes;
+        // when the age check is due, Long.MAX_VALUE if none is scheduled, maintenance thread only
+        private long ageCheckAt = Long.MAX_VALUE;
+        @NonNull private final Runnable ageCheck = new Runnable() {
+            @Override
+            public void run() {
+                ageCheckAt = Long.MAX_VALUE;
+                retain();
+            }
+        };
+
+        WriteHandler(
+                @NonNull FLLogWriterScheduler.Worker worker,
+                @NonNull String folder,
+                String logName,
+                int maxFileSize,
+                int backupCount,
+                long maxTotalBytes,
+                long maxAge,
+                int when,
+                int interval,
+                int writerMode,
+                @NonNull FLWriterConfig config
+        ) {
+            super(worker, folder, logName, backupCount, when, interval, config);
+            this.maxFileSize = maxFileSize;
+            this.maxTotalBytes = maxTotalBytes;
+            this.maxAge = maxAge;
+            this.writerMode = writerMode;
+        }
+
+        @Override
+        void onCreated() {
+            super.onCreated();
+            final File folder = new File(this.folder);
+            FLLogMaintenance.execute(new Runnable() {
+                @Override
+                public void run() {
+                    if (segments != null) return;
+                    scan(folder);
+                    retain();
+                }
+            });
+        }
+
+        @NonNull
+        @Override
+        FLLogWriter createWriter(@NonNull File logFile) throws IOException {
+            if (writerMode == WRITER_MMAP) {
+                return new FLMappedLogWriter(logFile, maxFileSize);
+            }
+            return super.createWriter(logFile);
+        }
+
+        @Override
+        boolean shouldRollover(@NonNull FLLogWriter writer, int nextLength) {
+            if (writer.length() >= maxFileSize) return true;
+            // a mapped segment is full when the next record doesn't fit any more
+            if (writer.length() > 0 && nextLength > writer.remaining()) return true;
+            return super.shouldRollover(writer, nextLength);
+        }
+
+        @Override
+        void doRollover(@NonNull File folder, @NonNull File logFile) {
+            // one rename on the writer thread, old segments are deleted in the background
+            final String name = period.format(segmentStart);
+            if (!name.equals(lastPeriod)) {
+                lastPeriod = name;
+                // a restarted process continues the sequence of the period
+                Integer last = sequences.get(name);
+                sequence = last == null ? 0 : last;
+            }
+            String extension = activeName.substring(logName.length());
+            File dst = segment(folder, name, ++sequence, extension);
+            while (!listed && (dst.exists() || new File(dst.getPath() + FLCompression.EXTENSION).exists())) {
+                // rolled over before the folder was listed, only right after the start
+                dst = segment(folder, name, ++sequence, extension);
+            }
+            if (!logFile.renameTo(dst)) return;
+            FLSegmentIndex.rename(logFile, dst);
+
+            final File renamed = dst;
+            final int rolledSequence = sequence;
+            FLLogMaintenance.execute(new Runnable() {
+                @Override
+                public void run() {
+                    File rolled = renamed;
+                    if (config.compression == FLCompression.GZIP) {
+                        rolled = FLCompression.compress(renamed, new File(renamed.getPath() + FLCompression.EXTENSION));
+                    }
+                    onSegmentAdded(rolled);
+                    if (segments == null) {
+                        scan(rolled.getParentFile());
+                    } else {
+                        add(new Segment(rolled, name, rolledSequence));
+                    }
+                    retain();
+                }
+            });
+        }
+
+        @NonNull
+        private File segment(@NonNull File folder, @NonNull String period, int sequence, @NonNull String extension) {
+            return new File(folder, String.format(Locale.UK, "%s.%s.%d%s", logName, period, sequence, extension));
+        }
+
+        @Override
+        boolean isSegment(@NonNull String name) {
+            if (!name.startsWith(logName + ".")) return false;
+            String rest = name.substring(logName.length() + 1);
+            if (rest.endsWith(FLCompression.EXTENSION)) {
+                rest = rest.substring(0, rest.length() - FLCompression.EXTENSION.length());
+            }
+            int dot = rest.lastIndexOf('.');
+            return dot > 0 && period.matches(rest.substring(0, dot)) && parseSequence(rest.substring(dot + 1)) > 0;
+        }
+
+        @Override
+        void onSegmentEvicted(@NonNull File segment) {
+            if (segments == null) return;
+            for (Iterator<Segment> it = segments.iterator(); it.hasNext(); ) {
+                Segment s = it.next();
+                if (s.file.equals(segment)) {
+                    it.remove();
+                    forget(s);
+                    return;
+                }
+            }
+        }
+
+        /**
+         * Maintenance thread only. Deletes the oldest segments until the limits are kept and
+         * schedules the age check of the oldest one that is left.
+         */
+        private void retain() {
+            long now = System.currentTimeMillis();
+            while (!segments.isEmpty()) {
+                Segment oldest = segments.peekFirst();
+                if (segments.size() <= backupCount
+                        && (maxTotalBytes <= 0 || totalBytes <= maxTotalBytes)
+                        && (maxAge <= 0 || now - oldest.modified <= maxAge)) {
+                    break;
+                }
+                segments.pollFirst();
+                forget(oldest);
+                oldest.file.delete();
+                FLSegmentIndex.delete(oldest.file);
+                onSegmentDeleted(oldest.file);
+            }
+            if (maxAge <= 0 || segments.isEmpty()) return;
+            long due = segments.peekFirst().modified + maxAge;
+            // an earlier check schedules the next one
+            if (due >= ageCheckAt) return;
+            ageCheckAt = due;
+            FLLogMaintenance.schedule(ageCheck, Math.max(0, due - now) + 1);
+        }
+
+        private void add(@NonNull Segment segment) {
+            segments.addLast(segment);
+            totalBytes += segment.length;
+            Integer last = sequences.get(segment.period);
+            if (last == null || last < segment.sequence) {
+                sequences.put(segment.period, segment.sequence);
+            }
+        }
+
+        private void forget(@NonNull Segment segment) {
+            totalBytes -= segment.length;
+            // the oldest segments go first, the last one of its period takes the entry along
+            sequences.remove(segment.period, segment.sequence);
+        }
+
+        private void scan(@NonNull File folder) {
+            segments = new ArrayDeque<>();
+            totalBytes = 0;
+            String[] names = folder.list();
+            if (names != null) {
+                String prefix = logName + ".";
+                ArrayList<Segment> found = new ArrayList<>();
+                for (String name : names) {
+                    if (!name.startsWith(prefix)) continue;
+                    String rest = name.substring(prefix.length());
+                    if (rest.endsWith(FLCompression.EXTENSION)) {
+                        rest = rest.substring(0, rest.length() - FLCompression.EXTENSION.length());
+                    }
+                    int dot = rest.lastIndexOf('.');
+                    if (dot <= 0 || !period.matches(rest.substring(0, dot))) continue;
+                    int sequence = parseSequence(rest.substring(dot + 1));
+                    if (sequence > 0) {
+                        found.add(new Segment(new File(folder, name), rest.substring(0, dot), sequence));
+                    }
+                }
+                // the period names sort by time
+                Collections.sort(found, new Comparator<Segment>() {
+                    @Override
+                    public int compare(Segment o1, Segment o2) {
+                        int c = o1.period.compareTo(o2.period);
+                        if (c != 0) return c;
+                        return o1.sequence < o2.sequence ? -1 : (o1.sequence == o2.sequence ? 0 : 1);
+                    }
+                });
+                for (Segment segment : found) {
+                    add(segment);
+                }
+            }
+            listed = true;
+        }
+
+        /**
+         * @return the sequence number, 0 if {@code s} isn't one
+         */
+        private static int parseSequence(@NonNull String s) {
+            if (s.isEmpty() || s.length() > 9) return 0;
+            int n = 0;
+            for (int i = 0; i < s.length(); i++) {
+                char c = s.charAt(i);
+                if (c < '0' || c > '9') return 0;
+                n = n * 10 + (c - '0');
+            }
+            return n;
+        }
+
+        private static final class Segment {
+            @NonNull final File file;
+            @NonNull final String period;
+            final int sequence;
+            final long length;
+            final long modified;
+
+            Segment(@NonNull File file, @NonNull String period, int sequence) {
+                this.file = file;
+                this.period = period;
+                this.sequence = sequence;
+                this.length = file.length();
+                this.modified = file.lastModified();
+            }
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package com.forkliu.base.logger;
+
+import androidx.annotation.NonNull;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Histogram with power of two buckets, updated by one thread and read by any.
+ * Bucket {@code i} counts the values in {@code [2^(i-1), 2^i)}, bucket 0 counts zeros.
+ */
+final class FLLatencyHistogram {
+    static final int BUCKETS = 64;
+
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+    private volatile long max;
+
+    /**
+     * Single writer only.
+     */
+    void record(long value) {
+        if (value < 0) value = 0;
+        int i = BUCKETS - Long.numberOfLeadingZeros(value);
+        if (i >= BUCKETS) i = BUCKETS - 1;
+        buckets.lazySet(i, buckets.get(i) + 1);
+        if (value > max) max = value;
+    }
+
+    long max() {
+        return max;
+    }
+
+    /**
+     * Adds the counts to {@code target}.
+     */
+    void copyTo(@NonNull long[] target) {
+        for (int i = 0; i < BUCKETS; i++) {
+            target[i] += buckets.get(i);
+        }
+    }
+
+    /**
+     * @return the upper bound of the bucket that holds the {@code quantile} of the counts
+     */
+    static long quantile(@NonNull long[] counts, double quantile) {
+        long total = 0;
+        for (long count : counts) {
+            total += count;
+        }
+        if (total == 0) return 0;
+
+        long rank = (long) Math.ceil(quantile * total);
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= rank && seen > 0) {
+                return i == 0 ? 0 : (1L << i) - 1;
+            }
+        }
+        return Long.MAX_VALUE;
+    }
+}
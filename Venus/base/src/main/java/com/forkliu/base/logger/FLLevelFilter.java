@@ -0,0 +1,90 @@
+package com.forkliu.base.logger;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.HashMap;
+
+/**
+ * A log level with overrides for single tags that can change while the app runs:
+ * <pre>
+ * filter.setLevel(Logger.INFO);
+ * filter.setLevel("Network", Logger.VERBOSE);   // for a while
+ * ...
+ * filter.clearLevel("Network");
+ * </pre>
+ * The tag is the one of the log call, {@code "Network"} of {@code Logger.t("Network")}, not the
+ * "Venus-Network" written to the file. Records without a tag use the default level.
+ * <p>
+ * The levels are an immutable snapshot behind a volatile field, a change makes a new one.
+ * Logging threads see it with their next record, without a lock, and the check is a single
+ * HashMap lookup, none at all while there are no overrides.
+ */
+public final class FLLevelFilter {
+    @NonNull private volatile Levels levels;
+
+    public FLLevelFilter(int level) {
+        levels = new Levels(level, new HashMap<String, Integer>());
+    }
+
+    public boolean isLoggable(int priority, @Nullable String tag) {
+        Levels l = levels;
+        if (priority < l.min) return false;
+        if (tag == null || l.tags.isEmpty()) return priority >= l.level;
+        Integer level = l.tags.get(tag);
+        return priority >= (level == null ? l.level : level);
+    }
+
+    /**
+     * @return the level of records with this tag
+     */
+    public int getLevel(@Nullable String tag) {
+        Levels l = levels;
+        Integer level = tag == null ? null : l.tags.get(tag);
+        return level == null ? l.level : level;
+    }
+
+    /**
+     * The level of all records whose tag has no override.
+     */
+    public synchronized void setLevel(int level) {
+        levels = new Levels(level, levels.tags);
+    }
+
+    public synchronized void setLevel(@NonNull String tag, int level) {
+        HashMap<String, Integer> tags = new HashMap<>(levels.tags);
+        tags.put(FLLogUtils.checkNotNull(tag), level);
+        levels = new Levels(levels.level, tags);
+    }
+
+    /**
+     * Records with this tag go back to the default level.
+     */
+    public synchronized void clearLevel(@NonNull String tag) {
+        if (!levels.tags.containsKey(tag)) return;
+        HashMap<String, Integer> tags = new HashMap<>(levels.tags);
+        tags.remove(tag);
+        levels = new Levels(levels.level, tags);
+    }
+
+    public synchronized void clearLevels() {
+        levels = new Levels(levels.level, new HashMap<String, Integer>());
+    }
+
+    private static final class Levels {
+        final int level;
+        // never changed once published
+        @NonNull final HashMap<String, Integer> tags;
+        final int min;
+
+        Levels(int level, @NonNull HashMap<String, Integer> tags) {
+            this.level = level;
+            this.tags = tags;
+            int min = level;
+            for (Integer l : tags.values()) {
+                min = Math.min(min, l);
+            }
+            this.min = min;
+        }
+    }
+}
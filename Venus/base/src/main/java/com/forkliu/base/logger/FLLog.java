@@ -0,0 +1,339 @@
+package com.forkliu.base.logger;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.orhanobut.logger.LogAdapter;
+import com.orhanobut.logger.Logger;
+
+import java.util.Arrays;
+
+import static com.forkliu.base.logger.FLLogUtils.checkNotNull;
+import static com.orhanobut.logger.Logger.ASSERT;
+import static com.orhanobut.logger.Logger.DEBUG;
+import static com.orhanobut.logger.Logger.ERROR;
+import static com.orhanobut.logger.Logger.INFO;
+import static com.orhanobut.logger.Logger.VERBOSE;
+import static com.orhanobut.logger.Logger.WARN;
+
+/**
+ * Logging calls that cost next to nothing when no adapter takes the level. The adapters are
+ * asked first, the message is only built for a record that some adapter takes:
+ * <pre>
+ * FLLog.addLogAdapter(fileLogAdapter);
+ * FLLog.d("LogTestThread::run|{}", i);          // no String, no boxing if DEBUG is filtered
+ * FLLog.i("{} of {}", done, total);
+ * FLLog.e("upload of {} failed", name, e);      // a last Throwable adds its stack trace
+ * </pre>
+ * Each {@code {}} is replaced by the next argument, see {@link FLMessageFormatter}. A single
+ * {@code int}, {@code long}, {@code float} or {@code double} argument goes through the
+ * primitive overloads and is never boxed, a {@code char} is printed as its code there. Anything
+ * with more or other arguments is boxed by the caller, {@link FLMessageSupplier} defers
+ * messages that are expensive to build.
+ * <p>
+ * Adapters added here are added to {@link Logger} as well, so the {@code Logger} calls keep
+ * reaching them. Adding is rare and copies the list, logging reads it without a lock.
+ */
+public final class FLLog {
+    private static final LogAdapter[] NONE = new LogAdapter[0];
+    private static final Object lock = new Object();
+    private static volatile LogAdapter[] adapters = NONE;
+
+    private FLLog() {
+    }
+
+    public static void addLogAdapter(@NonNull LogAdapter adapter) {
+        checkNotNull(adapter);
+        synchronized (lock) {
+            LogAdapter[] list = Arrays.copyOf(adapters, adapters.length + 1);
+            list[list.length - 1] = adapter;
+            adapters = list;
+        }
+        Logger.addLogAdapter(adapter);
+    }
+
+    /**
+     * Removes the adapters from here and from {@link Logger}.
+     */
+    public static void clearLogAdapters() {
+        synchronized (lock) {
+            adapters = NONE;
+        }
+        Logger.clearLogAdapters();
+    }
+
+    /**
+     * @return true if some adapter takes records of this level and tag, for callers that
+     * do more than build a message. Only asks, a record that isn't logged afterwards isn't
+     * counted as filtered.
+     */
+    public static boolean isLoggable(int priority, @Nullable String tag) {
+        for (LogAdapter adapter : adapters) {
+            if (accepts(adapter, priority, tag)) return true;
+        }
+        return false;
+    }
+
+    // VERBOSE
+    public static void v(@NonNull String message) {
+        log(VERBOSE, null, message);
+    }
+
+    public static void v(@NonNull String format, @Nullable Object arg) {
+        log(VERBOSE, null, format, arg);
+    }
+
+    public static void v(@NonNull String format, @Nullable Object arg1, @Nullable Object arg2) {
+        log(VERBOSE, null, format, arg1, arg2);
+    }
+
+    public static void v(@NonNull String format, @Nullable Object... args) {
+        log(VERBOSE, null, format, args);
+    }
+
+    public static void v(@NonNull String format, long arg) {
+        log(VERBOSE, null, format, arg);
+    }
+
+    public static void v(@NonNull String format, double arg) {
+        log(VERBOSE, null, format, arg);
+    }
+
+    public static void v(@NonNull FLMessageSupplier supplier) {
+        log(VERBOSE, null, supplier);
+    }
+
+    // DEBUG
+    public static void d(@NonNull String message) {
+        log(DEBUG, null, message);
+    }
+
+    public static void d(@NonNull String format, @Nullable Object arg) {
+        log(DEBUG, null, format, arg);
+    }
+
+    public static void d(@NonNull String format, @Nullable Object arg1, @Nullable Object arg2) {
+        log(DEBUG, null, format, arg1, arg2);
+    }
+
+    public static void d(@NonNull String format, @Nullable Object... args) {
+        log(DEBUG, null, format, args);
+    }
+
+    public static void d(@NonNull String format, long arg) {
+        log(DEBUG, null, format, arg);
+    }
+
+    public static void d(@NonNull String format, double arg) {
+        log(DEBUG, null, format, arg);
+    }
+
+    public static void d(@NonNull FLMessageSupplier supplier) {
+        log(DEBUG, null, supplier);
+    }
+
+    // INFO
+    public static void i(@NonNull String message) {
+        log(INFO, null, message);
+    }
+
+    public static void i(@NonNull String format, @Nullable Object arg) {
+        log(INFO, null, format, arg);
+    }
+
+    public static void i(@NonNull String format, @Nullable Object arg1, @Nullable Object arg2) {
+        log(INFO, null, format, arg1, arg2);
+    }
+
+    public static void i(@NonNull String format, @Nullable Object... args) {
+        log(INFO, null, format, args);
+    }
+
+    public static void i(@NonNull String format, long arg) {
+        log(INFO, null, format, arg);
+    }
+
+    public static void i(@NonNull String format, double arg) {
+        log(INFO, null, format, arg);
+    }
+
+    public static void i(@NonNull FLMessageSupplier supplier) {
+        log(INFO, null, supplier);
+    }
+
+    // WARN
+    public static void w(@NonNull String message) {
+        log(WARN, null, message);
+    }
+
+    public static void w(@NonNull String format, @Nullable Object arg) {
+        log(WARN, null, format, arg);
+    }
+
+    public static void w(@NonNull String format, @Nullable Object arg1, @Nullable Object arg2) {
+        log(WARN, null, format, arg1, arg2);
+    }
+
+    public static void w(@NonNull String format, @Nullable Object... args) {
+        log(WARN, null, format, args);
+    }
+
+    public static void w(@NonNull String format, long arg) {
+        log(WARN, null, format, arg);
+    }
+
+    public static void w(@NonNull String format, double arg) {
+        log(WARN, null, format, arg);
+    }
+
+    public static void w(@NonNull FLMessageSupplier supplier) {
+        log(WARN, null, supplier);
+    }
+
+    // ERROR
+    public static void e(@NonNull String message) {
+        log(ERROR, null, message);
+    }
+
+    public static void e(@NonNull String format, @Nullable Object arg) {
+        log(ERROR, null, format, arg);
+    }
+
+    public static void e(@NonNull String format, @Nullable Object arg1, @Nullable Object arg2) {
+        log(ERROR, null, format, arg1, arg2);
+    }
+
+    public static void e(@NonNull String format, @Nullable Object... args) {
+        log(ERROR, null, format, args);
+    }
+
+    public static void e(@NonNull String format, long arg) {
+        log(ERROR, null, format, arg);
+    }
+
+    public static void e(@NonNull String format, double arg) {
+        log(ERROR, null, format, arg);
+    }
+
+    public static void e(@NonNull FLMessageSupplier supplier) {
+        log(ERROR, null, supplier);
+    }
+
+    // ASSERT
+    public static void wtf(@NonNull String message) {
+        log(ASSERT, null, message);
+    }
+
+    public static void wtf(@NonNull String format, @Nullable Object arg) {
+        log(ASSERT, null, format, arg);
+    }
+
+    public static void wtf(@NonNull String format, @Nullable Object arg1, @Nullable Object arg2) {
+        log(ASSERT, null, format, arg1, arg2);
+    }
+
+    public static void wtf(@NonNull String format, @Nullable Object... args) {
+        log(ASSERT, null, format, args);
+    }
+
+    public static void wtf(@NonNull String format, long arg) {
+        log(ASSERT, null, format, arg);
+    }
+
+    public static void wtf(@NonNull String format, double arg) {
+        log(ASSERT, null, format, arg);
+    }
+
+    public static void wtf(@NonNull FLMessageSupplier supplier) {
+        log(ASSERT, null, supplier);
+    }
+
+    // any level, with a tag that is used for this record only
+    public static void log(int priority, @Nullable String tag, @NonNull String message) {
+        LogAdapter[] list = adapters;
+        int first = first(list, priority, tag);
+        if (first >= 0) {
+            dispatch(list, first, priority, tag, message);
+        }
+    }
+
+    public static void log(int priority, @Nullable String tag, @NonNull String format, @Nullable Object arg) {
+        LogAdapter[] list = adapters;
+        int first = first(list, priority, tag);
+        if (first >= 0) {
+            dispatch(list, first, priority, tag, FLMessageFormatter.format(format, arg));
+        }
+    }
+
+    public static void log(int priority, @Nullable String tag, @NonNull String format, @Nullable Object arg1, @Nullable Object arg2) {
+        LogAdapter[] list = adapters;
+        int first = first(list, priority, tag);
+        if (first >= 0) {
+            dispatch(list, first, priority, tag, FLMessageFormatter.format(format, arg1, arg2));
+        }
+    }
+
+    public static void log(int priority, @Nullable String tag, @NonNull String format, @Nullable Object... args) {
+        LogAdapter[] list = adapters;
+        int first = first(list, priority, tag);
+        if (first >= 0) {
+            dispatch(list, first, priority, tag, FLMessageFormatter.format(format, args));
+        }
+    }
+
+    public static void log(int priority, @Nullable String tag, @NonNull String format, long arg) {
+        LogAdapter[] list = adapters;
+        int first = first(list, priority, tag);
+        if (first >= 0) {
+            dispatch(list, first, priority, tag, FLMessageFormatter.format(format, arg));
+        }
+    }
+
+    public static void log(int priority, @Nullable String tag, @NonNull String format, double arg) {
+        LogAdapter[] list = adapters;
+        int first = first(list, priority, tag);
+        if (first >= 0) {
+            dispatch(list, first, priority, tag, FLMessageFormatter.format(format, arg));
+        }
+    }
+
+    public static void log(int priority, @Nullable String tag, @NonNull FLMessageSupplier supplier) {
+        LogAdapter[] list = adapters;
+        int first = first(list, priority, tag);
+        if (first >= 0) {
+            dispatch(list, first, priority, tag, String.valueOf(supplier.get()));
+        }
+    }
+
+    /**
+     * @return the first adapter that takes the record, -1 if none does
+     */
+    private static int first(@NonNull LogAdapter[] list, int priority, @Nullable String tag) {
+        for (int i = 0; i < list.length; i++) {
+            if (list[i].isLoggable(priority, tag)) return i;
+        }
+        return -1;
+    }
+
+    private static boolean accepts(@NonNull LogAdapter adapter, int priority, @Nullable String tag) {
+        if (adapter instanceof FLFileLogAdapter) {
+            return ((FLFileLogAdapter) adapter).accepts(priority, tag);
+        } else if (adapter instanceof FLCompositeFileLogAdapter) {
+            return ((FLCompositeFileLogAdapter) adapter).accepts(priority, tag);
+        }
+        return adapter.isLoggable(priority, tag);
+    }
+
+    /**
+     * Every adapter is asked once, the ones before {@code first} didn't take the record.
+     */
+    private static void dispatch(@NonNull LogAdapter[] list, int first, int priority,
+                                 @Nullable String tag, @NonNull String message) {
+        list[first].log(priority, tag, message);
+        for (int i = first + 1; i < list.length; i++) {
+            if (list[i].isLoggable(priority, tag)) {
+                list[i].log(priority, tag, message);
+            }
+        }
+    }
+}
@@ -0,0 +1,313 @@
+package com.forkliu.base.logger;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * The records found by a {@link FLLogQuery}, read one at a time. Only one segment is open
+ * at a time and only one line is held in memory.
+ */
+public final class FLLogCursor implements Closeable {
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+    private static final long END = Long.MAX_VALUE;
+
+    @NonNull private final FLLogQuery query;
+    @NonNull private final File[] segments;
+    private int nextSegment;
+
+    // the open segment, in == null if there is none
+    @Nullable private File segment;
+    @Nullable private InputStream in;
+    // null if the segment is compressed and can only be skipped forward
+    @Nullable private FileInputStream file;
+    // start, end pairs of the parts to read
+    @NonNull private long[] ranges = new long[16];
+    private int rangeCount;
+    private int range;
+
+    @NonNull private final byte[] buffer = new byte[16 * 1024];
+    private int bufferPos;
+    private int bufferLimit;
+    // offset of buffer[bufferPos] in the uncompressed segment
+    private long position;
+    @NonNull private byte[] line = new byte[512];
+    private int lineLength;
+
+    private long millis;
+    private int level;
+    private String tag;
+    private String message;
+    private String text;
+
+    FLLogCursor(@NonNull FLLogQuery query, @NonNull File[] segments) {
+        this.query = query;
+        this.segments = segments;
+    }
+
+    /**
+     * Moves to the next record of the query.
+     *
+     * @return false once there are no more
+     */
+    public boolean next() throws IOException {
+        for (;;) {
+            if (in == null && !openNextSegment()) return false;
+            while (range < rangeCount) {
+                long start = ranges[2 * range];
+                long end = ranges[2 * range + 1];
+                if (position < start) {
+                    seek(start);
+                }
+                if (position >= end) {
+                    range++;
+                    continue;
+                }
+                if (!readLine()) break;
+                if (matches()) return true;
+            }
+            closeSegment();
+        }
+    }
+
+    /** in ms since the epoch */
+    public long getMillis() {
+        return millis;
+    }
+
+    /** one of the {@code Logger} levels */
+    public int getLevel() {
+        return level;
+    }
+
+    /** the tag column */
+    @NonNull public String getTag() {
+        return tag;
+    }
+
+    /** the message, new lines are written as " &lt;br&gt; " */
+    @NonNull public String getMessage() {
+        return message;
+    }
+
+    /** the whole CSV line, without the line separator */
+    @NonNull public String getLine() {
+        return text;
+    }
+
+    /** the segment the record is in */
+    @NonNull public File getFile() {
+        return segment;
+    }
+
+    @Override
+    public void close() {
+        closeSegment();
+        nextSegment = segments.length;
+    }
+
+    private boolean openNextSegment() throws IOException {
+        while (nextSegment < segments.length) {
+            File next = segments[nextSegment++];
+            FLSegmentIndex index = FLSegmentIndex.read(next);
+            plan(index);
+            if (rangeCount == 0) continue;
+            try {
+                open(next);
+            } catch (IOException e) {
+                // rotated or deleted meanwhile
+                closeSegment();
+                continue;
+            }
+            if (index == null && isBinary()) {
+                closeSegment();
+                continue;
+            }
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Picks the parts of the segment that can hold records of the query.
+     */
+    private void plan(@Nullable FLSegmentIndex index) {
+        rangeCount = 0;
+        range = 0;
+        if (index == null) {
+            addRange(0, END);
+            return;
+        }
+        long pos = 0;
+        for (int i = 0; i < index.blocks; i++) {
+            long start = index.offsets[2 * i];
+            long end = index.offsets[2 * i + 1];
+            if (start > pos) {
+                // not indexed
+                addRange(pos, start);
+            }
+            if (index.millis[2 * i + 1] >= query.from && index.millis[2 * i] <= query.to
+                    && index.count(i, query.minLevel) > 0) {
+                addRange(start, end);
+            }
+            pos = Math.max(pos, end);
+        }
+        if (!index.sealed) {
+            addRange(pos, END);
+        }
+    }
+
+    private void addRange(long start, long end) {
+        if (rangeCount > 0 && ranges[2 * rangeCount - 1] == start) {
+            ranges[2 * rangeCount - 1] = end;
+            return;
+        }
+        if (2 * rangeCount == ranges.length) {
+            ranges = Arrays.copyOf(ranges, ranges.length * 2);
+        }
+        ranges[2 * rangeCount] = start;
+        ranges[2 * rangeCount + 1] = end;
+        rangeCount++;
+    }
+
+    private void open(@NonNull File next) throws IOException {
+        FileInputStream fis = new FileInputStream(next);
+        segment = next;
+        in = fis;
+        if (next.getName().endsWith(FLCompression.EXTENSION)) {
+            in = new GZIPInputStream(fis, 8 * 1024);
+        } else {
+            file = fis;
+        }
+        bufferPos = 0;
+        bufferLimit = 0;
+        position = 0;
+    }
+
+    private boolean isBinary() throws IOException {
+        // called right after open, the buffer starts at the beginning of the file
+        return fill() && FLBinaryLogDecoder.isBinary(buffer, bufferLimit);
+    }
+
+    @SuppressWarnings("checkstyle:emptyblock")
+    private void closeSegment() {
+        if (in != null) {
+            try {
+                in.close();
+            } catch (IOException e) { /* fail silently */ }
+        }
+        in = null;
+        file = null;
+        rangeCount = 0;
+    }
+
+    private void seek(long target) throws IOException {
+        long skip = target - position;
+        if (skip <= bufferLimit - bufferPos) {
+            bufferPos += (int) skip;
+        } else if (file != null) {
+            file.getChannel().position(target);
+            bufferPos = 0;
+            bufferLimit = 0;
+        } else {
+            skip -= bufferLimit - bufferPos;
+            bufferPos = 0;
+            bufferLimit = 0;
+            while (skip > 0) {
+                long n = in.skip(skip);
+                if (n <= 0) {
+                    if (in.read() < 0) break;
+                    n = 1;
+                }
+                skip -= n;
+            }
+        }
+        position = target;
+    }
+
+    private boolean fill() throws IOException {
+        if (bufferPos < bufferLimit) return true;
+        int n = in.read(buffer, 0, buffer.length);
+        if (n <= 0) return false;
+        bufferPos = 0;
+        bufferLimit = n;
+        return true;
+    }
+
+    /**
+     * Reads the line at {@link #position}, without its line separator.
+     *
+     * @return false at the end of the segment, or where the zero filled tail of a mapped
+     * segment starts
+     */
+    private boolean readLine() throws IOException {
+        lineLength = 0;
+        boolean any = false;
+        while (fill()) {
+            any = true;
+            int start = bufferPos;
+            int end = start;
+            while (end < bufferLimit && buffer[end] != '\n' && buffer[end] != 0) {
+                end++;
+            }
+            if (end < bufferLimit && buffer[end] == 0) {
+                // nothing was written past it, a cut off record is dropped
+                return false;
+            }
+            append(start, end);
+            boolean done = end < bufferLimit;
+            bufferPos = done ? end + 1 : end;
+            position += bufferPos - start;
+            if (done) break;
+        }
+        if (lineLength > 0 && line[lineLength - 1] == '\r') {
+            lineLength--;
+        }
+        return any;
+    }
+
+    private void append(int start, int end) {
+        int n = end - start;
+        if (lineLength + n > line.length) {
+            line = Arrays.copyOf(line, Math.max(lineLength + n, line.length * 2));
+        }
+        System.arraycopy(buffer, start, line, lineLength, n);
+        lineLength += n;
+    }
+
+    private boolean matches() {
+        // millis,date,level,tag,message
+        long time = 0;
+        int i = 0;
+        while (i < lineLength && line[i] >= '0' && line[i] <= '9') {
+            time = time * 10 + line[i++] - '0';
+        }
+        if (i == 0 || i == lineLength || line[i] != ',') return false;
+        if (time < query.from || time > query.to) return false;
+
+        String s = new String(line, 0, lineLength, UTF_8);
+        int date = s.indexOf(',', i + 1);
+        int levelEnd = date < 0 ? -1 : s.indexOf(',', date + 1);
+        int tagEnd = levelEnd < 0 ? -1 : s.indexOf(',', levelEnd + 1);
+        if (tagEnd < 0 || levelEnd != date + 2) return false;
+        int l = FLLogUtils.parseLevel(s.charAt(date + 1));
+        if (l < query.minLevel) return false;
+        String t = s.substring(levelEnd + 1, tagEnd);
+        if (query.tag != null && !query.tag.equals(t)) return false;
+
+        millis = time;
+        level = l;
+        tag = t;
+        message = s.substring(tagEnd + 1);
+        text = s;
+        return true;
+    }
+}
@@ -0,0 +1,62 @@
+package com.forkliu.base.logger;
+
+import android.os.Process;
+
+import androidx.annotation.NonNull;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One low priority background thread shared by all file strategies for the work that may
+ * touch many files: shifting backups, deleting old segments, scanning the log folder.
+ * The writer threads only rename the active file and hand the rest over, so a rollover
+ * never stalls the queued records.
+ * <p>
+ * Tasks run one at a time in the order they were submitted, or are due.
+ */
+final class FLLogMaintenance {
+
+    private FLLogMaintenance() {
+    }
+
+    private static final class Holder {
+        static final ScheduledExecutorService EXECUTOR = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(@NonNull final Runnable r) {
+                Thread thread = new Thread(new Runnable() {
+                    @Override
+                    public void run() {
+                        Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+                        r.run();
+                    }
+                }, "FLLogMaintenance");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+    }
+
+    static void execute(@NonNull final Runnable task) {
+        Holder.EXECUTOR.execute(guard(task));
+    }
+
+    static void schedule(@NonNull Runnable task, long delayMillis) {
+        Holder.EXECUTOR.schedule(guard(task), delayMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @NonNull private static Runnable guard(@NonNull final Runnable task) {
+        return new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    task.run();
+                } catch (Exception e) {
+                    e.printStackTrace();
+                }
+            }
+        };
+    }
+}
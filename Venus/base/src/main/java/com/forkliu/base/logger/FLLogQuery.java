@@ -0,0 +1,174 @@
+package com.forkliu.base.logger;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.orhanobut.logger.Logger;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Comparator;
+
+/**
+ * Finds the records of a time range in the CSV segments of a file strategy:
+ * <pre>
+ * FLLogCursor cursor = FLLogQuery.newBuilder()
+ *         .logDir(getFilesDir().getAbsolutePath())
+ *         .logName("venus.log")
+ *         .from(start)
+ *         .to(end)
+ *         .minLevel(Logger.WARN)
+ *         .build()
+ *         .open();
+ * try {
+ *     while (cursor.next()) {
+ *         show(cursor.getMillis(), cursor.getTag(), cursor.getMessage());
+ *     }
+ * } finally {
+ *     cursor.close();
+ * }
+ * </pre>
+ * Records are streamed segment by segment, oldest segment first. Segments written with an
+ * {@code indexInterval} are only read where their {@link FLSegmentIndex} has records of the
+ * range and level, compressed ones are still decompressed up to there but not parsed. The
+ * rest is scanned. Binary segments are skipped, see {@link FLBinaryLogDecoder}.
+ * <p>
+ * The columns are split at the commas, so the date format and the tags must not contain any.
+ * The segments are listed when the cursor is opened, a rotation while it runs can make it
+ * miss records.
+ */
+public final class FLLogQuery {
+    @NonNull final File folder;
+    @NonNull final String logName;
+    final long from;
+    final long to;
+    final int minLevel;
+    @Nullable final String tag;
+
+    private FLLogQuery(@NonNull Builder builder) {
+        folder = new File(builder.logDir, "logger");
+        logName = builder.logName;
+        from = builder.from;
+        to = builder.to;
+        minLevel = builder.minLevel;
+        tag = builder.tag;
+    }
+
+    @NonNull public static Builder newBuilder() {
+        return new Builder();
+    }
+
+    /**
+     * Lists the segments, the records are read by {@link FLLogCursor#next()}.
+     */
+    @NonNull public FLLogCursor open() {
+        return new FLLogCursor(this, segments());
+    }
+
+    /**
+     * @return the active segment and its backups, the least recently written first
+     */
+    @NonNull File[] segments() {
+        String[] names = folder.list();
+        if (names == null) return new File[0];
+        int n = 0;
+        File[] files = new File[names.length];
+        for (String name : names) {
+            if (!name.startsWith(logName) || FLSegmentIndex.isSidecar(name) || name.endsWith(".tmp")
+                    || name.endsWith(FLProcessLock.EXTENSION)) continue;
+            if (name.length() == logName.length() || name.charAt(logName.length()) == '.') {
+                files[n++] = new File(folder, name);
+            }
+        }
+        files = Arrays.copyOf(files, n);
+
+        // stat every file once, not on every comparison
+        final long[] modified = new long[n];
+        Integer[] order = new Integer[n];
+        for (int i = 0; i < n; i++) {
+            modified[i] = files[i].lastModified();
+            order[i] = i;
+        }
+        final File[] unsorted = files;
+        Arrays.sort(order, new Comparator<Integer>() {
+            @Override
+            public int compare(Integer o1, Integer o2) {
+                if (modified[o1] != modified[o2]) return modified[o1] < modified[o2] ? -1 : 1;
+                return unsorted[o1].getName().compareTo(unsorted[o2].getName());
+            }
+        });
+        File[] sorted = new File[n];
+        for (int i = 0; i < n; i++) {
+            sorted[i] = files[order[i]];
+        }
+        return sorted;
+    }
+
+    public static final class Builder {
+        String logDir;
+        String logName;
+        long from = Long.MIN_VALUE;
+        long to = Long.MAX_VALUE;
+        int minLevel = Logger.VERBOSE;
+        String tag;
+
+        private Builder() {
+        }
+
+        /**
+         * The logDir of the format strategy.
+         */
+        @NonNull public Builder logDir(@NonNull String val) {
+            logDir = val;
+            return this;
+        }
+
+        /**
+         * The logName of the format strategy.
+         */
+        @NonNull public Builder logName(@NonNull String val) {
+            logName = val;
+            return this;
+        }
+
+        /**
+         * Records logged at or after this time, in ms since the epoch.
+         */
+        @NonNull public Builder from(long millis) {
+            from = millis;
+            return this;
+        }
+
+        /**
+         * Records logged at or before this time, in ms since the epoch.
+         */
+        @NonNull public Builder to(long millis) {
+            to = millis;
+            return this;
+        }
+
+        @NonNull public Builder minLevel(int val) {
+            minLevel = val;
+            return this;
+        }
+
+        /**
+         * Only records with this tag column, e.g. "Venus-Network". All tags by default.
+         */
+        @NonNull public Builder tag(@Nullable String val) {
+            tag = val;
+            return this;
+        }
+
+        @NonNull public FLLogQuery build() throws FLLoggerException {
+            if (logDir == null) {
+                throw new FLLoggerException("logDir is null");
+            }
+            if (logName == null) {
+                throw new FLLoggerException("logName is null");
+            }
+            return new FLLogQuery(this);
+        }
+    }
+}
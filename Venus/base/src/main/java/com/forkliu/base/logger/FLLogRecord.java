@@ -0,0 +1,34 @@
+package com.forkliu.base.logger;
+
+import androidx.annotation.NonNull;
+
+/**
+ * Mutable holder for one encoded record on its way to the writer thread.
+ * The ring buffer transport preallocates these and reuses their byte arrays, the writer
+ * thread reuses one for polling.
+ */
+final class FLLogRecord {
+    private static final byte[] EMPTY = new byte[0];
+    private static final int MIN_CAPACITY = 128;
+
+    int level;
+    // System.nanoTime() when the record was logged
+    long nanos;
+    @NonNull byte[] data = EMPTY;
+    int length;
+
+    /**
+     * Copies the bytes, growing {@link #data} only if it is too small.
+     */
+    void set(int level, long nanos, @NonNull byte[] src, int off, int len) {
+        if (data.length < len) {
+            int capacity = MIN_CAPACITY;
+            while (capacity < len) capacity <<= 1;
+            data = new byte[capacity];
+        }
+        System.arraycopy(src, off, data, 0, len);
+        this.level = level;
+        this.nanos = nanos;
+        this.length = len;
+    }
+}
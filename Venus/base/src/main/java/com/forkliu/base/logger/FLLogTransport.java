@@ -0,0 +1,81 @@
+package com.forkliu.base.logger;
+
+import androidx.annotation.NonNull;
+
+/**
+ * Hands encoded records from the logging threads to the single writer thread of a file strategy.
+ * <p>
+ * {@link #queue()} is unbounded and never blocks or drops, it is the default.
+ * {@link #ringBuffer(int, int)} preallocates its slots, so memory use stays bounded and a full
+ * buffer is handled by the given overflow policy instead of growing the queue.
+ * <p>
+ * A transport has exactly one consumer, don't pass the same instance to more than one builder.
+ */
+public abstract class FLLogTransport {
+    /** the logging thread waits until the writer thread has made room */
+    public static final int OVERFLOW_BLOCK = 1;
+    /** the record that doesn't fit is dropped */
+    public static final int OVERFLOW_DROP_NEWEST = 2;
+    /** the oldest queued record is dropped to make room */
+    public static final int OVERFLOW_DROP_OLDEST = 3;
+    /** records below the given level are dropped, the others make room by dropping the oldest */
+    public static final int OVERFLOW_DROP_BELOW_LEVEL = 4;
+
+    FLLogTransport() {
+    }
+
+    @NonNull public static FLLogTransport queue() {
+        return new FLQueueTransport();
+    }
+
+    /**
+     * @param capacity number of slots, rounded up to a power of two
+     * @param overflowPolicy one of the {@code OVERFLOW_*} constants, except {@link #OVERFLOW_DROP_BELOW_LEVEL}
+     */
+    @NonNull public static FLLogTransport ringBuffer(int capacity, int overflowPolicy) {
+        if (overflowPolicy == OVERFLOW_DROP_BELOW_LEVEL) {
+            throw new IllegalArgumentException("OVERFLOW_DROP_BELOW_LEVEL needs a level");
+        }
+        return new FLRingBufferTransport(capacity, overflowPolicy, 0);
+    }
+
+    /**
+     * @param capacity number of slots, rounded up to a power of two
+     * @param overflowPolicy one of the {@code OVERFLOW_*} constants
+     * @param minLevel records below this level are dropped by {@link #OVERFLOW_DROP_BELOW_LEVEL}
+     */
+    @NonNull public static FLLogTransport ringBuffer(int capacity, int overflowPolicy, int minLevel) {
+        return new FLRingBufferTransport(capacity, overflowPolicy, minLevel);
+    }
+
+    /**
+     * Called on the logging threads. The bytes are copied, the caller may reuse its array.
+     *
+     * @param nanos System.nanoTime() when the record was logged
+     * @return false if the record was dropped
+     */
+    abstract boolean offer(int level, long nanos, @NonNull byte[] data, int off, int len);
+
+    /**
+     * Called on the writer thread only.
+     *
+     * @return false if there was nothing to take
+     */
+    abstract boolean poll(@NonNull FLLogRecord target);
+
+    abstract boolean isEmpty();
+
+    /**
+     * @return about the number of queued records, for statistics only
+     */
+    abstract int size();
+
+    /**
+     * @return records that {@link #offer} accepted and later dropped to make room
+     */
+    long dropped() {
+        return 0;
+    }
+
+    abstract void clear();
+}
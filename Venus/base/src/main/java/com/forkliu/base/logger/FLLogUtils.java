@@ -38,6 +38,28 @@ class FLLogUtils {
         }
     }
 
+    /**
+     * @return the level written as {@code value} by {@link #logLevel(int)}, 0 if unknown
+     */
+    static int parseLevel(char value) {
+        switch (value) {
+            case 'V':
+                return VERBOSE;
+            case 'D':
+                return DEBUG;
+            case 'I':
+                return INFO;
+            case 'W':
+                return WARN;
+            case 'E':
+                return ERROR;
+            case 'A':
+                return ASSERT;
+            default:
+                return 0;
+        }
+    }
+
     /**
      * Returns true if the string is null or 0-length.
      *
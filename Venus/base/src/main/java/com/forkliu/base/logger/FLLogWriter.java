@@ -0,0 +1,39 @@
+package com.forkliu.base.logger;
+
+import androidx.annotation.NonNull;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * Appends encoded records to the active log file. Only used from the writer thread.
+ */
+interface FLLogWriter {
+    @NonNull File getFile();
+
+    /**
+     * @return the size of the log data in the file, including what is still buffered
+     */
+    long length();
+
+    /**
+     * @return how many more bytes fit before the writer has to grow, {@code Long.MAX_VALUE} if unbounded
+     */
+    long remaining();
+
+    /**
+     * @return the number of bytes waiting to be written to the file
+     */
+    int buffered();
+
+    void write(@NonNull byte[] b, int off, int len) throws IOException;
+
+    void flush() throws IOException;
+
+    /**
+     * Flushes and forces the file content to storage, so it survives a power loss.
+     */
+    void sync() throws IOException;
+
+    void close() throws IOException;
+}
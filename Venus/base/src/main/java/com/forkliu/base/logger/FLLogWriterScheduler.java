@@ -0,0 +1,114 @@
+package com.forkliu.base.logger;
+
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.os.Looper;
+import android.os.Message;
+import android.os.SystemClock;
+
+import androidx.annotation.NonNull;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The writer threads of the file strategies. Any number of strategies share one or a few
+ * threads, so a new file sink doesn't cost a thread.
+ * <p>
+ * Sinks are handed out to the threads round robin. On a thread every sink writes at most
+ * {@code batchSize} records per turn before the next sink gets its turn. Buffered output is
+ * flushed by one timer per thread that flushes every sink with pending output together,
+ * instead of a timer per sink.
+ * <pre>
+ * FLLogWriterScheduler scheduler = new FLLogWriterScheduler(2);
+ * FLRotatingFormatStrategy.newBuilder()
+ *         .scheduler(scheduler)
+ * </pre>
+ * Strategies that don't ask for a scheduler use {@link #getDefault()}.
+ */
+public final class FLLogWriterScheduler implements Closeable {
+
+    @NonNull private final Worker[] workers;
+    @NonNull private final AtomicInteger next = new AtomicInteger();
+
+    /**
+     * @param threads number of writer threads, at least one
+     */
+    public FLLogWriterScheduler(int threads) {
+        workers = new Worker[Math.max(1, threads)];
+        for (int i = 0; i < workers.length; i++) {
+            HandlerThread ht = new HandlerThread("FLLogWriter-" + i);
+            ht.start();
+            workers[i] = new Worker(ht.getLooper());
+        }
+    }
+
+    private static final class Holder {
+        static final FLLogWriterScheduler DEFAULT = new FLLogWriterScheduler(1);
+    }
+
+    /**
+     * The scheduler with a single writer thread that is shared by all strategies that don't
+     * set their own. It is started on first use and can't be closed.
+     */
+    @NonNull public static FLLogWriterScheduler getDefault() {
+        return Holder.DEFAULT;
+    }
+
+    /**
+     * Stops the writer threads once the messages they already have are handled. The
+     * strategies should be closed first, everything logged afterwards is dropped.
+     */
+    @Override
+    public void close() {
+        if (this == Holder.DEFAULT) return;
+        for (Worker worker : workers) {
+            worker.getLooper().quitSafely();
+        }
+    }
+
+    @NonNull Worker nextWorker() {
+        int index = (next.getAndIncrement() & Integer.MAX_VALUE) % workers.length;
+        return workers[index];
+    }
+
+    /**
+     * One writer thread. Keeps the group commit timer of the sinks on the thread.
+     */
+    static final class Worker extends Handler {
+        static final int MSG_TICK = 0x200;
+
+        // sinks with buffered output, writer thread only
+        private final ArrayList<FLFileWriteHandler> dirty = new ArrayList<>();
+        private long tickAt = Long.MAX_VALUE;
+
+        Worker(@NonNull Looper looper) {
+            super(looper);
+        }
+
+        /**
+         * Writer thread only. Flushes {@code handler} at the latest after {@code delay} ms,
+         * together with the other sinks that are waiting.
+         */
+        void scheduleFlush(@NonNull FLFileWriteHandler handler, long delay) {
+            dirty.add(handler);
+            long at = SystemClock.uptimeMillis() + delay;
+            if (at < tickAt) {
+                removeMessages(MSG_TICK);
+                tickAt = at;
+                sendEmptyMessageAtTime(MSG_TICK, at);
+            }
+        }
+
+        @Override
+        public void handleMessage(@NonNull Message msg) {
+            if (msg.what != MSG_TICK) return;
+            tickAt = Long.MAX_VALUE;
+            for (int i = 0; i < dirty.size(); i++) {
+                dirty.get(i).flushNow();
+            }
+            dirty.clear();
+        }
+    }
+}
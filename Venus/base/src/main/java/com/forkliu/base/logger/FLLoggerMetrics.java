@@ -0,0 +1,66 @@
+package com.forkliu.base.logger;
+
+import android.os.SystemClock;
+
+import androidx.annotation.NonNull;
+
+/**
+ * Live counters of one file strategy. The logging threads only touch the striped counters,
+ * everything else is written by the writer thread alone and read by {@link FLLoggerStats}.
+ */
+final class FLLoggerMetrics {
+    @NonNull final FLLogTransport transport;
+    final long createdAt = SystemClock.elapsedRealtime();
+
+    // logging threads
+    final FLStripedCounter enqueued = new FLStripedCounter();
+    final FLStripedCounter dropped = new FLStripedCounter();
+
+    // writer thread only
+    final FLLatencyHistogram latency = new FLLatencyHistogram(); // us
+    volatile long written;
+    volatile long bytes;
+    volatile long writeNanos;
+    volatile long flushes;
+    volatile long flushNanos;
+    volatile long syncs;
+    volatile long syncNanos;
+    volatile long rotations;
+    volatile long rotationNanos;
+    volatile long maxRotationNanos;
+    volatile long errors;
+
+    FLLoggerMetrics(@NonNull FLLogTransport transport) {
+        this.transport = transport;
+    }
+
+    void onWritten(int length, long enqueueNanos, long now) {
+        written = written + 1;
+        bytes = bytes + length;
+        latency.record((now - enqueueNanos) / 1000);
+    }
+
+    void onWrite(long nanos) {
+        writeNanos = writeNanos + nanos;
+    }
+
+    void onFlush(long nanos) {
+        flushes = flushes + 1;
+        flushNanos = flushNanos + nanos;
+    }
+
+    void onSync(long nanos) {
+        syncs = syncs + 1;
+        syncNanos = syncNanos + nanos;
+    }
+
+    void onError() {
+        errors = errors + 1;
+    }
+
+    void onRotation(long nanos) {
+        rotations = rotations + 1;
+        rotationNanos = rotationNanos + nanos;
+        if (nanos > maxRotationNanos) maxRotationNanos = nanos;
+    }
+}
@@ -0,0 +1,198 @@
+package com.forkliu.base.logger;
+
+import android.os.SystemClock;
+
+import androidx.annotation.NonNull;
+
+import java.util.ArrayList;
+import java.util.Locale;
+
+/**
+ * Snapshot of what the file logging has done so far, see {@code getStats()} on
+ * {@link FLFileLogAdapter}, {@link FLCompositeFileLogAdapter} and the format strategies.
+ * <p>
+ * The counters are totals since the strategies were built, subtract two snapshots to get the
+ * numbers for a period. Times are in microseconds. The latency of a record is the time from
+ * {@code log()} until the writer thread has handed it to the file, its percentiles are
+ * rounded up to the next power of two.
+ */
+public final class FLLoggerStats {
+    private final long enqueued;
+    private final long written;
+    private final long dropped;
+    private final long filtered;
+    private final long queueDepth;
+    private final long bytesWritten;
+    private final long uptimeMillis;
+    private final long[] latency;
+    private final long maxLatency;
+    private final long writeTime;
+    private final long flushes;
+    private final long flushTime;
+    private final long syncs;
+    private final long syncTime;
+    private final long rotations;
+    private final long rotationTime;
+    private final long maxRotationTime;
+    private final long errors;
+
+    private FLLoggerStats(long filtered, @NonNull FLLoggerMetrics... metrics) {
+        long enqueued = 0, written = 0, dropped = 0, queueDepth = 0, bytesWritten = 0;
+        long maxLatency = 0, writeNanos = 0, flushes = 0, flushNanos = 0, syncs = 0, syncNanos = 0;
+        long rotations = 0, rotationNanos = 0, maxRotationNanos = 0, errors = 0;
+        long createdAt = Long.MAX_VALUE;
+        long[] latency = new long[FLLatencyHistogram.BUCKETS];
+        for (FLLoggerMetrics m : metrics) {
+            enqueued += m.enqueued.sum();
+            written += m.written;
+            dropped += m.dropped.sum() + m.transport.dropped();
+            queueDepth += m.transport.size();
+            bytesWritten += m.bytes;
+            m.latency.copyTo(latency);
+            maxLatency = Math.max(maxLatency, m.latency.max());
+            writeNanos += m.writeNanos;
+            flushes += m.flushes;
+            flushNanos += m.flushNanos;
+            syncs += m.syncs;
+            syncNanos += m.syncNanos;
+            rotations += m.rotations;
+            rotationNanos += m.rotationNanos;
+            maxRotationNanos = Math.max(maxRotationNanos, m.maxRotationNanos);
+            errors += m.errors;
+            createdAt = Math.min(createdAt, m.createdAt);
+        }
+        this.enqueued = enqueued;
+        this.written = written;
+        this.dropped = dropped;
+        this.filtered = filtered;
+        this.queueDepth = queueDepth;
+        this.bytesWritten = bytesWritten;
+        this.uptimeMillis = metrics.length == 0 ? 0 : SystemClock.elapsedRealtime() - createdAt;
+        this.latency = latency;
+        this.maxLatency = maxLatency;
+        this.writeTime = writeNanos / 1000;
+        this.flushes = flushes;
+        this.flushTime = flushNanos / 1000;
+        this.syncs = syncs;
+        this.syncTime = syncNanos / 1000;
+        this.rotations = rotations;
+        this.rotationTime = rotationNanos / 1000;
+        this.maxRotationTime = maxRotationNanos / 1000;
+        this.errors = errors;
+    }
+
+    /**
+     * @param metrics null entries, strategies that don't write files, are skipped
+     */
+    @NonNull static FLLoggerStats create(long filtered, @NonNull FLLoggerMetrics... metrics) {
+        ArrayList<FLLoggerMetrics> present = new ArrayList<>(metrics.length);
+        for (FLLoggerMetrics m : metrics) {
+            if (m != null) present.add(m);
+        }
+        return new FLLoggerStats(filtered, present.toArray(new FLLoggerMetrics[0]));
+    }
+
+    /** records handed to the writer thread */
+    public long getEnqueued() {
+        return enqueued;
+    }
+
+    /** records written to the file */
+    public long getWritten() {
+        return written;
+    }
+
+    /** records a full transport or an unwritable file dropped */
+    public long getDropped() {
+        return dropped;
+    }
+
+    /** records the adapter turned away by level, rate limit or as repeats */
+    public long getFiltered() {
+        return filtered;
+    }
+
+    /** records waiting for the writer thread right now */
+    public long getQueueDepth() {
+        return queueDepth;
+    }
+
+    /** bytes handed to the writers, binary records as encoded, before any compression */
+    public long getBytesWritten() {
+        return bytesWritten;
+    }
+
+    /** average since the strategies were built */
+    public long getBytesPerSecond() {
+        return uptimeMillis <= 0 ? 0 : bytesWritten * 1000 / uptimeMillis;
+    }
+
+    public long getUptimeMillis() {
+        return uptimeMillis;
+    }
+
+    /**
+     * @param quantile between 0 and 1, for example 0.99
+     */
+    public long getLatencyMicros(double quantile) {
+        return FLLatencyHistogram.quantile(latency, quantile);
+    }
+
+    public long getMaxLatencyMicros() {
+        return maxLatency;
+    }
+
+    /** time spent in writes, mostly copying into the buffer plus the writes of full buffers */
+    public long getWriteTimeMicros() {
+        return writeTime;
+    }
+
+    public long getFlushes() {
+        return flushes;
+    }
+
+    public long getFlushTimeMicros() {
+        return flushTime;
+    }
+
+    /** number of times the written data was forced to storage, see {@link FLDurability} */
+    public long getSyncs() {
+        return syncs;
+    }
+
+    public long getSyncTimeMicros() {
+        return syncTime;
+    }
+
+    public long getRotations() {
+        return rotations;
+    }
+
+    /** time the writer thread spent rolling files over, the work handed to the maintenance thread excluded */
+    public long getRotationTimeMicros() {
+        return rotationTime;
+    }
+
+    public long getMaxRotationTimeMicros() {
+        return maxRotationTime;
+    }
+
+    /** times the log file couldn't be opened or written, the records it cost are dropped */
+    public long getErrors() {
+        return errors;
+    }
+
+    @NonNull
+    @Override
+    public String toString() {
+        return String.format(Locale.UK,
+                "FLLoggerStats{enqueued=%d, written=%d, dropped=%d, filtered=%d, queueDepth=%d, "
+                        + "bytesWritten=%d, bytesPerSecond=%d, latency p50=%dus p99=%dus max=%dus, "
+                        + "writeTime=%dus, flushes=%d, flushTime=%dus, syncs=%d, syncTime=%dus, "
+                        + "rotations=%d, rotationTime=%dus, maxRotationTime=%dus, errors=%d}",
+                enqueued, written, dropped, filtered, queueDepth,
+                bytesWritten, getBytesPerSecond(), getLatencyMicros(0.5), getLatencyMicros(0.99), maxLatency,
+                writeTime, flushes, flushTime, syncs, syncTime,
+                rotations, rotationTime, maxRotationTime, errors);
+    }
+}
@@ -0,0 +1,163 @@
+package com.forkliu.base.logger;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Writes the active log file through a memory mapping of the whole segment.
+ * <p>
+ * The file is mapped {@code capacity} bytes up front and records are plain copies into the
+ * mapping. The data sits in the page cache as soon as it is copied, so it survives a crash of
+ * the process without any flush. On {@link #close()} the mapping is released right away,
+ * where the platform allows it, and the file is truncated to the data that was written.
+ * <p>
+ * While the file is open, and after a crash, it is at its mapped size with a zero filled
+ * tail. Every record ends with a line separator, so reopening the file scans back from the
+ * end to the last non zero byte to find where the data stops, and {@link FLLogCursor} stops
+ * reading at the first zero byte.
+ */
+final class FLMappedLogWriter implements FLLogWriter {
+    private static final int GROW_ALIGN = 4096;
+
+    @NonNull private final File file;
+    @NonNull private final RandomAccessFile raf;
+    @NonNull private final FileChannel channel;
+    @NonNull private MappedByteBuffer buffer;
+    // the length once closed, -1 while open, the buffer must not be touched afterwards
+    private long closedLength = -1;
+
+    FLMappedLogWriter(@NonNull File file, int capacity) throws IOException {
+        this.file = file;
+        this.raf = new RandomAccessFile(file, "rw");
+        this.channel = raf.getChannel();
+        try {
+            long size = channel.size();
+            buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, Math.max(size, capacity));
+            buffer.position(recover(buffer, (int) size));
+        } catch (IOException e) {
+            raf.close();
+            throw e;
+        }
+    }
+
+    /**
+     * @return the end of the data in the first {@code size} bytes of the mapping
+     */
+    private static int recover(@NonNull MappedByteBuffer buffer, int size) {
+        int end = size;
+        while (end > 0 && buffer.get(end - 1) == 0) {
+            end--;
+        }
+        return end;
+    }
+
+    @NonNull
+    @Override
+    public File getFile() {
+        return file;
+    }
+
+    @Override
+    public long length() {
+        return closedLength >= 0 ? closedLength : buffer.position();
+    }
+
+    @Override
+    public long remaining() {
+        return closedLength >= 0 ? 0 : buffer.remaining();
+    }
+
+    @Override
+    public int buffered() {
+        // nothing is held back, the mapping is the file
+        return 0;
+    }
+
+    @Override
+    public void write(@NonNull byte[] b, int off, int len) throws IOException {
+        if (closedLength >= 0) throw new IOException("closed");
+        if (len > buffer.remaining()) {
+            // a record larger than what is left of an otherwise empty segment
+            int position = buffer.position();
+            long size = ((long) position + len + GROW_ALIGN - 1) / GROW_ALIGN * GROW_ALIGN;
+            MappedByteBuffer old = buffer;
+            buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+            buffer.position(position);
+            unmap(old);
+        }
+        buffer.put(b, off, len);
+    }
+
+    @Override
+    public void flush() {
+        // the data is in the page cache already
+    }
+
+    @Override
+    public void sync() {
+        // writes the dirty pages of the mapping back
+        if (closedLength < 0) buffer.force();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closedLength >= 0) return;
+        closedLength = buffer.position();
+        unmap(buffer);
+        try {
+            channel.truncate(closedLength);
+        } finally {
+            raf.close();
+        }
+    }
+
+    /**
+     * Releases the mapping now instead of when the buffer is garbage collected, every rotation
+     * would otherwise keep {@code capacity} bytes of address space. There is no public API
+     * for it: Android has NioUtils.freeDirectBuffer(), desktop JVMs Unsafe.invokeCleaner().
+     * Where neither exists the GC releases the mapping.
+     */
+    private static void unmap(@NonNull MappedByteBuffer buffer) {
+        if (Unmapper.METHOD == null) return;
+        try {
+            Unmapper.METHOD.invoke(Unmapper.TARGET, buffer);
+        } catch (Exception e) {
+            // left to the GC
+        }
+    }
+
+    private static final class Unmapper {
+        @Nullable static final Method METHOD;
+        @Nullable static final Object TARGET;
+
+        static {
+            Method method = null;
+            Object target = null;
+            try {
+                method = Class.forName("java.nio.NioUtils").getMethod("freeDirectBuffer", ByteBuffer.class);
+            } catch (Exception e) {
+                try {
+                    Class<?> unsafe = Class.forName("sun.misc.Unsafe");
+                    Field field = unsafe.getDeclaredField("theUnsafe");
+                    field.setAccessible(true);
+                    target = field.get(null);
+                    method = unsafe.getMethod("invokeCleaner", ByteBuffer.class);
+                } catch (Exception e2) {
+                    method = null;
+                    target = null;
+                }
+            }
+            METHOD = method;
+            TARGET = target;
+        }
+    }
+}
@@ -0,0 +1,145 @@
+package com.forkliu.base.logger;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+
+/**
+ * Replaces the {@code {}} placeholders of a message with the arguments, in order.
+ * Placeholders without an argument are kept as they are, arguments without a placeholder are
+ * dropped, except a last {@link Throwable}, whose stack trace is appended.
+ * <p>
+ * As in SLF4J, {@code \{}} is a literal {@code {}} and {@code \\{}} a backslash followed by
+ * a placeholder. The text after the last argument is kept as it is, escapes included.
+ * <p>
+ * Every thread formats in its own builder, only the resulting String is allocated.
+ */
+final class FLMessageFormatter {
+    private static final String PLACEHOLDER = "{}";
+    private static final char ESCAPE = '\\';
+    // builders that grew beyond this are not kept
+    private static final int MAX_KEPT = 4 * 1024;
+
+    private static final ThreadLocal<StringBuilder> builders = new ThreadLocal<StringBuilder>() {
+        @Override protected StringBuilder initialValue() {
+            return new StringBuilder(256);
+        }
+    };
+
+    private FLMessageFormatter() {
+    }
+
+    @NonNull static String format(@NonNull String format, @Nullable Object arg) {
+        if (format.indexOf(PLACEHOLDER) < 0) return withThrowable(format, arg);
+        StringBuilder sb = builder();
+        int next = appendUntilPlaceholder(sb, format, 0);
+        if (next < 0) {
+            if (arg instanceof Throwable) appendStackTrace(sb, (Throwable) arg);
+            return finish(sb);
+        }
+        sb.append(arg).append(format, next, format.length());
+        return finish(sb);
+    }
+
+    @NonNull static String format(@NonNull String format, @Nullable Object arg1, @Nullable Object arg2) {
+        return format(format, new Object[]{arg1, arg2});
+    }
+
+    @NonNull static String format(@NonNull String format, @Nullable Object[] args) {
+        if (args == null || args.length == 0) return format;
+        StringBuilder sb = builder();
+        int start = 0;
+        int used = 0;
+        while (used < args.length && start < format.length()) {
+            int next = appendUntilPlaceholder(sb, format, start);
+            if (next < 0) {
+                start = format.length();
+                break;
+            }
+            sb.append(args[used++]);
+            start = next;
+        }
+        sb.append(format, start, format.length());
+        if (used < args.length && args[args.length - 1] instanceof Throwable) {
+            appendStackTrace(sb, (Throwable) args[args.length - 1]);
+        }
+        return finish(sb);
+    }
+
+    @NonNull static String format(@NonNull String format, long arg) {
+        if (format.indexOf(PLACEHOLDER) < 0) return format;
+        StringBuilder sb = builder();
+        int next = appendUntilPlaceholder(sb, format, 0);
+        if (next >= 0) {
+            sb.append(arg).append(format, next, format.length());
+        }
+        return finish(sb);
+    }
+
+    @NonNull static String format(@NonNull String format, double arg) {
+        if (format.indexOf(PLACEHOLDER) < 0) return format;
+        StringBuilder sb = builder();
+        int next = appendUntilPlaceholder(sb, format, 0);
+        if (next >= 0) {
+            sb.append(arg).append(format, next, format.length());
+        }
+        return finish(sb);
+    }
+
+    /**
+     * Appends {@code format} from {@code start} up to the next placeholder that isn't escaped.
+     *
+     * @return the index after that placeholder, -1 if there is none and all of the rest was
+     * appended
+     */
+    private static int appendUntilPlaceholder(@NonNull StringBuilder sb, @NonNull String format, int start) {
+        int index;
+        while ((index = format.indexOf(PLACEHOLDER, start)) >= 0) {
+            if (index == 0 || format.charAt(index - 1) != ESCAPE) {
+                sb.append(format, start, index);
+                return index + 2;
+            }
+            if (index > 1 && format.charAt(index - 2) == ESCAPE) {
+                // an escaped backslash, the placeholder still counts
+                sb.append(format, start, index - 1);
+                return index + 2;
+            }
+            sb.append(format, start, index - 1).append(PLACEHOLDER);
+            start = index + 2;
+        }
+        sb.append(format, start, format.length());
+        return -1;
+    }
+
+    @NonNull static String withThrowable(@NonNull String message, @Nullable Object throwable) {
+        if (!(throwable instanceof Throwable)) return message;
+        StringBuilder sb = builder();
+        sb.append(message);
+        appendStackTrace(sb, (Throwable) throwable);
+        return finish(sb);
+    }
+
+    private static void appendStackTrace(@NonNull StringBuilder sb, @NonNull Throwable throwable) {
+        StringWriter sw = new StringWriter(256);
+        PrintWriter pw = new PrintWriter(sw);
+        throwable.printStackTrace(pw);
+        pw.flush();
+        sb.append(FLCsvFormatter.NEW_LINE).append(sw.getBuffer());
+    }
+
+    @NonNull private static StringBuilder builder() {
+        StringBuilder sb = builders.get();
+        sb.setLength(0);
+        return sb;
+    }
+
+    @NonNull private static String finish(@NonNull StringBuilder sb) {
+        String message = sb.toString();
+        if (sb.capacity() > MAX_KEPT) {
+            builders.remove();
+        }
+        return message;
+    }
+}
@@ -0,0 +1,19 @@
+package com.forkliu.base.logger;
+
+import androidx.annotation.NonNull;
+
+/**
+ * Builds a log message only when some adapter takes the record, see {@link FLLog}.
+ * <pre>
+ * FLLog.d(new FLMessageSupplier() {
+ *     &#64;Override public String get() {
+ *         return dump(state);
+ *     }
+ * });
+ * </pre>
+ * The supplier itself is created by the caller, it is meant for messages that are expensive
+ * to build, for a few values the placeholder methods are cheaper.
+ */
+public interface FLMessageSupplier {
+    @NonNull String get();
+}
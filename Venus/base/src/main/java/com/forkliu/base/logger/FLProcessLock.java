@@ -0,0 +1,128 @@
+package com.forkliu.base.logger;
+
+import androidx.annotation.NonNull;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.util.HashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Lets the processes of an app that log into the same folder take turns, see
+ * {@code multiProcess(boolean)} on {@link FLRotatingFormatStrategy.Builder}.
+ * <p>
+ * A {@link FileLock} on the lock file keeps the other processes out, file locks are held per
+ * process, so a mutex keeps the writer and maintenance threads of this process apart as well.
+ * The lock file also holds a generation that goes up with every rollover, a process that
+ * sees a new generation knows its open file was rolled over by another one.
+ * <p>
+ * Strategies of the same process that write the same file share one instance, see
+ * {@link #forFile(File)}, and take turns on its mutex the way processes do on the file lock.
+ */
+final class FLProcessLock {
+    static final String EXTENSION = ".lock";
+
+    // guarded by the class
+    private static final HashMap<String, FLProcessLock> LOCKS = new HashMap<>();
+
+    @NonNull private final File file;
+    @NonNull private final ReentrantLock mutex = new ReentrantLock();
+    // guarded by mutex
+    @NonNull private final ByteBuffer buffer = ByteBuffer.allocate(8);
+    private FileChannel channel;
+    private FileLock lock;
+
+    private FLProcessLock(@NonNull File file) {
+        this.file = file;
+    }
+
+    /**
+     * @return the lock of {@code file}, the same instance for every strategy of the process,
+     * a second file lock of the same process would throw {@link OverlappingFileLockException}
+     */
+    @NonNull static synchronized FLProcessLock forFile(@NonNull File file) {
+        String path = file.getAbsolutePath();
+        FLProcessLock lock = LOCKS.get(path);
+        if (lock == null) {
+            lock = new FLProcessLock(file);
+            LOCKS.put(path, lock);
+        }
+        return lock;
+    }
+
+    /**
+     * Blocks until no other thread or process holds the lock.
+     */
+    void lock() throws IOException {
+        mutex.lock();
+        try {
+            if (channel == null) {
+                File folder = file.getParentFile();
+                if (folder != null && !folder.exists()) {
+                    folder.mkdirs();
+                }
+                channel = new RandomAccessFile(file, "rw").getChannel();
+            }
+            lock = channel.lock();
+        } catch (IOException e) {
+            mutex.unlock();
+            throw e;
+        } catch (OverlappingFileLockException e) {
+            // locked through another channel of this process after all
+            mutex.unlock();
+            throw new IOException(e);
+        }
+    }
+
+    @SuppressWarnings("checkstyle:emptyblock")
+    void unlock() {
+        try {
+            if (lock != null) lock.release();
+        } catch (IOException e) { /* fail silently */ } finally {
+            lock = null;
+            mutex.unlock();
+        }
+    }
+
+    /**
+     * Closes the lock file, the next {@link #lock()} opens it again.
+     */
+    @SuppressWarnings("checkstyle:emptyblock")
+    void close() {
+        mutex.lock();
+        try {
+            if (channel != null) channel.close();
+        } catch (IOException e) { /* fail silently */ } finally {
+            channel = null;
+            mutex.unlock();
+        }
+    }
+
+    /**
+     * Lock holders only.
+     */
+    long generation() throws IOException {
+        buffer.clear();
+        int n = channel.read(buffer, 0);
+        return n < 8 ? 0 : buffer.getLong(0);
+    }
+
+    /**
+     * Lock holders only, called after a rollover.
+     *
+     * @return the new generation
+     */
+    long advance() throws IOException {
+        long generation = generation() + 1;
+        buffer.clear();
+        buffer.putLong(generation);
+        buffer.flip();
+        channel.write(buffer, 0);
+        return generation;
+    }
+}
@@ -0,0 +1,52 @@
+package com.forkliu.base.logger;
+
+import androidx.annotation.NonNull;
+
+import java.util.Arrays;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Unbounded lock-free queue, every record is copied into its own small allocation.
+ */
+final class FLQueueTransport extends FLLogTransport {
+    private final Queue<FLLogRecord> queue = new ConcurrentLinkedQueue<>();
+
+    @Override
+    boolean offer(int level, long nanos, @NonNull byte[] data, int off, int len) {
+        FLLogRecord record = new FLLogRecord();
+        record.level = level;
+        record.nanos = nanos;
+        record.data = Arrays.copyOfRange(data, off, off + len);
+        record.length = len;
+        return queue.offer(record);
+    }
+
+    @Override
+    boolean poll(@NonNull FLLogRecord target) {
+        FLLogRecord record = queue.poll();
+        if (record == null) return false;
+        // the record is never touched again, hand over its array instead of copying
+        target.level = record.level;
+        target.nanos = record.nanos;
+        target.data = record.data;
+        target.length = record.length;
+        return true;
+    }
+
+    @Override
+    boolean isEmpty() {
+        return queue.isEmpty();
+    }
+
+    @Override
+    int size() {
+        // walks the queue, fine for the occasional statistics snapshot
+        return queue.size();
+    }
+
+    @Override
+    void clear() {
+        queue.clear();
+    }
+}
@@ -0,0 +1,84 @@
+package com.forkliu.base.logger;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A token bucket per tag that keeps a loop logging away from the writer thread and the
+ * backups:
+ * <pre>
+ * adapter.setRateLimiter(new FLRateLimiter(50, 200));   // 50 records/s per tag, bursts of 200
+ * </pre>
+ * Once a tag ran out of tokens its records are dropped, the next record that gets through
+ * is preceded by a line with the number of records dropped meanwhile.
+ * <p>
+ * Lock-free: a bucket is the time its tokens are all back (GCRA), a record that gets through
+ * moves it with one compare-and-set, a dropped one only increments a counter. Records
+ * without a tag and the tags beyond the first {@value #MAX_BUCKETS} share one bucket.
+ */
+public final class FLRateLimiter {
+    static final long DENIED = -1;
+    private static final int MAX_BUCKETS = 256;
+
+    private final long interval;
+    private final long tolerance;
+    @NonNull private final Bucket shared;
+    @NonNull private final ConcurrentHashMap<String, Bucket> buckets = new ConcurrentHashMap<>();
+
+    /**
+     * @param recordsPerSecond records per second every tag may log in the long run
+     * @param burst records a tag may log at once after it was quiet
+     */
+    public FLRateLimiter(int recordsPerSecond, int burst) {
+        interval = 1000000000L / Math.max(1, recordsPerSecond);
+        tolerance = interval * (Math.max(1, burst) - 1);
+        shared = new Bucket(System.nanoTime());
+    }
+
+    /**
+     * @return {@link #DENIED} if the record has to be dropped, otherwise the number of records
+     * of its bucket dropped since the last one that got through
+     */
+    long acquire(@Nullable String tag) {
+        Bucket bucket = bucket(tag);
+        long now = System.nanoTime();
+        for (;;) {
+            long full = bucket.full.get();
+            long start = full - now > 0 ? full : now;
+            if (start - now > tolerance) {
+                bucket.dropped.incrementAndGet();
+                return DENIED;
+            }
+            if (bucket.full.compareAndSet(full, start + interval)) break;
+        }
+        return bucket.dropped.get() == 0 ? 0 : bucket.dropped.getAndSet(0);
+    }
+
+    @NonNull private Bucket bucket(@Nullable String tag) {
+        if (tag == null) return shared;
+        Bucket bucket = buckets.get(tag);
+        if (bucket != null) return bucket;
+        if (buckets.size() >= MAX_BUCKETS) return shared;
+        bucket = new Bucket(System.nanoTime());
+        Bucket raced = buckets.putIfAbsent(tag, bucket);
+        return raced == null ? bucket : raced;
+    }
+
+    @NonNull static String droppedMessage(long dropped) {
+        return "... " + dropped + " records dropped by the rate limit";
+    }
+
+    private static final class Bucket {
+        // System.nanoTime() when the bucket is full again
+        final AtomicLong full;
+        // records dropped since the last one that got through
+        final AtomicLong dropped = new AtomicLong();
+
+        Bucket(long now) {
+            full = new AtomicLong(now);
+        }
+    }
+}
@@ -0,0 +1,140 @@
+package com.forkliu.base.logger;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.Arrays;
+
+/**
+ * Reusable char/byte scratch space for one formatted record.
+ * <p>
+ * Each logging thread owns one, so formatting a record only allocates when a record is
+ * longer than anything the thread has logged before. {@link #encode()} turns the chars into
+ * UTF-8, the same bytes a {@code FileWriter} would have produced.
+ */
+final class FLRecordBuffer {
+    private static final int INITIAL_CAPACITY = 256;
+
+    @NonNull char[] chars = new char[INITIAL_CAPACITY];
+    int charCount;
+    @NonNull byte[] bytes = new byte[INITIAL_CAPACITY];
+    int byteCount;
+
+    void reset() {
+        charCount = 0;
+        byteCount = 0;
+    }
+
+    void append(char c) {
+        ensureChars(1);
+        chars[charCount++] = c;
+    }
+
+    void append(@Nullable String s) {
+        if (s == null) s = "null";
+        append(s, 0, s.length());
+    }
+
+    void append(@NonNull String s, int start, int end) {
+        int n = end - start;
+        ensureChars(n);
+        s.getChars(start, end, chars, charCount);
+        charCount += n;
+    }
+
+    void append(long value) {
+        if (value == Long.MIN_VALUE) {
+            append(Long.toString(value));
+            return;
+        }
+        if (value < 0) {
+            append('-');
+            value = -value;
+        }
+        int digits = 1;
+        for (long v = value; v >= 10; v /= 10) digits++;
+        ensureChars(digits);
+        int pos = charCount + digits;
+        do {
+            chars[--pos] = (char) ('0' + (value % 10));
+            value /= 10;
+        } while (value != 0);
+        charCount += digits;
+    }
+
+    /**
+     * Appends the number zero padded to {@code width} digits.
+     */
+    void appendPadded(int value, int width) {
+        ensureChars(width);
+        for (int i = charCount + width - 1; i >= charCount; i--) {
+            chars[i] = (char) ('0' + (value % 10));
+            value /= 10;
+        }
+        charCount += width;
+    }
+
+    /**
+     * Encodes the chars as UTF-8 into {@link #bytes}. Unpaired surrogates become '?'.
+     */
+    void encode() {
+        byteCount = encode(0, charCount, 0);
+    }
+
+    /**
+     * Encodes {@code chars[from, to)} into {@link #bytes} starting at {@code pos}, growing
+     * the array if needed.
+     *
+     * @return the position after the last byte written
+     */
+    int encode(int from, int to, int pos) {
+        ensureBytes(pos + (to - from) * 3);
+        byte[] out = bytes;
+        for (int i = from; i < to; i++) {
+            char c = chars[i];
+            if (c < 0x80) {
+                out[pos++] = (byte) c;
+            } else if (c < 0x800) {
+                out[pos++] = (byte) (0xc0 | (c >> 6));
+                out[pos++] = (byte) (0x80 | (c & 0x3f));
+            } else if (Character.isSurrogate(c)) {
+                if (Character.isHighSurrogate(c) && i + 1 < to && Character.isLowSurrogate(chars[i + 1])) {
+                    int cp = Character.toCodePoint(c, chars[++i]);
+                    out[pos++] = (byte) (0xf0 | (cp >> 18));
+                    out[pos++] = (byte) (0x80 | ((cp >> 12) & 0x3f));
+                    out[pos++] = (byte) (0x80 | ((cp >> 6) & 0x3f));
+                    out[pos++] = (byte) (0x80 | (cp & 0x3f));
+                } else {
+                    out[pos++] = '?';
+                }
+            } else {
+                out[pos++] = (byte) (0xe0 | (c >> 12));
+                out[pos++] = (byte) (0x80 | ((c >> 6) & 0x3f));
+                out[pos++] = (byte) (0x80 | (c & 0x3f));
+            }
+        }
+        return pos;
+    }
+
+    /**
+     * Grows {@link #bytes} to hold at least {@code capacity} bytes, keeping its content.
+     */
+    void ensureBytes(int capacity) {
+        if (bytes.length < capacity) {
+            bytes = Arrays.copyOf(bytes, Math.max(capacity, bytes.length * 2));
+        }
+    }
+
+    @NonNull
+    @Override
+    public String toString() {
+        return new String(chars, 0, charCount);
+    }
+
+    private void ensureChars(int extra) {
+        int required = charCount + extra;
+        if (required > chars.length) {
+            chars = Arrays.copyOf(chars, Math.max(required, chars.length * 2));
+        }
+    }
+}
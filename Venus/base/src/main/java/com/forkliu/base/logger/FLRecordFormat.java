@@ -0,0 +1,17 @@
+package com.forkliu.base.logger;
+
+/**
+ * How the file strategies store records, see {@code recordFormat(int)} on the builders.
+ */
+public final class FLRecordFormat {
+    /** one human readable CSV line per record (default) */
+    public static final int CSV = 0;
+    /**
+     * compact binary records, about half the size of the CSV lines and no date formatting on
+     * the device. {@link FLBinaryLogDecoder} turns them back into the CSV lines.
+     */
+    public static final int BINARY = 1;
+
+    private FLRecordFormat() {
+    }
+}
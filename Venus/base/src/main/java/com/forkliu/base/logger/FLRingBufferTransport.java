@@ -0,0 +1,158 @@
+package com.forkliu.base.logger;
+
+import androidx.annotation.NonNull;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Bounded ring buffer with preallocated slots for many logging threads and one writer thread.
+ * <p>
+ * Every slot carries a sequence number (D. Vyukov's bounded queue). A producer claims a slot
+ * with one CAS on {@code tail}, fills it and publishes it by advancing the slot sequence; the
+ * writer thread copies it out and hands the slot back the same way. No locks on either side,
+ * and the slot byte arrays are reused, so a slot only allocates when it sees a record longer
+ * than any before.
+ * <p>
+ * {@code head} is advanced with a CAS as well because {@link #OVERFLOW_DROP_OLDEST} lets a
+ * producer take the oldest record out of the buffer.
+ */
+final class FLRingBufferTransport extends FLLogTransport {
+    private static final int MAX_CAPACITY = 1 << 20;
+    private static final long BLOCK_PARK_NANOS = 50 * 1000;
+
+    private final int mask;
+    private final int capacity;
+    @NonNull private final FLLogRecord[] slots;
+    @NonNull private final AtomicLongArray sequences;
+    private final AtomicLong head = new AtomicLong();
+    private final AtomicLong tail = new AtomicLong();
+    private final AtomicLong evicted = new AtomicLong();
+    private final int overflowPolicy;
+    private final int minLevel;
+
+    FLRingBufferTransport(int capacity, int overflowPolicy, int minLevel) {
+        if (capacity <= 0 || capacity > MAX_CAPACITY) {
+            throw new IllegalArgumentException("capacity out of range: " + capacity);
+        }
+        if (overflowPolicy < OVERFLOW_BLOCK || overflowPolicy > OVERFLOW_DROP_BELOW_LEVEL) {
+            throw new IllegalArgumentException("unknown overflow policy: " + overflowPolicy);
+        }
+        int size = Integer.highestOneBit(capacity);
+        if (size < capacity) size <<= 1;
+
+        this.capacity = size;
+        this.mask = size - 1;
+        this.overflowPolicy = overflowPolicy;
+        this.minLevel = minLevel;
+        this.slots = new FLLogRecord[size];
+        this.sequences = new AtomicLongArray(size);
+        for (int i = 0; i < size; i++) {
+            slots[i] = new FLLogRecord();
+            sequences.set(i, i);
+        }
+    }
+
+    @Override
+    boolean offer(int level, long nanos, @NonNull byte[] data, int off, int len) {
+        while (!tryOffer(level, nanos, data, off, len)) {
+            switch (overflowPolicy) {
+                case OVERFLOW_DROP_NEWEST:
+                    return false;
+                case OVERFLOW_DROP_BELOW_LEVEL:
+                    if (level < minLevel) return false;
+                    evictOldest();
+                    break;
+                case OVERFLOW_DROP_OLDEST:
+                    evictOldest();
+                    break;
+                case OVERFLOW_BLOCK:
+                default:
+                    LockSupport.parkNanos(BLOCK_PARK_NANOS);
+                    break;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    boolean poll(@NonNull FLLogRecord target) {
+        return take(target);
+    }
+
+    @Override
+    boolean isEmpty() {
+        return head.get() >= tail.get();
+    }
+
+    @Override
+    int size() {
+        long size = tail.get() - head.get();
+        return size < 0 ? 0 : (int) size;
+    }
+
+    @Override
+    long dropped() {
+        return evicted.get();
+    }
+
+    @Override
+    void clear() {
+        while (take(null)) {
+            // discard
+        }
+    }
+
+    private void evictOldest() {
+        if (take(null)) {
+            evicted.incrementAndGet();
+        }
+    }
+
+    private boolean tryOffer(int level, long nanos, @NonNull byte[] data, int off, int len) {
+        long pos = tail.get();
+        for (;;) {
+            int index = (int) pos & mask;
+            long dif = sequences.get(index) - pos;
+            if (dif == 0) {
+                if (tail.compareAndSet(pos, pos + 1)) {
+                    slots[index].set(level, nanos, data, off, len);
+                    sequences.lazySet(index, pos + 1);
+                    return true;
+                }
+                pos = tail.get();
+            } else if (dif < 0) {
+                // full
+                return false;
+            } else {
+                // another producer got this slot first
+                pos = tail.get();
+            }
+        }
+    }
+
+    private boolean take(FLLogRecord target) {
+        long pos = head.get();
+        for (;;) {
+            int index = (int) pos & mask;
+            long dif = sequences.get(index) - (pos + 1);
+            if (dif == 0) {
+                if (head.compareAndSet(pos, pos + 1)) {
+                    FLLogRecord slot = slots[index];
+                    if (target != null) {
+                        target.set(slot.level, slot.nanos, slot.data, 0, slot.length);
+                    }
+                    sequences.lazySet(index, pos + capacity);
+                    return true;
+                }
+                pos = head.get();
+            } else if (dif < 0) {
+                // empty, or the producer of this slot hasn't published it yet
+                return false;
+            } else {
+                pos = head.get();
+            }
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package com.forkliu.base.logger;
+
+import androidx.annotation.NonNull;
+
+import java.text.SimpleDateFormat;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+import static com.forkliu.base.logger.FLTimedRotatingFormatStrategy.Builder.D;
+import static com.forkliu.base.logger.FLTimedRotatingFormatStrategy.Builder.H;
+import static com.forkliu.base.logger.FLTimedRotatingFormatStrategy.Builder.M;
+import static com.forkliu.base.logger.FLTimedRotatingFormatStrategy.Builder.S;
+
+/**
+ * The time periods of the rotating strategies, aligned to the clock: every hour starts a
+ * period for {@code H}, or 00:00, 06:00, 12:00 and 18:00 for {@code H} with an interval of 6.
+ * A period never crosses the next larger unit, with {@code D} the days start at midnight.
+ * <p>
+ * Rolled segments are named after the start of their period, e.g. "2026-10-18_14" for
+ * {@code H}. Writer thread only, except for {@link #matches(String)}.
+ */
+final class FLRollPeriod {
+    private final int when;
+    private final int interval;
+    @NonNull private final Calendar calendar = Calendar.getInstance();
+    @NonNull private final SimpleDateFormat suffixFormat;
+    @NonNull private final Pattern suffix;
+
+    /**
+     * @param when one of {@code S}, {@code M}, {@code H} and {@code D} of
+     *             {@link FLTimedRotatingFormatStrategy.Builder}, anything else is {@code D}
+     */
+    FLRollPeriod(int when, int interval) {
+        this.interval = Math.max(1, interval);
+        switch (when){
+            case S:
+                suffixFormat = new SimpleDateFormat("yyyy-MM-dd_HH-mm-ss",Locale.CHINA);
+                suffix = Pattern.compile("^\\d{4}-\\d{2}-\\d{2}_\\d{2}-\\d{2}-\\d{2}$");
+                break;
+            case M:
+                suffixFormat = new SimpleDateFormat("yyyy-MM-dd_HH-mm",Locale.CHINA);
+                suffix = Pattern.compile("^\\d{4}-\\d{2}-\\d{2}_\\d{2}-\\d{2}$");
+                break;
+            case H:
+                suffixFormat = new SimpleDateFormat("yyyy-MM-dd_HH",Locale.CHINA);
+                suffix = Pattern.compile("^\\d{4}-\\d{2}-\\d{2}_\\d{2}$");
+                break;
+            default:
+                when = D;
+                suffixFormat = new SimpleDateFormat("yyyy-MM-dd",Locale.CHINA);
+                suffix = Pattern.compile("^\\d{4}-\\d{2}-\\d{2}$");
+                break;
+        }
+        this.when = when;
+    }
+
+    /**
+     * @return the start of the period {@code time} is in
+     */
+    long start(long time) {
+        calendar.setTimeInMillis(time);
+        calendar.set(Calendar.MILLISECOND, 0);
+        // every unit from S to D clears the fields below it
+        if (when >= M) calendar.set(Calendar.SECOND, 0);
+        if (when >= H) calendar.set(Calendar.MINUTE, 0);
+        if (when >= D) calendar.set(Calendar.HOUR_OF_DAY, 0);
+        if (when != D) {
+            int field = field();
+            calendar.set(field, calendar.get(field) / interval * interval);
+        }
+        return calendar.getTimeInMillis();
+    }
+
+    /**
+     * @return the first boundary after {@code time}
+     */
+    long next(long time) {
+        long start = start(time);
+        calendar.setTimeInMillis(start);
+        calendar.add(field(), interval);
+        long next = calendar.getTimeInMillis();
+        // e.g. 20:00 + 6h, the next day starts a new period at 00:00
+        long aligned = start(next);
+        return aligned > start ? aligned : next;
+    }
+
+    /**
+     * @return the name of the period {@code time} is in
+     */
+    @NonNull String format(long time) {
+        return suffixFormat.format(new Date(start(time)));
+    }
+
+    /**
+     * @return true if {@code name} is the name of a period, thread safe
+     */
+    boolean matches(@NonNull String name) {
+        return suffix.matcher(name).matches();
+    }
+
+    private int field() {
+        switch (when) {
+            case S:
+                return Calendar.SECOND;
+            case M:
+                return Calendar.MINUTE;
+            case H:
+                return Calendar.HOUR_OF_DAY;
+            default:
+                return Calendar.DAY_OF_MONTH;
+        }
+    }
+}
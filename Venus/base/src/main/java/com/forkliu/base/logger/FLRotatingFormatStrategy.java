@@ -1,8 +1,6 @@
 package com.forkliu.base.logger;
 
 import android.os.Environment;
-import android.os.Handler;
-import android.os.HandlerThread;
 
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
@@ -11,28 +9,28 @@ import com.orhanobut.logger.FormatStrategy;
 import com.orhanobut.logger.LogStrategy;
 
 
+import java.io.Closeable;
 import java.io.File;
+import java.io.Flushable;
 import java.text.SimpleDateFormat;
-import java.util.Date;
 import java.util.Locale;
 
 import static com.forkliu.base.logger.FLLogUtils.checkNotNull;
 
 
-public class FLRotatingFormatStrategy implements FormatStrategy {
+public class FLRotatingFormatStrategy implements FormatStrategy, Flushable, Closeable {
 
-    private static final String NEW_LINE = System.getProperty("line.separator");
-    private static final String NEW_LINE_REPLACEMENT = " <br> ";
-    private static final String SEPARATOR = ",";
-
-    @NonNull private final SimpleDateFormat dateFormat;
+    @NonNull private final FLCsvFormatter formatter;
     @NonNull private final LogStrategy logStrategy;
-    @Nullable private final String tag;
+    // set if the records go to a file strategy as binary records
+    @Nullable private final FLBinaryFormatter binaryFormatter;
 
     private FLRotatingFormatStrategy(@NonNull Builder builder){
-        dateFormat = builder.dateFormat;
+        formatter = new FLCsvFormatter(builder.dateFormat, builder.tag);
         logStrategy = builder.logStrategy;
-        tag = builder.tag;
+        binaryFormatter = logStrategy instanceof FLFileLogStrategy
+                && ((FLFileLogStrategy) logStrategy).recordFormat() == FLRecordFormat.BINARY
+                ? new FLBinaryFormatter(builder.tag) : null;
     }
 
     @NonNull public static Builder newBuilder() {
@@ -41,71 +39,121 @@ public class FLRotatingFormatStrategy implements FormatStrategy {
     
     @Override
     public void log(int priority, @Nullable String onceOnlyTag, @NonNull String message) {
-        checkNotNull(message);
-
-        String tag = formatTag(onceOnlyTag);
+        log(System.currentTimeMillis(), priority, onceOnlyTag, message);
+    }
 
-        Date date = new Date();
-        date.setTime(System.currentTimeMillis());
+    /**
+     * Same as {@link #log(int, String, String)} for a record that was logged at {@code millis}.
+     */
+    void log(long millis, int priority, @Nullable String onceOnlyTag, @NonNull String message) {
+        checkNotNull(message);
 
-        StringBuilder builder = new StringBuilder();
+        if (binaryFormatter != null) {
+            ((FLFileLogStrategy) logStrategy).log(priority, binaryFormatter.format(millis, priority, onceOnlyTag, message));
+            return;
+        }
+        FLRecordBuffer record = formatter.format(millis, priority, onceOnlyTag, message);
+        if (logStrategy instanceof FLFileLogStrategy) {
+            // hand over the encoded bytes, no String needed
+            ((FLFileLogStrategy) logStrategy).log(priority, record);
+        } else {
+            logStrategy.log(priority, formatter.formatTag(onceOnlyTag), record.toString());
+        }
+    }
 
-        // machine-readable date/time
-        builder.append(Long.toString(date.getTime()));
+    /**
+     * @return the file strategy the records go to, null for any other log strategy
+     */
+    @Nullable FLFileLogStrategy fileStrategy() {
+        return logStrategy instanceof FLFileLogStrategy ? (FLFileLogStrategy) logStrategy : null;
+    }
 
-        // human-readable date/time
-        builder.append(SEPARATOR);
-        builder.append(dateFormat.format(date));
+    boolean isBinary() {
+        return binaryFormatter != null;
+    }
 
-        // level
-        builder.append(SEPARATOR);
-        builder.append(FLLogUtils.logLevel(priority));
+    /**
+     * What the file writer has done so far, all zeros if the log strategy isn't one of the
+     * file strategies of this package.
+     */
+    @NonNull public FLLoggerStats getStats() {
+        return FLLoggerStats.create(0, metrics());
+    }
 
-        // tag
-        builder.append(SEPARATOR);
-        builder.append(tag);
+    @Nullable FLLoggerMetrics metrics() {
+        FLFileLogStrategy file = fileStrategy();
+        return file == null ? null : file.metrics();
+    }
 
-        // message
-        if (message.contains(NEW_LINE)) {
-            // a new line would break the CSV format, so we replace it here
-            message = message.replaceAll(NEW_LINE, NEW_LINE_REPLACEMENT);
+    /**
+     * Writes the records buffered by the file writer so far.
+     */
+    @Override
+    public void flush() {
+        if (logStrategy instanceof FLFileLogStrategy) {
+            ((FLFileLogStrategy) logStrategy).flush();
         }
-        builder.append(SEPARATOR);
-        builder.append(message);
-
-        // new line
-        builder.append(NEW_LINE);
+    }
 
-        logStrategy.log(priority, tag, builder.toString());
+    /**
+     * Blocks until the file writer wrote everything logged so far, at most {@code timeoutMillis}.
+     */
+    void sync(long timeoutMillis) {
+        FLFileLogStrategy file = fileStrategy();
+        if (file != null) {
+            file.sync(timeoutMillis);
+        }
     }
 
-    @Nullable private String formatTag(@Nullable String tag) {
-        if (!FLLogUtils.isEmpty(tag) && !FLLogUtils.equals(this.tag, tag)) {
-            return this.tag + "-" + tag;
+    /**
+     * Flushes and closes the log file. The writer thread belongs to the
+     * {@link FLLogWriterScheduler} and keeps running.
+     */
+    @Override
+    public void close() {
+        if (logStrategy instanceof FLFileLogStrategy) {
+            ((FLFileLogStrategy) logStrategy).close();
         }
-        return this.tag;
     }
+
     // logDir
     // logName
     // maxBytes 当文件大小超过maxBytes就会创建一个日志文件
     // backupCount 保留的日志文件个数
+    // when/interval 设置后同时按时间分割日志，先到者先滚动
+    // maxTotalBytes/maxAge 按总大小和时间清理日志，需要设置when
+    // multiProcess 多个进程写同一个日志文件
 
     public static final class Builder {
         private static final int MAX_BYTES = 500 * 1024; // 500K averages to a 4000 lines per file
+        public static final int WRITER_STREAM = 1;
+        public static final int WRITER_MMAP = 2;
 
-        SimpleDateFormat dateFormat;
+        FLTimestampFormatter dateFormat;
         LogStrategy logStrategy;
         String tag;
         String logDir;
         String logName;
+        final FLWriterConfig writerConfig = new FLWriterConfig();
+        FLLogWriterScheduler scheduler;
         int maxBytes = 0;
         int backupCount = 0;
+        int writerMode = WRITER_STREAM;
+        int when = 0;
+        int interval = 1;
+        long maxTotalBytes = 0;
+        long maxAge = 0;
 
         private Builder() {
         }
 
 
         @NonNull public Builder dateFormat(@Nullable SimpleDateFormat val) {
+            dateFormat = val == null ? null : new FLTimestampFormatter(val);
+            return this;
+        }
+
+        @NonNull public Builder dateFormat(@Nullable FLTimestampFormatter val) {
             dateFormat = val;
             return this;
         }
@@ -130,6 +178,102 @@ public class FLRotatingFormatStrategy implements FormatStrategy {
             return this;
         }
 
+        /**
+         * Buffered output is written to the file once it reaches this many bytes.
+         */
+        @NonNull public Builder flushBytes(int val) {
+            writerConfig.flushBytes = val;
+            return this;
+        }
+
+        /**
+         * Buffered output is written to the file at the latest after this many milliseconds.
+         * ERROR and ASSERT records are always written right away.
+         */
+        @NonNull public Builder flushInterval(long millis) {
+            writerConfig.flushInterval = millis;
+            return this;
+        }
+
+        /**
+         * Maximum number of records the writer thread handles in one pass.
+         */
+        @NonNull public Builder batchSize(int val) {
+            writerConfig.batchSize = val;
+            return this;
+        }
+
+        /**
+         * How long the writer thread waits for more records before it writes a batch,
+         * 0 writes as soon as possible. ERROR and ASSERT records never wait.
+         */
+        @NonNull public Builder linger(long millis) {
+            writerConfig.linger = millis;
+            return this;
+        }
+
+        /**
+         * How records get from the logging threads to the writer thread,
+         * {@link FLLogTransport#queue()} by default.
+         */
+        @NonNull public Builder transport(@Nullable FLLogTransport val) {
+            writerConfig.transport = val;
+            return this;
+        }
+
+        /**
+         * {@link FLCompression#NONE} (default), {@link FLCompression#GZIP} or
+         * {@link FLCompression#GZIP_STREAM}. Compressed segments get a ".gz" suffix.
+         */
+        @NonNull public Builder compression(int val) {
+            writerConfig.compression = val;
+            return this;
+        }
+
+        /**
+         * {@link FLRecordFormat#CSV} (default) or {@link FLRecordFormat#BINARY}. Only used by the
+         * file strategies of this package, any other log strategy gets the CSV line.
+         */
+        @NonNull public Builder recordFormat(int val) {
+            writerConfig.recordFormat = val;
+            return this;
+        }
+
+        /**
+         * Indexes every segment in blocks of this many records, 0 (default) for no index.
+         * {@link FLLogQuery} uses the index to read only the blocks of a time range. Only for
+         * the CSV record format, and not with {@link FLCompression#GZIP_STREAM}.
+         */
+        @NonNull public Builder indexInterval(int records) {
+            writerConfig.indexInterval = records;
+            return this;
+        }
+
+        /**
+         * When the written records are forced to storage, {@link FLDurability#none()} by default.
+         */
+        @NonNull public Builder durability(@Nullable FLDurability val) {
+            writerConfig.durability = val;
+            return this;
+        }
+
+        /**
+         * Shares a limit on the size and age of the rolled segments with the other strategies
+         * that get the same budget. None by default.
+         */
+        @NonNull public Builder diskBudget(@Nullable FLDiskBudget val) {
+            writerConfig.diskBudget = val;
+            return this;
+        }
+
+        /**
+         * The writer threads to run on, {@link FLLogWriterScheduler#getDefault()} by default.
+         */
+        @NonNull public Builder scheduler(@Nullable FLLogWriterScheduler val) {
+            this.scheduler = val;
+            return this;
+        }
+
         @NonNull public Builder backupCount(int val) {
             this.backupCount = val;
             return this;
@@ -140,12 +284,70 @@ public class FLRotatingFormatStrategy implements FormatStrategy {
             return this;
         }
 
+        /**
+         * Also rolls over at the time boundaries of {@link FLTimedRotatingFormatStrategy},
+         * whichever of {@code maxBytes} and the boundary comes first. One of
+         * {@link FLTimedRotatingFormatStrategy.Builder#S}, {@code M}, {@code H} and {@code D},
+         * 0 (default) rolls over by size only. The rolled segments are then named after their
+         * period and a sequence number, e.g. log.log.2026-10-18_14.3 for {@code H}.
+         */
+        @NonNull public Builder when(int val) {
+            this.when = val;
+            return this;
+        }
+
+        @NonNull public Builder interval(int val) {
+            this.interval = val;
+            return this;
+        }
+
+        /**
+         * Deletes the oldest rolled segments once they take more than this many bytes,
+         * 0 (default) for no limit. Needs {@link #when(int)}.
+         */
+        @NonNull public Builder maxTotalBytes(long val) {
+            this.maxTotalBytes = val;
+            return this;
+        }
+
+        /**
+         * Deletes rolled segments last written more than this many milliseconds ago,
+         * 0 (default) for no limit. Needs {@link #when(int)}.
+         */
+        @NonNull public Builder maxAge(long millis) {
+            this.maxAge = millis;
+            return this;
+        }
+
+        /**
+         * For apps whose processes, e.g. a ":remote" service, all log into the same file.
+         * The processes take turns on a lock file for every batch, so their lines don't mix
+         * and only one of them rolls the file over at a time. Every batch is flushed right
+         * away, the file isn't buffered across batches. Only for size rotation with
+         * {@link #WRITER_STREAM}, uncompressed CSV records and no index.
+         */
+        @NonNull public Builder multiProcess(boolean val) {
+            writerConfig.multiProcess = val;
+            return this;
+        }
+
+        /**
+         * {@link #WRITER_STREAM} appends through a buffered stream (default).
+         * {@link #WRITER_MMAP} maps each segment of {@code maxBytes} up front and copies records
+         * straight into the mapping, a crash of the process doesn't lose anything that was logged.
+         * It only works with {@link FLRecordFormat#CSV} records.
+         */
+        @NonNull public Builder writerMode(int val) {
+            this.writerMode = val;
+            return this;
+        }
+
         @NonNull public FLRotatingFormatStrategy build() throws FLLoggerException{
             if (logDir == null){
                 throw new FLLoggerException("logDir is null");
             }
             if (dateFormat == null) {
-                dateFormat = new SimpleDateFormat("yyyy.MM.dd HH:mm:ss.SSS", Locale.CHINA);
+                dateFormat = new FLTimestampFormatter("yyyy.MM.dd HH:mm:ss.SSS", Locale.CHINA);
             }
             if (logName == null){
                 logName = "log.log";
@@ -156,19 +358,92 @@ public class FLRotatingFormatStrategy implements FormatStrategy {
             if (backupCount <= 0){
                 backupCount = 7;
             }
+            if (writerMode != WRITER_MMAP) writerMode = WRITER_STREAM;
+            if (interval <= 0) interval = 1;
+            if (when < 0) when = 0;
+            if (when == 0 && (maxTotalBytes > 0 || maxAge > 0)) {
+                throw new FLLoggerException("maxTotalBytes and maxAge need when");
+            }
+            writerConfig.applyDefaults();
+            // the offsets into a gzip stream that was opened again would count compressed bytes
+            if (writerConfig.indexInterval > 0 && (writerConfig.recordFormat == FLRecordFormat.BINARY
+                    || writerConfig.compression == FLCompression.GZIP_STREAM)) {
+                throw new FLLoggerException("only CSV segments that aren't compressed while they are "
+                        + "written can be indexed");
+            }
+            if (writerMode == WRITER_MMAP && writerConfig.compression == FLCompression.GZIP_STREAM) {
+                throw new FLLoggerException("a mapped log file can't be compressed while it is written");
+            }
+            // a mapped file is recovered up to its last non zero byte, a binary entry may end in one
+            if (writerMode == WRITER_MMAP && writerConfig.recordFormat == FLRecordFormat.BINARY) {
+                throw new FLLoggerException("a mapped log file can only hold CSV records");
+            }
+            if (writerConfig.multiProcess && (when > 0 || writerMode == WRITER_MMAP
+                    || writerConfig.compression != FLCompression.NONE
+                    || writerConfig.recordFormat == FLRecordFormat.BINARY || writerConfig.indexInterval > 0)) {
+                throw new FLLoggerException("multiProcess only works with uncompressed, unindexed CSV "
+                        + "segments that are rolled over by size through a stream");
+            }
+
+            // the date format is built off the calling thread, ahead of the first record
+            final FLTimestampFormatter timestamps = dateFormat;
+            FLLogMaintenance.execute(new Runnable() {
+                @Override
+                public void run() {
+                    timestamps.prepare();
+                }
+            });
+
             if (logStrategy == null) {
-                String folder = logDir + File.separatorChar + "logger";
-
-                HandlerThread ht = new HandlerThread("AndroidFileLogger." + folder);
-                ht.start();
-                Handler handler = new FLRotatingStrategy.WriteHandler(
-                        ht.getLooper(),
-                        folder,
-                        logName,
-                        maxBytes,
-                        backupCount
-                );
-                logStrategy = new FLRotatingStrategy(handler);
+                // so are the writer thread and the files
+                final String folder = logDir + File.separatorChar + "logger";
+                final FLLogWriterScheduler scheduler = this.scheduler;
+                final String logName = this.logName;
+                final int maxBytes = this.maxBytes;
+                final int backupCount = this.backupCount;
+                final long maxTotalBytes = this.maxTotalBytes;
+                final long maxAge = this.maxAge;
+                final int when = this.when;
+                final int interval = this.interval;
+                final int writerMode = this.writerMode;
+                final FLWriterConfig writerConfig = this.writerConfig;
+                if (when > 0) {
+                    logStrategy = new FLHybridRotatingStrategy(writerConfig, new FLFileLogStrategy.HandlerFactory() {
+                        @NonNull
+                        @Override
+                        public FLFileWriteHandler create() {
+                            return new FLHybridRotatingStrategy.WriteHandler(
+                                    (scheduler != null ? scheduler : FLLogWriterScheduler.getDefault()).nextWorker(),
+                                    folder,
+                                    logName,
+                                    maxBytes,
+                                    backupCount,
+                                    maxTotalBytes,
+                                    maxAge,
+                                    when,
+                                    interval,
+                                    writerMode,
+                                    writerConfig
+                            );
+                        }
+                    });
+                } else {
+                    logStrategy = new FLRotatingStrategy(writerConfig, new FLFileLogStrategy.HandlerFactory() {
+                        @NonNull
+                        @Override
+                        public FLFileWriteHandler create() {
+                            return new FLRotatingStrategy.WriteHandler(
+                                    (scheduler != null ? scheduler : FLLogWriterScheduler.getDefault()).nextWorker(),
+                                    folder,
+                                    logName,
+                                    maxBytes,
+                                    backupCount,
+                                    writerMode,
+                                    writerConfig
+                            );
+                        }
+                    });
+                }
             }
             return new FLRotatingFormatStrategy(this);
         }
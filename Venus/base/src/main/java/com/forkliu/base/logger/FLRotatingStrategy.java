@@ -1,120 +1,233 @@
 package com.forkliu.base.logger;
 
-import android.os.Handler;
-import android.os.Looper;
-import android.os.Message;
-
 import androidx.annotation.NonNull;
-import androidx.annotation.Nullable;
-
-import com.orhanobut.logger.LogStrategy;
 
 import java.io.File;
-import java.io.FileWriter;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
 import java.util.Locale;
 
-class FLRotatingStrategy implements LogStrategy {
-    @NonNull
-    private Handler handler;
+import static com.forkliu.base.logger.FLRotatingFormatStrategy.Builder.WRITER_MMAP;
+
+class FLRotatingStrategy extends FLFileLogStrategy {
 
-    public FLRotatingStrategy(@NonNull Handler handler) {
-        this.handler = handler;
+    public FLRotatingStrategy(@NonNull WriteHandler handler) {
+        super(handler);
     }
 
-    @Override
-    public void log(int level, @Nullable String tag, @NonNull String message) {
-        // do nothing on the calling thread, simply pass the tag/msg to the background thread
-        handler.sendMessage(handler.obtainMessage(level, message));
+    FLRotatingStrategy(@NonNull FLWriterConfig config, @NonNull HandlerFactory factory) {
+        super(config, factory);
     }
 
-    static class WriteHandler extends Handler {
+    static class WriteHandler extends FLFileWriteHandler {
+        private static final String ROLLING = ".rolling-";
 
-        private String folder;
-        private String logName;
         private  int maxFileSize;
         private int backupCount;
+        private int writerMode;
+        private final long startTime = System.currentTimeMillis();
+        private int rollCount;
+        // backups[i] is the file of backup i or null, maintenance thread only, null until the
+        // folder was looked at
+        private File[] backups;
 
         WriteHandler(
-                @NonNull Looper looper,
+                @NonNull FLLogWriterScheduler.Worker worker,
                 @NonNull String folder,
                 String logName,
                 int maxFileSize,
-                int backupCount
+                int backupCount,
+                int writerMode,
+                @NonNull FLWriterConfig config
         ) {
-            super(looper);
-            this.folder = folder;
-            this.logName = logName;
+            super(worker, folder, logName, config);
             this.maxFileSize = maxFileSize;
             this.backupCount = backupCount;
+            this.writerMode = writerMode;
         }
 
-        @SuppressWarnings("checkstyle:emptyblock")
+        @NonNull
         @Override
-        public void handleMessage(@NonNull Message msg) {
-            String content = (String) msg.obj;
+        FLLogWriter createWriter(@NonNull File logFile) throws IOException {
+            if (writerMode == WRITER_MMAP) {
+                return new FLMappedLogWriter(logFile, maxFileSize);
+            }
+            return super.createWriter(logFile);
+        }
+
+        @Override
+        boolean shouldRollover(@NonNull FLLogWriter writer, int nextLength) {
+            if (writer.length() >= maxFileSize) return true;
+            // a mapped segment is full when the next record doesn't fit any more
+            return writer.length() > 0 && nextLength > writer.remaining();
+        }
+
+        @Override
+        void doRollover(@NonNull File folder, @NonNull File logFile) {
+            // one rename on the writer thread, the backups are shifted in the background
+            final File rolled = new File(folder, String.format(Locale.UK, "%s%s%013d-%06d%s",
+                    logName, ROLLING, startTime, ++rollCount, activeName.substring(logName.length())));
+            if (!logFile.renameTo(rolled)) return;
+            FLSegmentIndex.rename(logFile, rolled);
+
+            FLLogMaintenance.execute(new Runnable() {
+                @Override
+                public void run() {
+                    if (processLock == null) {
+                        if (backups == null) {
+                            scan(rolled.getParentFile());
+                        }
+                        shift(rolled);
+                        return;
+                    }
+                    shiftShared(rolled);
+                }
+            });
+        }
 
-            FileWriter fileWriter = null;
-            File logFile;
+        /**
+         * Maintenance thread only, multi-process mode. The other processes shift the same
+         * backups, so they are looked at again under the lock every time.
+         */
+        private void shiftShared(@NonNull File rolled) {
             try {
-                logFile = getLogFile(folder, logName);
-            }catch (Exception e){
+                processLock.lock();
+            } catch (IOException e) {
                 e.printStackTrace();
                 return;
             }
-
             try {
-                fileWriter = new FileWriter(logFile, true);
-                writeLog(fileWriter, content);
-                fileWriter.flush();
-                fileWriter.close();
-            } catch (IOException e) {
-                if (fileWriter != null) {
-                    try {
-                        fileWriter.flush();
-                        fileWriter.close();
-                    } catch (IOException e1) { /* fail silently */ }
-                }
+                scan(rolled.getParentFile());
+                shift(rolled);
+            } finally {
+                processLock.unlock();
+            }
+        }
+
+        @Override
+        boolean isSegment(@NonNull String name) {
+            if (!name.startsWith(logName + ".") || FLSegmentIndex.isSidecar(name)) return false;
+            String rest = name.substring(logName.length());
+            if (rest.endsWith(FLCompression.EXTENSION)) {
+                rest = rest.substring(0, rest.length() - FLCompression.EXTENSION.length());
+            }
+            // a rolled file not shifted yet, or a backup
+            if (rest.startsWith(ROLLING)) return true;
+            if (rest.length() < 2 || rest.length() > 10) return false;
+            for (int i = 1; i < rest.length(); i++) {
+                char c = rest.charAt(i);
+                if (c < '0' || c > '9') return false;
+            }
+            return true;
+        }
+
+        @Override
+        void onSegmentEvicted(@NonNull File segment) {
+            if (backups == null) return;
+            for (int i = 1; i <= backupCount; i++) {
+                if (segment.equals(backups[i])) backups[i] = null;
             }
         }
 
         /**
-         * This is always called on a single background thread.
-         * Implementing classes must ONLY write to the fileWriter and nothing more.
-         * The abstract class takes care of everything else including close the stream and catching IOException
-         *
-         * @param fileWriter an instance of FileWriter already initialised to the correct file
+         * Maintenance thread only. Makes {@code rolled} the first backup and moves the others up,
+         * then compresses the new first backup if asked to.
          */
-        private void writeLog(@NonNull FileWriter fileWriter, @NonNull String content) throws IOException {
-            fileWriter.append(content);
+        private void shift(@NonNull File rolled) {
+            // another process may have shifted it already
+            if (!rolled.exists()) return;
+            File folder = rolled.getParentFile();
+            if (backups[backupCount] != null) {
+                backups[backupCount].delete();
+                FLSegmentIndex.delete(backups[backupCount]);
+                onSegmentDeleted(backups[backupCount]);
+                backups[backupCount] = null;
+            }
+            for (int i = backupCount - 1; i > 0; i--) {
+                File file = backups[i];
+                if (file == null) continue;
+                File to = backup(folder, i + 1, isCompressed(file));
+                if (file.renameTo(to)) {
+                    FLSegmentIndex.rename(file, to);
+                    onSegmentRenamed(file, to);
+                    backups[i + 1] = to;
+                } else {
+                    backups[i + 1] = null;
+                }
+                backups[i] = null;
+            }
+
+            boolean compressed = isCompressed(rolled);
+            File first = backup(folder, 1, compressed);
+            if (!rolled.renameTo(first)) return;
+            FLSegmentIndex.rename(rolled, first);
+            onSegmentRenamed(rolled, first);
+            if (!compressed && config.compression == FLCompression.GZIP) {
+                File plain = first;
+                first = FLCompression.compress(plain, backup(folder, 1, true));
+                onSegmentRenamed(plain, first);
+            }
+            backups[1] = first;
+            onSegmentAdded(first);
         }
 
-        private File getLogFile(@NonNull String folderName, @NonNull String fileName) throws FLLoggerException{
-            File folder = new File(folderName);
-            if (!folder.exists()) {
-                boolean r = folder.mkdirs();
-                if (!r){
-                    throw new FLLoggerException("folder mkdirs fail:" + folder.getAbsolutePath());
+        /**
+         * Maintenance thread only, runs once. Finds the existing backups and moves files
+         * a previous process renamed but never got to shift into the chain.
+         */
+        private void scan(@NonNull File folder) {
+            backups = new File[backupCount + 1];
+            for (int i = 1; i <= backupCount; i++) {
+                File compressed = backup(folder, i, true);
+                File plain = backup(folder, i, false);
+                if (compressed.exists()) {
+                    backups[i] = compressed;
+                } else if (plain.exists()) {
+                    backups[i] = plain;
                 }
             }
 
-            File newFile = new File(folder, fileName);
-            if (newFile.exists() && newFile.length() >= maxFileSize){
-                // 开始滚动
-                for(int i = backupCount - 1; i > 0; i--){
-                    File src = new File(folder, String.format(Locale.UK,"%s.%d", fileName, i));
-                    File dst = new File(folder, String.format(Locale.UK,"%s.%d", fileName, i+1));
-                    if (src.exists()){
-                        if (dst.exists()) dst.delete();
-                        src.renameTo(dst);
-                    }
+            String prefix = logName + ROLLING;
+            String own = String.format(Locale.UK, "%s%013d-", prefix, startTime);
+            String[] names = folder.list();
+            if (names == null) return;
+            final ArrayList<File> pending = new ArrayList<>();
+            for (String name : names) {
+                if (name.startsWith(prefix) && !name.startsWith(own) && !FLSegmentIndex.isSidecar(name)) {
+                    pending.add(new File(folder, name));
+                }
+            }
+
+            // oldest first by the time they were last written, a process that started later
+            // may have rolled over earlier. Every file is stat'ed once, not on every comparison
+            final long[] modified = new long[pending.size()];
+            Integer[] order = new Integer[pending.size()];
+            for (int i = 0; i < order.length; i++) {
+                modified[i] = pending.get(i).lastModified();
+                order[i] = i;
+            }
+            Arrays.sort(order, new Comparator<Integer>() {
+                @Override
+                public int compare(Integer o1, Integer o2) {
+                    if (modified[o1] != modified[o2]) return modified[o1] < modified[o2] ? -1 : 1;
+                    return pending.get(o1).getName().compareTo(pending.get(o2).getName());
                 }
-                File dst = new File(folder, String.format(Locale.UK,"%s.%d", fileName, 1));
-                if (dst.exists()) dst.delete();
-                newFile.renameTo(dst);
+            });
+            for (Integer i : order) {
+                shift(pending.get(i));
             }
+        }
+
+        private static boolean isCompressed(@NonNull File file) {
+            return file.getName().endsWith(FLCompression.EXTENSION);
+        }
 
-            return newFile;
+        @NonNull
+        private File backup(@NonNull File folder, int index, boolean compressed) {
+            return new File(folder, String.format(Locale.UK, "%s.%d%s",
+                    logName, index, compressed ? FLCompression.EXTENSION : ""));
         }
     }
 }
@@ -0,0 +1,284 @@
+package com.forkliu.base.logger;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+
+import static com.orhanobut.logger.Logger.ASSERT;
+import static com.orhanobut.logger.Logger.VERBOSE;
+
+/**
+ * Sparse side index of a CSV log segment, kept in "&lt;segment&gt;.idx" next to it (without
+ * the ".gz" of a compressed segment, so compressing doesn't touch it).
+ * <pre>
+ * file  = MAGIC block*
+ * block = start(8) end(8) min millis(8) max millis(8) count(4) per level VERBOSE..ASSERT
+ * </pre>
+ * A block covers {@code interval} records, offsets are into the uncompressed data. A block
+ * without records and {@code start == end} seals the segment: it was closed there, nothing
+ * follows. Blocks are appended once the data they cover is written, a cut off block at the
+ * end of the index is ignored. Data before the first block or after the last one, e.g. from
+ * before the index was turned on, isn't indexed and has to be scanned.
+ */
+final class FLSegmentIndex {
+    static final byte[] MAGIC = {'F', 'L', 'I', '1'};
+    static final String EXTENSION = ".idx";
+    static final int LEVELS = ASSERT - VERBOSE + 1;
+    static final int BLOCK_SIZE = 4 * 8 + 4 * LEVELS;
+
+    // block i is at offsets[2 * i] .. offsets[2 * i + 1], millis[2 * i] .. millis[2 * i + 1]
+    @NonNull final long[] offsets;
+    @NonNull final long[] millis;
+    @NonNull final int[] counts;
+    final int blocks;
+    final boolean sealed;
+
+    private FLSegmentIndex(@NonNull long[] offsets, @NonNull long[] millis, @NonNull int[] counts,
+                           int blocks, boolean sealed) {
+        this.offsets = offsets;
+        this.millis = millis;
+        this.counts = counts;
+        this.blocks = blocks;
+        this.sealed = sealed;
+    }
+
+    /**
+     * @return records of at least {@code minLevel} in block {@code i}
+     */
+    int count(int i, int minLevel) {
+        int sum = 0;
+        for (int level = Math.max(minLevel, VERBOSE); level <= ASSERT; level++) {
+            sum += counts[i * LEVELS + level - VERBOSE];
+        }
+        return sum;
+    }
+
+    @NonNull static File sidecar(@NonNull File segment) {
+        String name = segment.getName();
+        if (name.endsWith(FLCompression.EXTENSION)) {
+            name = name.substring(0, name.length() - FLCompression.EXTENSION.length());
+        }
+        return new File(segment.getParentFile(), name + EXTENSION);
+    }
+
+    static boolean isSidecar(@NonNull String name) {
+        return name.endsWith(EXTENSION);
+    }
+
+    /**
+     * Moves the index of {@code from} along with the segment, drops a stale one of {@code to}.
+     */
+    static void rename(@NonNull File from, @NonNull File to) {
+        File src = sidecar(from);
+        File dst = sidecar(to);
+        if (src.equals(dst)) return;
+        if (!src.renameTo(dst)) {
+            dst.delete();
+        }
+    }
+
+    static void delete(@NonNull File segment) {
+        sidecar(segment).delete();
+    }
+
+    /**
+     * @return the index of {@code segment}, null if it has none or it can't be read
+     */
+    @Nullable static FLSegmentIndex read(@NonNull File segment) {
+        File file = sidecar(segment);
+        long length = file.length();
+        if (length < MAGIC.length) return null;
+        int blocks = (int) Math.min(Integer.MAX_VALUE / BLOCK_SIZE, (length - MAGIC.length) / BLOCK_SIZE);
+        long[] offsets = new long[2 * blocks];
+        long[] millis = new long[2 * blocks];
+        int[] counts = new int[LEVELS * blocks];
+        boolean sealed = false;
+        DataInputStream in = null;
+        try {
+            in = new DataInputStream(new BufferedInputStream(new FileInputStream(file), 8 * 1024));
+            for (byte b : MAGIC) {
+                if (in.readByte() != b) return null;
+            }
+            for (int i = 0; i < blocks; i++) {
+                offsets[2 * i] = in.readLong();
+                offsets[2 * i + 1] = in.readLong();
+                millis[2 * i] = in.readLong();
+                millis[2 * i + 1] = in.readLong();
+                for (int l = 0; l < LEVELS; l++) {
+                    counts[i * LEVELS + l] = in.readInt();
+                }
+            }
+            if (blocks > 0 && offsets[2 * blocks - 2] == offsets[2 * blocks - 1]) {
+                sealed = true;
+                blocks--;
+            }
+        } catch (IOException e) {
+            return null;
+        } finally {
+            if (in != null) {
+                try {
+                    in.close();
+                } catch (IOException e) { /* fail silently */ }
+            }
+        }
+        return new FLSegmentIndex(offsets, millis, counts, blocks, sealed);
+    }
+
+    /**
+     * Writer thread side, builds the index of the active segment while it is written.
+     */
+    static final class Writer {
+        private final int interval;
+        @NonNull private final byte[] pending;
+        private int pendingLength;
+        @Nullable private FileOutputStream out;
+
+        // the block being filled
+        private long start;
+        private long end;
+        private long min;
+        private long max;
+        private int records;
+        @NonNull private final int[] counts = new int[LEVELS];
+
+        Writer(int interval) {
+            this.interval = interval;
+            // the blocks between two flushes, written out early if there are more
+            this.pending = new byte[16 * BLOCK_SIZE];
+        }
+
+        /**
+         * Called every time the segment was opened, {@code length} is what it holds already.
+         * Drops blocks that point past the data, which a crash can leave behind, and the seal.
+         */
+        void open(@NonNull File segment, long length) {
+            closeStream();
+            File file = sidecar(segment);
+            try {
+                if (length == 0 || file.length() < MAGIC.length) {
+                    out = new FileOutputStream(file);
+                    out.write(MAGIC);
+                } else {
+                    trim(file, length);
+                    out = new FileOutputStream(file, true);
+                }
+            } catch (IOException e) {
+                // the segment is written without an index from here on
+                closeStream();
+                file.delete();
+            }
+            records = 0;
+            pendingLength = 0;
+        }
+
+        private static void trim(@NonNull File file, long length) throws IOException {
+            RandomAccessFile raf = new RandomAccessFile(file, "rw");
+            try {
+                long blocks = (raf.length() - MAGIC.length) / BLOCK_SIZE;
+                while (blocks > 0) {
+                    raf.seek(MAGIC.length + (blocks - 1) * BLOCK_SIZE);
+                    long start = raf.readLong();
+                    long end = raf.readLong();
+                    if (end <= length && start != end) break;
+                    blocks--;
+                }
+                raf.setLength(MAGIC.length + blocks * BLOCK_SIZE);
+            } finally {
+                raf.close();
+            }
+        }
+
+        /**
+         * A CSV record was written at {@code offset}..{@code end}, it starts with its millis.
+         */
+        void add(long offset, long end, int level, @NonNull byte[] line, int len) {
+            if (out == null) return;
+            long time = 0;
+            for (int i = 0; i < len && line[i] >= '0' && line[i] <= '9'; i++) {
+                time = time * 10 + line[i] - '0';
+            }
+            if (records == 0) {
+                start = offset;
+                min = time;
+                max = time;
+                for (int l = 0; l < LEVELS; l++) {
+                    counts[l] = 0;
+                }
+            } else {
+                min = Math.min(min, time);
+                max = Math.max(max, time);
+            }
+            this.end = end;
+            if (level >= VERBOSE && level <= ASSERT) {
+                counts[level - VERBOSE]++;
+            }
+            if (++records == interval) {
+                endBlock();
+            }
+        }
+
+        private void endBlock() {
+            if (records == 0) return;
+            put(start, end, min, max, counts);
+            records = 0;
+        }
+
+        private void put(long start, long end, long min, long max, @Nullable int[] counts) {
+            if (pendingLength + BLOCK_SIZE > pending.length) {
+                // more blocks than expected without a flush, write them out now
+                flush();
+            }
+            int pos = pendingLength;
+            FLBinaryFormat.putLong(pending, pos, start);
+            FLBinaryFormat.putLong(pending, pos + 8, end);
+            FLBinaryFormat.putLong(pending, pos + 16, min);
+            FLBinaryFormat.putLong(pending, pos + 24, max);
+            for (int l = 0; l < LEVELS; l++) {
+                FLBinaryFormat.putInt(pending, pos + 32 + 4 * l, counts == null ? 0 : counts[l]);
+            }
+            pendingLength += BLOCK_SIZE;
+        }
+
+        /**
+         * The data of the finished blocks is in the file, append them to the index.
+         */
+        void flush() {
+            if (out == null || pendingLength == 0) return;
+            try {
+                out.write(pending, 0, pendingLength);
+            } catch (IOException e) {
+                closeStream();
+            }
+            pendingLength = 0;
+        }
+
+        /**
+         * @param sealed true if the segment was closed cleanly at {@code length}
+         */
+        void close(boolean sealed, long length) {
+            if (out != null && sealed) {
+                endBlock();
+                put(length, length, 0, 0, null);
+                flush();
+            }
+            closeStream();
+        }
+
+        @SuppressWarnings("checkstyle:emptyblock")
+        private void closeStream() {
+            if (out == null) return;
+            try {
+                out.close();
+            } catch (IOException e) { /* fail silently */ }
+            out = null;
+            pendingLength = 0;
+        }
+    }
+}
@@ -1,34 +1,31 @@
 package com.forkliu.base.logger;
 
-import android.os.Handler;
-import android.os.HandlerThread;
-
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 
 import com.orhanobut.logger.FormatStrategy;
 import com.orhanobut.logger.LogStrategy;
 
+import java.io.Closeable;
 import java.io.File;
+import java.io.Flushable;
 import java.text.SimpleDateFormat;
-import java.util.Date;
 import java.util.Locale;
 
 import static com.forkliu.base.logger.FLLogUtils.checkNotNull;
 
-public class FLTimedRotatingFormatStrategy implements FormatStrategy {
-    private static final String NEW_LINE = System.getProperty("line.separator");
-    private static final String NEW_LINE_REPLACEMENT = " <br> ";
-    private static final String SEPARATOR = ",";
-
-    @NonNull private final SimpleDateFormat dateFormat;
+public class FLTimedRotatingFormatStrategy implements FormatStrategy, Flushable, Closeable {
+    @NonNull private final FLCsvFormatter formatter;
     @NonNull private final LogStrategy logStrategy;
-    @Nullable private final String tag;
+    // set if the records go to a file strategy as binary records
+    @Nullable private final FLBinaryFormatter binaryFormatter;
 
     private FLTimedRotatingFormatStrategy(@NonNull Builder builder){
-        dateFormat = builder.dateFormat;
+        formatter = new FLCsvFormatter(builder.dateFormat, builder.tag);
         logStrategy = builder.logStrategy;
-        tag = builder.tag;
+        binaryFormatter = logStrategy instanceof FLFileLogStrategy
+                && ((FLFileLogStrategy) logStrategy).recordFormat() == FLRecordFormat.BINARY
+                ? new FLBinaryFormatter(builder.tag) : null;
     }
 
     @NonNull public static Builder newBuilder() {
@@ -37,49 +34,81 @@ public class FLTimedRotatingFormatStrategy implements FormatStrategy {
 
     @Override
     public void log(int priority, @Nullable String onceOnlyTag, @NonNull String message) {
-        checkNotNull(message);
-
-        String tag = formatTag(onceOnlyTag);
+        log(System.currentTimeMillis(), priority, onceOnlyTag, message);
+    }
 
-        Date date = new Date();
-        date.setTime(System.currentTimeMillis());
+    /**
+     * Same as {@link #log(int, String, String)} for a record that was logged at {@code millis}.
+     */
+    void log(long millis, int priority, @Nullable String onceOnlyTag, @NonNull String message) {
+        checkNotNull(message);
 
-        StringBuilder builder = new StringBuilder();
+        if (binaryFormatter != null) {
+            ((FLFileLogStrategy) logStrategy).log(priority, binaryFormatter.format(millis, priority, onceOnlyTag, message));
+            return;
+        }
+        FLRecordBuffer record = formatter.format(millis, priority, onceOnlyTag, message);
+        if (logStrategy instanceof FLFileLogStrategy) {
+            // hand over the encoded bytes, no String needed
+            ((FLFileLogStrategy) logStrategy).log(priority, record);
+        } else {
+            logStrategy.log(priority, formatter.formatTag(onceOnlyTag), record.toString());
+        }
+    }
 
-        // machine-readable date/time
-        builder.append(Long.toString(date.getTime()));
+    /**
+     * @return the file strategy the records go to, null for any other log strategy
+     */
+    @Nullable FLFileLogStrategy fileStrategy() {
+        return logStrategy instanceof FLFileLogStrategy ? (FLFileLogStrategy) logStrategy : null;
+    }
 
-        // human-readable date/time
-        builder.append(SEPARATOR);
-        builder.append(dateFormat.format(date));
+    boolean isBinary() {
+        return binaryFormatter != null;
+    }
 
-        // level
-        builder.append(SEPARATOR);
-        builder.append(FLLogUtils.logLevel(priority));
+    /**
+     * What the file writer has done so far, all zeros if the log strategy isn't one of the
+     * file strategies of this package.
+     */
+    @NonNull public FLLoggerStats getStats() {
+        return FLLoggerStats.create(0, metrics());
+    }
 
-        // tag
-        builder.append(SEPARATOR);
-        builder.append(tag);
+    @Nullable FLLoggerMetrics metrics() {
+        FLFileLogStrategy file = fileStrategy();
+        return file == null ? null : file.metrics();
+    }
 
-        // message
-        if (message.contains(NEW_LINE)) {
-            // a new line would break the CSV format, so we replace it here
-            message = message.replaceAll(NEW_LINE, NEW_LINE_REPLACEMENT);
+    /**
+     * Writes the records buffered by the file writer so far.
+     */
+    @Override
+    public void flush() {
+        if (logStrategy instanceof FLFileLogStrategy) {
+            ((FLFileLogStrategy) logStrategy).flush();
         }
-        builder.append(SEPARATOR);
-        builder.append(message);
-
-        // new line
-        builder.append(NEW_LINE);
+    }
 
-        logStrategy.log(priority, tag, builder.toString());
+    /**
+     * Blocks until the file writer wrote everything logged so far, at most {@code timeoutMillis}.
+     */
+    void sync(long timeoutMillis) {
+        FLFileLogStrategy file = fileStrategy();
+        if (file != null) {
+            file.sync(timeoutMillis);
+        }
     }
 
-    @Nullable private String formatTag(@Nullable String tag) {
-        if (!FLLogUtils.isEmpty(tag) && !FLLogUtils.equals(this.tag, tag)) {
-            return this.tag + "-" + tag;
+    /**
+     * Flushes and closes the log file. The writer thread belongs to the
+     * {@link FLLogWriterScheduler} and keeps running.
+     */
+    @Override
+    public void close() {
+        if (logStrategy instanceof FLFileLogStrategy) {
+            ((FLFileLogStrategy) logStrategy).close();
         }
-        return this.tag;
     }
 
     public static final class Builder {
@@ -93,11 +122,13 @@ public class FLTimedRotatingFormatStrategy implements FormatStrategy {
         public static final int UNIT_D = 24 * 60 * 60;
 
 
-        SimpleDateFormat dateFormat;
+        FLTimestampFormatter dateFormat;
         LogStrategy logStrategy;
         String tag;
         String logDir;
         String logName;
+        final FLWriterConfig writerConfig = new FLWriterConfig();
+        FLLogWriterScheduler scheduler;
         int backupCount = 0;
         int when = D;
         int interval = 1;
@@ -107,6 +138,11 @@ public class FLTimedRotatingFormatStrategy implements FormatStrategy {
 
 
         @NonNull public Builder dateFormat(@Nullable SimpleDateFormat val) {
+            dateFormat = val == null ? null : new FLTimestampFormatter(val);
+            return this;
+        }
+
+        @NonNull public Builder dateFormat(@Nullable FLTimestampFormatter val) {
             dateFormat = val;
             return this;
         }
@@ -131,6 +167,102 @@ public class FLTimedRotatingFormatStrategy implements FormatStrategy {
             return this;
         }
 
+        /**
+         * Buffered output is written to the file once it reaches this many bytes.
+         */
+        @NonNull public Builder flushBytes(int val) {
+            writerConfig.flushBytes = val;
+            return this;
+        }
+
+        /**
+         * Buffered output is written to the file at the latest after this many milliseconds.
+         * ERROR and ASSERT records are always written right away.
+         */
+        @NonNull public Builder flushInterval(long millis) {
+            writerConfig.flushInterval = millis;
+            return this;
+        }
+
+        /**
+         * Maximum number of records the writer thread handles in one pass.
+         */
+        @NonNull public Builder batchSize(int val) {
+            writerConfig.batchSize = val;
+            return this;
+        }
+
+        /**
+         * How long the writer thread waits for more records before it writes a batch,
+         * 0 writes as soon as possible. ERROR and ASSERT records never wait.
+         */
+        @NonNull public Builder linger(long millis) {
+            writerConfig.linger = millis;
+            return this;
+        }
+
+        /**
+         * How records get from the logging threads to the writer thread,
+         * {@link FLLogTransport#queue()} by default.
+         */
+        @NonNull public Builder transport(@Nullable FLLogTransport val) {
+            writerConfig.transport = val;
+            return this;
+        }
+
+        /**
+         * {@link FLCompression#NONE} (default), {@link FLCompression#GZIP} or
+         * {@link FLCompression#GZIP_STREAM}. Compressed segments get a ".gz" suffix.
+         */
+        @NonNull public Builder compression(int val) {
+            writerConfig.compression = val;
+            return this;
+        }
+
+        /**
+         * {@link FLRecordFormat#CSV} (default) or {@link FLRecordFormat#BINARY}. Only used by the
+         * file strategies of this package, any other log strategy gets the CSV line.
+         */
+        @NonNull public Builder recordFormat(int val) {
+            writerConfig.recordFormat = val;
+            return this;
+        }
+
+        /**
+         * Indexes every segment in blocks of this many records, 0 (default) for no index.
+         * {@link FLLogQuery} uses the index to read only the blocks of a time range. Only for
+         * the CSV record format, and not with {@link FLCompression#GZIP_STREAM}.
+         */
+        @NonNull public Builder indexInterval(int records) {
+            writerConfig.indexInterval = records;
+            return this;
+        }
+
+        /**
+         * When the written records are forced to storage, {@link FLDurability#none()} by default.
+         */
+        @NonNull public Builder durability(@Nullable FLDurability val) {
+            writerConfig.durability = val;
+            return this;
+        }
+
+        /**
+         * Shares a limit on the size and age of the rolled segments with the other strategies
+         * that get the same budget. None by default.
+         */
+        @NonNull public Builder diskBudget(@Nullable FLDiskBudget val) {
+            writerConfig.diskBudget = val;
+            return this;
+        }
+
+        /**
+         * The writer threads to run on, {@link FLLogWriterScheduler#getDefault()} by default.
+         */
+        @NonNull public Builder scheduler(@Nullable FLLogWriterScheduler val) {
+            this.scheduler = val;
+            return this;
+        }
+
         @NonNull public Builder backupCount(int val) {
             this.backupCount = val;
             return this;
@@ -150,7 +282,7 @@ public class FLTimedRotatingFormatStrategy implements FormatStrategy {
                 throw new FLLoggerException("logDir is null");
             }
             if (dateFormat == null) {
-                dateFormat = new SimpleDateFormat("yyyy.MM.dd HH:mm:ss.SSS", Locale.CHINA);
+                dateFormat = new FLTimestampFormatter("yyyy.MM.dd HH:mm:ss.SSS", Locale.CHINA);
             }
             if (logName == null){
                 logName = "flog.log";
@@ -161,20 +293,47 @@ public class FLTimedRotatingFormatStrategy implements FormatStrategy {
             if (interval <= 0) interval = 1;
             if (!(when >= S && when <= D)) when = D;
 
+            writerConfig.applyDefaults();
+            // the offsets into a gzip stream that was opened again would count compressed bytes
+            if (writerConfig.indexInterval > 0 && (writerConfig.recordFormat == FLRecordFormat.BINARY
+                    || writerConfig.compression == FLCompression.GZIP_STREAM)) {
+                throw new FLLoggerException("only CSV segments that aren't compressed while they are "
+                        + "written can be indexed");
+            }
+
+            // the date format is built off the calling thread, ahead of the first record
+            final FLTimestampFormatter timestamps = dateFormat;
+            FLLogMaintenance.execute(new Runnable() {
+                @Override
+                public void run() {
+                    timestamps.prepare();
+                }
+            });
+
             if (logStrategy == null) {
-                String folder = logDir + File.separatorChar + "logger";
-
-                HandlerThread ht = new HandlerThread("AndroidFileLogger." + folder);
-                ht.start();
-                Handler handler = new FLTimedRotatingStrategy.WriteHandler(
-                        ht.getLooper(),
-                        folder,
-                        logName,
-                        backupCount,
-                        when,
-                        interval
-                );
-                logStrategy = new FLTimedRotatingStrategy(handler);
+                // so are the writer thread and the files
+                final String folder = logDir + File.separatorChar + "logger";
+                final FLLogWriterScheduler scheduler = this.scheduler;
+                final String logName = this.logName;
+                final int backupCount = this.backupCount;
+                final int when = this.when;
+                final int interval = this.interval;
+                final FLWriterConfig writerConfig = this.writerConfig;
+                logStrategy = new FLTimedRotatingStrategy(writerConfig, new FLFileLogStrategy.HandlerFactory() {
+                    @NonNull
+                    @Override
+                    public FLFileWriteHandler create() {
+                        return new FLTimedRotatingStrategy.WriteHandler(
+                                (scheduler != null ? scheduler : FLLogWriterScheduler.getDefault()).nextWorker(),
+                                folder,
+                                logName,
+                                backupCount,
+                                when,
+                                interval,
+                                writerConfig
+                        );
+                    }
+                });
             }
             return new FLTimedRotatingFormatStrategy(this);
         }
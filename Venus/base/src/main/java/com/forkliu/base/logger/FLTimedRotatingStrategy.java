@@ -1,211 +1,203 @@
 package com.forkliu.base.logger;
 
-import android.os.Handler;
-import android.os.Looper;
 import android.os.Message;
 
 import androidx.annotation.NonNull;
-import androidx.annotation.Nullable;
-
-import com.orhanobut.logger.LogStrategy;
 
 import java.io.File;
-import java.io.FileWriter;
 import java.io.FilenameFilter;
-import java.io.IOException;
-import java.text.SimpleDateFormat;
+import java.util.ArrayDeque;
 import java.util.Arrays;
 import java.util.Comparator;
-import java.util.Date;
 import java.util.Locale;
 
-import static com.forkliu.base.logger.FLTimedRotatingFormatStrategy.Builder.D;
-import static com.forkliu.base.logger.FLTimedRotatingFormatStrategy.Builder.H;
-import static com.forkliu.base.logger.FLTimedRotatingFormatStrategy.Builder.M;
-import static com.forkliu.base.logger.FLTimedRotatingFormatStrategy.Builder.S;
-import static com.forkliu.base.logger.FLTimedRotatingFormatStrategy.Builder.UNIT_D;
-import static com.forkliu.base.logger.FLTimedRotatingFormatStrategy.Builder.UNIT_H;
-import static com.forkliu.base.logger.FLTimedRotatingFormatStrategy.Builder.UNIT_M;
-import static com.forkliu.base.logger.FLTimedRotatingFormatStrategy.Builder.UNIT_S;
-
-class FLTimedRotatingStrategy implements LogStrategy {
-    @NonNull
-    private Handler handler;
-
-    public FLTimedRotatingStrategy(@NonNull Handler handler) {
-        this.handler = handler;
-    }
+class FLTimedRotatingStrategy extends FLFileLogStrategy {
 
-    @Override
-    public void log(int level, @Nullable String tag, @NonNull String message) {
-        // do nothing on the calling thread, simply pass the tag/msg to the background thread
-        handler.sendMessage(handler.obtainMessage(level, message));
+    public FLTimedRotatingStrategy(@NonNull WriteHandler handler) {
+        super(handler);
     }
 
-    static class WriteHandler extends Handler {
+    FLTimedRotatingStrategy(@NonNull FLWriterConfig config, @NonNull HandlerFactory factory) {
+        super(config, factory);
+    }
 
-        private String folder;
-        private String logName;
-        private int backupCount;
-        private long lastRollTimestamp = System.currentTimeMillis(); // ms
-        private long rollInterval = 0;
-        private String suffix;
-        private SimpleDateFormat suffixFormat;
+    /**
+     * Rolls over on the boundaries of a {@link FLRollPeriod}, aligned to the clock.
+     * <p>
+     * The next boundary is computed once per segment, so the check for every record is one
+     * comparison. A MSG_ROLLOVER wake-up at the boundary rolls the file over even if nothing
+     * is logged after it.
+     */
+    static class WriteHandler extends FLFileWriteHandler {
+        private static final int MSG_ROLLOVER = 0x110;
+
+        final int backupCount;
+        @NonNull final FLRollPeriod period;
+        // the active file holds the records since segmentStart, it is rolled over at rolloverAt
+        long segmentStart; // ms
+        private long rolloverAt; // ms
+        // rolled segments oldest first, maintenance thread only, null until the folder was listed
+        private ArrayDeque<File> segments;
 
         WriteHandler(
-                @NonNull Looper looper,
+                @NonNull FLLogWriterScheduler.Worker worker,
                 @NonNull String folder,
                 String logName,
                 int backupCount,
                 int when,
-                int interval
+                int interval,
+                @NonNull FLWriterConfig config
         ) {
-            super(looper);
-            this.folder = folder;
-            this.logName = logName;
+            super(worker, folder, logName, config);
             this.backupCount = backupCount;
-            switch (when){
-                case S:
-                    rollInterval = UNIT_S * interval * 1000;
-                    suffixFormat = new SimpleDateFormat("yyyy-MM-dd_HH-mm-ss",Locale.CHINA);
-                    suffix = "^\\d{4}-\\d{2}-\\d{2}_\\d{2}-\\d{2}-\\d{2}$";
-                    break;
-                case M:
-                    rollInterval = UNIT_M * interval * 1000;
-                    suffixFormat = new SimpleDateFormat("yyyy-MM-dd_HH-mm",Locale.CHINA);
-                    suffix = "^\\d{4}-\\d{2}-\\d{2}_\\d{2}-\\d{2}$";
-                    break;
-                case H:
-                    rollInterval = UNIT_H * interval * 1000;
-                    suffixFormat = new SimpleDateFormat("yyyy-MM-dd_HH",Locale.CHINA);
-                    suffix = "^\\d{4}-\\d{2}-\\d{2}_\\d{2}$";
-                    break;
-                case D:
-                    rollInterval = UNIT_D * interval * 1000;
-                    suffixFormat = new SimpleDateFormat("yyyy-MM-dd",Locale.CHINA);
-                    suffix = "^\\d{4}-\\d{2}-\\d{2}$";
-                    break;
-                default:
-                    rollInterval = UNIT_D * 1000;
-                    suffixFormat = new SimpleDateFormat("yyyy-MM-dd",Locale.CHINA);
-                    suffix = "^\\d{4}-\\d{2}-\\d{2}$";
-                    break;
-            }
+            this.period = new FLRollPeriod(when, interval);
+            segmentStart = System.currentTimeMillis();
+            rolloverAt = period.next(segmentStart);
         }
 
-        @SuppressWarnings("checkstyle:emptyblock")
         @Override
         public void handleMessage(@NonNull Message msg) {
-            String content = (String) msg.obj;
-
-            FileWriter fileWriter = null;
-            File logFile;
-            try {
-                logFile = getLogFile(folder, logName);
-            }catch (Exception e){
-                e.printStackTrace();
+            if (msg.what != MSG_ROLLOVER) {
+                super.handleMessage(msg);
+                return;
+            }
+            if (System.currentTimeMillis() < rolloverAt) {
+                // the clock was set back
+                scheduleRollover();
                 return;
             }
+            rolloverIfDue();
+        }
 
-            try {
-                fileWriter = new FileWriter(logFile, true);
-                writeLog(fileWriter, content);
-                fileWriter.flush();
-                fileWriter.close();
-            } catch (IOException e) {
-                if (fileWriter != null) {
-                    try {
-                        fileWriter.flush();
-                        fileWriter.close();
-                    } catch (IOException e1) { /* fail silently */ }
-                }
+        @Override
+        void onOpen(@NonNull FLLogWriter writer) {
+            long now = System.currentTimeMillis();
+            if (writer.length() == 0) {
+                segmentStart = now;
+            } else {
+                // 取最小的时间, the file may be left over from an earlier period
+                segmentStart = Math.min(segmentStart, writer.getFile().lastModified());
             }
+            rolloverAt = period.next(segmentStart);
+            scheduleRollover();
         }
 
-        /**
-         * This is always called on a single background thread.
-         * Implementing classes must ONLY write to the fileWriter and nothing more.
-         * The abstract class takes care of everything else including close the stream and catching IOException
-         *
-         * @param fileWriter an instance of FileWriter already initialised to the correct file
-         */
-        private void writeLog(@NonNull FileWriter fileWriter, @NonNull String content) throws IOException {
-            fileWriter.append(content);
+        @Override
+        boolean shouldRollover(@NonNull FLLogWriter writer, int nextLength) {
+            long now = System.currentTimeMillis();
+            if (now < rolloverAt) return false;
+            if (writer.length() > 0) return true;
+            // nothing to roll over, the empty file starts the new period
+            segmentStart = now;
+            rolloverAt = period.next(now);
+            scheduleRollover();
+            return false;
+        }
+
+        private void scheduleRollover() {
+            removeMessages(MSG_ROLLOVER);
+            sendEmptyMessageDelayed(MSG_ROLLOVER, Math.max(0, rolloverAt - System.currentTimeMillis()));
+        }
+
+        @Override
+        void doRollover(@NonNull File folder, @NonNull File logFile) {
+            // one rename on the writer thread, old segments are deleted in the background
+            final File dst = new File(folder,String.format(Locale.UK,"%s.%s%s",logName,period.format(segmentStart),
+                    activeName.substring(logName.length())));
+            if (!logFile.renameTo(dst)) return;
+            FLSegmentIndex.rename(logFile, dst);
+
+            FLLogMaintenance.execute(new Runnable() {
+                @Override
+                public void run() {
+                    File rolled = dst;
+                    if (config.compression == FLCompression.GZIP) {
+                        rolled = FLCompression.compress(dst, new File(dst.getPath() + FLCompression.EXTENSION));
+                    }
+                    onSegmentAdded(rolled);
+                    deleteFiles(rolled);
+                }
+            });
         }
 
         private static final class MyFileFilter implements FilenameFilter {
             private String prefix;
-            private String suffix;
-            public MyFileFilter(String prefix,String suffix){
+            private FLRollPeriod period;
+            public MyFileFilter(String prefix,FLRollPeriod period){
                 this.prefix = prefix;
-                this.suffix = suffix;
+                this.period = period;
             }
 
             @Override
             public boolean accept(File dir, String filename) {
-                if (filename.startsWith(prefix)){
-                    int index = filename.lastIndexOf(".");
-                    if (index > 0) {
-                        String suffix = filename.substring(index + 1);
-                        if (suffix.matches(this.suffix)){
-                            return true;
-                        }
+                // logName.<period>, not the segments of a log whose name starts with logName
+                if (filename.startsWith(prefix + ".")){
+                    String suffix = filename.substring(prefix.length() + 1);
+                    if (suffix.endsWith(FLCompression.EXTENSION)) {
+                        suffix = suffix.substring(0, suffix.length() - FLCompression.EXTENSION.length());
                     }
+                    return period.matches(suffix);
                 }
                 return false;
             }
         }
 
-        private void deleteFiles(){
-            File dir = new File(folder);
-            File[] files = dir.listFiles(new MyFileFilter(logName,suffix));
-            if (files == null || files.length <= backupCount) return;
-            Arrays.sort(files, new Comparator<File>() {
-                @Override
-                public int compare(File o1, File o2) {
-                    // 升序
-                    if (o1.lastModified() > o2.lastModified()) return 1;
-                    else if (o1.lastModified() < o2.lastModified()) return -1;
-                    else return 0;
-                }
-            });
-            int deleteCount = files.length - backupCount;
-            for (int i = 0; i < deleteCount; i++){
-                files[i].delete();
-            }
+        @Override
+        boolean isSegment(@NonNull String name) {
+            return new MyFileFilter(logName, period).accept(null, name);
+        }
 
+        @Override
+        void onSegmentEvicted(@NonNull File segment) {
+            if (segments != null) segments.remove(segment);
         }
 
-        private File getLogFile(@NonNull String folderName, @NonNull String fileName) throws FLLoggerException{
-            File folder = new File(folderName);
-            if (!folder.exists()) {
-                boolean r = folder.mkdirs();
-                if (!r){
-                    throw new FLLoggerException("folder mkdirs fail:" + folder.getAbsolutePath());
-                }
+        /**
+         * Maintenance thread only. The folder is listed the first time, after that the
+         * rolled segments are tracked in {@link #segments}, oldest first.
+         */
+        private void deleteFiles(@NonNull File rolled){
+            if (segments == null) {
+                segments = scan(rolled.getParentFile());
+            } else {
+                // the same suffix can come up twice, the rename replaced the old file
+                segments.remove(rolled);
+                segments.addLast(rolled);
+            }
+            while (segments.size() > backupCount) {
+                File segment = segments.pollFirst();
+                segment.delete();
+                FLSegmentIndex.delete(segment);
+                onSegmentDeleted(segment);
             }
+        }
 
-            File newFile = new File(folder, fileName);
-            if (newFile.exists()){
-                long currentTimestamp = System.currentTimeMillis();
-                long lastModifyTimestamp = newFile.lastModified();
-                if (lastRollTimestamp > lastModifyTimestamp){
-                    // 取最小的时间
-                    lastRollTimestamp = lastModifyTimestamp;
-                }
-                if (currentTimestamp - lastRollTimestamp >= rollInterval){
-                    // 开始滚动
-                    Date date = new Date(lastRollTimestamp);
-                    File dst = new File(folder,String.format(Locale.UK,"%s.%s",fileName,suffixFormat.format(date)));
-                    if (dst.exists()) dst.delete();
-                    newFile.renameTo(dst);
-                    lastRollTimestamp = currentTimestamp;
-
-                    deleteFiles();
+        @NonNull
+        private ArrayDeque<File> scan(@NonNull File dir) {
+            ArrayDeque<File> result = new ArrayDeque<>();
+            File[] files = dir.listFiles(new MyFileFilter(logName,period));
+            if (files == null) return result;
+
+            // stat every file once, not on every comparison
+            final long[] modified = new long[files.length];
+            Integer[] order = new Integer[files.length];
+            for (int i = 0; i < files.length; i++) {
+                modified[i] = files[i].lastModified();
+                order[i] = i;
+            }
+            Arrays.sort(order, new Comparator<Integer>() {
+                @Override
+                public int compare(Integer o1, Integer o2) {
+                    // 升序
+                    if (modified[o1] > modified[o2]) return 1;
+                    else if (modified[o1] < modified[o2]) return -1;
+                    else return 0;
                 }
-
+            });
+            for (Integer i : order) {
+                result.addLast(files[i]);
             }
-            return newFile;
+            return result;
         }
     }
 }
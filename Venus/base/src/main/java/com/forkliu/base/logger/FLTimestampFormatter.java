@@ -0,0 +1,176 @@
+package com.forkliu.base.logger;
+
+import androidx.annotation.NonNull;
+
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Thread safe replacement for a shared {@link SimpleDateFormat} in the file format strategies.
+ * <p>
+ * The date is formatted once per second and published as an immutable snapshot through an
+ * {@link AtomicReference}; every other call in that second only patches in the milliseconds.
+ * When the second changes, the first thread to notice formats it with its own clone of the
+ * pattern, so no thread ever waits on a lock. Patterns that print the milliseconds in a way
+ * that can't be patched (for example "S") fall back to formatting every call, still with
+ * per-thread clones.
+ * <p>
+ * Created from a pattern, the {@link SimpleDateFormat} is only built by the first call to
+ * {@link #format(long)}, which usually happens on a writer thread rather than at launch.
+ * <pre>
+ * FLRotatingFormatStrategy.newBuilder()
+ *         .dateFormat(new FLTimestampFormatter("yyyy-MM-dd HH:mm:ss.SSS", Locale.US))
+ * </pre>
+ */
+public final class FLTimestampFormatter {
+    private static final int MILLIS_NONE = -1;
+    private static final int MILLIS_UNCACHEABLE = -2;
+
+    private final String pattern;
+    private final Locale locale;
+    private volatile SimpleDateFormat template;
+    @NonNull private final AtomicReference<Second> cache = new AtomicReference<>();
+    @NonNull private final ThreadLocal<SimpleDateFormat> formats = new ThreadLocal<SimpleDateFormat>() {
+        @Override protected SimpleDateFormat initialValue() {
+            return (SimpleDateFormat) template().clone();
+        }
+    };
+
+    /**
+     * @throws IllegalArgumentException if the pattern is invalid, only checked by the first
+     *         call to {@link #format(long)}
+     */
+    public FLTimestampFormatter(@NonNull String pattern, @NonNull Locale locale) {
+        this.pattern = pattern;
+        this.locale = locale;
+    }
+
+    /**
+     * @param format used as a template only, the formatter works on its own copies
+     */
+    public FLTimestampFormatter(@NonNull SimpleDateFormat format) {
+        this.pattern = null;
+        this.locale = null;
+        this.template = (SimpleDateFormat) format.clone();
+    }
+
+    /**
+     * Builds the date format and formats the current second, so the first record logged
+     * doesn't have to. Called on the {@link FLLogMaintenance} thread by the builders.
+     */
+    void prepare() {
+        second(System.currentTimeMillis());
+    }
+
+    @NonNull private SimpleDateFormat template() {
+        SimpleDateFormat format = template;
+        if (format == null) {
+            // two threads may both build one, they are equal
+            format = new SimpleDateFormat(pattern, locale);
+            template = format;
+        }
+        return format;
+    }
+
+    @NonNull public String format(long millis) {
+        Second second = second(millis);
+        if (second.millisOffset == MILLIS_NONE) {
+            return second.text;
+        }
+        if (second.millisOffset == MILLIS_UNCACHEABLE) {
+            return formats.get().format(new Date(millis));
+        }
+        char[] chars = second.text.toCharArray();
+        putMillis(chars, second.millisOffset, millisOf(millis));
+        return new String(chars);
+    }
+
+    /**
+     * Appends the formatted time without allocating, except for uncacheable patterns.
+     */
+    void format(long millis, @NonNull FLRecordBuffer buffer) {
+        Second second = second(millis);
+        String text = second.text;
+        int offset = second.millisOffset;
+        if (offset == MILLIS_NONE) {
+            buffer.append(text);
+        } else if (offset == MILLIS_UNCACHEABLE) {
+            buffer.append(formats.get().format(new Date(millis)));
+        } else {
+            buffer.append(text, 0, offset);
+            buffer.appendPadded(millisOf(millis), 3);
+            buffer.append(text, offset + 3, text.length());
+        }
+    }
+
+    @NonNull private Second second(long millis) {
+        long epochSecond = epochSecondOf(millis);
+        Second second = cache.get();
+        if (second == null || second.epochSecond != epochSecond) {
+            second = Second.create(formats.get(), epochSecond);
+            // a thread still in the previous second may overwrite this, the next call fixes it
+            cache.set(second);
+        }
+        return second;
+    }
+
+    private static long epochSecondOf(long millis) {
+        long second = millis / 1000;
+        if (millis < 0 && millis % 1000 != 0) second--;
+        return second;
+    }
+
+    private static int millisOf(long millis) {
+        return (int) (millis - epochSecondOf(millis) * 1000);
+    }
+
+    private static void putMillis(@NonNull char[] chars, int offset, int millis) {
+        chars[offset] = (char) ('0' + millis / 100);
+        chars[offset + 1] = (char) ('0' + millis / 10 % 10);
+        chars[offset + 2] = (char) ('0' + millis % 10);
+    }
+
+    private static final class Second {
+        final long epochSecond;
+        @NonNull final String text;
+        final int millisOffset;
+
+        private Second(long epochSecond, @NonNull String text, int millisOffset) {
+            this.epochSecond = epochSecond;
+            this.text = text;
+            this.millisOffset = millisOffset;
+        }
+
+        /**
+         * Formats the start of the second twice with different milliseconds to find out
+         * where, if anywhere, the pattern prints them.
+         */
+        @NonNull static Second create(@NonNull SimpleDateFormat format, long epochSecond) {
+            Date date = new Date(epochSecond * 1000);
+            String start = format.format(date);
+            date.setTime(epochSecond * 1000 + 987);
+            String probe = format.format(date);
+
+            if (start.equals(probe)) {
+                return new Second(epochSecond, start, MILLIS_NONE);
+            }
+            if (start.length() == probe.length()) {
+                int first = -1;
+                int last = -1;
+                for (int i = 0; i < start.length(); i++) {
+                    if (start.charAt(i) != probe.charAt(i)) {
+                        if (first < 0) first = i;
+                        last = i;
+                    }
+                }
+                if (last - first == 2 && start.regionMatches(first, "000", 0, 3)
+                        && probe.regionMatches(first, "987", 0, 3)) {
+                    return new Second(epochSecond, start, first);
+                }
+            }
+            return new Second(epochSecond, start, MILLIS_UNCACHEABLE);
+        }
+    }
+}
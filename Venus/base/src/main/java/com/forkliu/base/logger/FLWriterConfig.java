@@ -0,0 +1,64 @@
+package com.forkliu.base.logger;
+
+/**
+ * Tuning values shared by the file write handlers, filled in by the format strategy builders.
+ */
+final class FLWriterConfig {
+    static final int FLUSH_BYTES = 8 * 1024;
+    static final long FLUSH_INTERVAL = 1000; // ms
+    static final int BATCH_SIZE = 128;
+    static final long LINGER = 10; // ms
+
+    // 缓冲区大小，缓冲的数据达到这个大小就写入文件
+    int flushBytes = 0;
+    // 缓冲的数据最多等待多久写入文件
+    long flushInterval = 0;
+    // 写线程每次最多处理的日志条数
+    int batchSize = 0;
+    // 收到第一条日志后等待多久再开始批量写入，0表示立即写入
+    long linger = -1;
+    // 日志线程把日志交给写线程的方式
+    FLLogTransport transport;
+    // 日志文件的压缩方式，见FLCompression
+    int compression = FLCompression.NONE;
+    // 日志记录的存储格式，见FLRecordFormat
+    int recordFormat = FLRecordFormat.CSV;
+    // 每多少条日志写一个索引块，0表示不写索引，见FLSegmentIndex
+    int indexInterval = 0;
+    // 什么时候把写入的数据强制落盘，见FLDurability
+    FLDurability durability;
+    // 所有日志目录共享的磁盘配额，可以为空，见FLDiskBudget
+    FLDiskBudget diskBudget;
+    // 多个进程写同一个日志文件，见FLProcessLock
+    boolean multiProcess;
+
+    void applyDefaults() {
+        if (flushBytes <= 0) {
+            flushBytes = FLUSH_BYTES;
+        }
+        if (flushInterval <= 0) {
+            flushInterval = FLUSH_INTERVAL;
+        }
+        if (batchSize <= 0) {
+            batchSize = BATCH_SIZE;
+        }
+        if (linger < 0) {
+            linger = LINGER;
+        }
+        if (transport == null) {
+            transport = FLLogTransport.queue();
+        }
+        if (compression != FLCompression.GZIP && compression != FLCompression.GZIP_STREAM) {
+            compression = FLCompression.NONE;
+        }
+        if (recordFormat != FLRecordFormat.BINARY) {
+            recordFormat = FLRecordFormat.CSV;
+        }
+        if (indexInterval < 0) {
+            indexInterval = 0;
+        }
+        if (durability == null) {
+            durability = FLDurability.none();
+        }
+    }
+}
@@ -0,0 +1,223 @@
+package com.forkliu.base.logger;
+
+import com.orhanobut.logger.Logger;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Locale;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Records encoded by {@link FLBinaryFormatter} and {@link FLBinarySegmentEncoder} decode to
+ * the bytes {@link FLCsvFormatter} would have written.
+ */
+public class FLBinaryLogDecoderTest {
+    private static final String PATTERN = "yyyy.MM.dd HH:mm:ss.SSS";
+    private static final String PREFIX = "LogTestThread::run|";
+    private static final long NOW = 1603000000000L;
+
+    private final FLBinaryFormatter binary = new FLBinaryFormatter("Venus");
+    private final FLCsvFormatter csv = new FLCsvFormatter(
+            new FLTimestampFormatter(PATTERN, Locale.CHINA), "Venus", "\n");
+    private final FLBinarySegmentEncoder encoder = new FLBinarySegmentEncoder();
+    private final MemoryWriter file = new MemoryWriter();
+    private final ByteArrayOutputStream expected = new ByteArrayOutputStream();
+
+    @Test
+    public void decode_roundTrip() throws IOException {
+        encoder.start(file);
+        String[] tags = {null, "Venus", "Net", "Db", ""};
+        String[] messages = {
+                "",
+                "no digits at all, the whole message is the prefix",
+                "x1",
+                "first\nsecond\n",
+                "中文日志 42 ünïcödé",
+                "emoji 😀 7",
+        };
+        long millis = NOW;
+        int i = 0;
+        for (String message : messages) {
+            for (String tag : tags) {
+                // back and forth in time
+                millis += (i++ % 3 == 0) ? -1500 : 733;
+                write(millis, Logger.INFO + i % 3, tag, message);
+                write(millis, Logger.DEBUG, tag, message);
+            }
+        }
+        assertDecodes();
+    }
+
+    @Test
+    public void decode_internedPrefixes() throws IOException {
+        encoder.start(file);
+        for (int i = 0; i < 100; i++) {
+            write(NOW + i, Logger.DEBUG, null, PREFIX + i);
+            write(NOW + i, Logger.DEBUG, "Net", "request " + i + " done");
+        }
+        assertDecodes();
+        // inline the first time, defined the second, every later record only has the id
+        assertEquals(2, count(file.bytes(), PREFIX));
+        assertEquals(1, count(file.bytes(), "Venus-Net"));
+    }
+
+    @Test
+    public void decode_tablesResetWithEveryFile() throws IOException {
+        encoder.start(file);
+        write(NOW, Logger.INFO, "Net", PREFIX + 1);
+        write(NOW + 1, Logger.INFO, "Net", PREFIX + 2);
+
+        // the next segment has to define its tags and prefixes again
+        MemoryWriter next = new MemoryWriter();
+        expected.reset();
+        encoder.start(next);
+        write(next, NOW + 2, Logger.INFO, "Net", PREFIX + 3);
+        write(next, NOW + 3, Logger.INFO, "Net", PREFIX + 4);
+        write(next, NOW + 4, Logger.INFO, "Net", PREFIX + 5);
+        assertArrayEquals(expected.toByteArray(), decode(next.bytes()));
+    }
+
+    @Test
+    public void decode_appendsToAnExistingFile() throws IOException {
+        encoder.start(file);
+        write(NOW, Logger.INFO, "Net", PREFIX + 1);
+        write(NOW + 1, Logger.INFO, "Net", PREFIX + 2);
+
+        // reopened after a restart, no second header
+        FLBinarySegmentEncoder reopened = new FLBinarySegmentEncoder();
+        reopened.start(file);
+        write(reopened, file, NOW - 5000, Logger.WARN, "Net", PREFIX + 3);
+        write(reopened, file, NOW - 4999, Logger.WARN, "Net", PREFIX + 4);
+        assertDecodes();
+    }
+
+    @Test
+    public void decode_skipsTruncatedAndZeroTail() throws IOException {
+        encoder.start(file);
+        write(NOW, Logger.INFO, "Net", PREFIX + 1);
+        byte[] complete = expected.toByteArray();
+        int length = file.bytes().length;
+        write(NOW + 1, Logger.INFO, "Net", PREFIX + 2);
+        write(NOW + 2, Logger.INFO, "Net", PREFIX + 3);
+        byte[] bytes = file.bytes();
+
+        // every cut inside the second record leaves the first
+        for (int cut = length; cut < bytes.length - 1; cut++) {
+            byte[] truncated = Arrays.copyOf(bytes, cut);
+            byte[] lines = decode(truncated);
+            assertTrue(lines.length >= complete.length);
+            assertArrayEquals(complete, Arrays.copyOf(lines, complete.length));
+        }
+
+        // a mapped file that was never truncated
+        byte[] zeroTail = Arrays.copyOf(bytes, bytes.length + 4096);
+        assertArrayEquals(expected.toByteArray(), decode(zeroTail));
+    }
+
+    @Test(expected = IOException.class)
+    public void decode_rejectsCsvFiles() throws IOException {
+        decode("1603000000000,2020.10.18 13:46:40.000,I,Venus,hello\n".getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void isBinary() throws IOException {
+        encoder.start(file);
+        byte[] header = file.bytes();
+        assertTrue(FLBinaryLogDecoder.isBinary(header, header.length));
+        assertFalse(FLBinaryLogDecoder.isBinary(header, header.length - 1));
+        assertFalse(FLBinaryLogDecoder.isBinary(new byte[header.length], header.length));
+    }
+
+    private void write(long millis, int priority, String tag, String message) throws IOException {
+        write(encoder, file, millis, priority, tag, message);
+    }
+
+    private void write(MemoryWriter writer, long millis, int priority, String tag, String message) throws IOException {
+        write(encoder, writer, millis, priority, tag, message);
+    }
+
+    private void write(FLBinarySegmentEncoder encoder, MemoryWriter writer, long millis, int priority,
+                       String tag, String message) throws IOException {
+        FLRecordBuffer raw = binary.format(millis, priority, tag, message);
+        encoder.write(writer, raw.bytes, raw.byteCount);
+        FLRecordBuffer line = csv.format(millis, priority, tag, message);
+        expected.write(line.bytes, 0, line.byteCount);
+    }
+
+    private void assertDecodes() throws IOException {
+        assertArrayEquals(expected.toByteArray(), decode(file.bytes()));
+    }
+
+    private static byte[] decode(byte[] bytes) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        new FLBinaryLogDecoder(new FLTimestampFormatter(PATTERN, Locale.CHINA))
+                .decode(new ByteArrayInputStream(bytes), out);
+        return out.toByteArray();
+    }
+
+    private static int count(byte[] bytes, String text) {
+        byte[] pattern = text.getBytes(StandardCharsets.UTF_8);
+        int count = 0;
+        for (int i = 0; i + pattern.length <= bytes.length; i++) {
+            int j = 0;
+            while (j < pattern.length && bytes[i + j] == pattern[j]) j++;
+            if (j == pattern.length) count++;
+        }
+        return count;
+    }
+
+    private static final class MemoryWriter implements FLLogWriter {
+        private final ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        byte[] bytes() {
+            return out.toByteArray();
+        }
+
+        @Override
+        public File getFile() {
+            return new File("memory");
+        }
+
+        @Override
+        public long length() {
+            return out.size();
+        }
+
+        @Override
+        public long remaining() {
+            return Long.MAX_VALUE;
+        }
+
+        @Override
+        public int buffered() {
+            return 0;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            out.write(b, off, len);
+        }
+
+        @Override
+        public void flush() {
+        }
+
+        @Override
+        public void sync() {
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package com.forkliu.base.logger;
+
+import com.orhanobut.logger.FormatStrategy;
+import com.orhanobut.logger.Logger;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class FLCompositeFileLogAdapterTest {
+    private final Sink debug = new Sink();
+    private final Sink info = new Sink();
+    private final Sink error = new Sink();
+
+    @Test
+    public void log_fansOutBySinkLevel() throws FLLoggerException {
+        FLCompositeFileLogAdapter adapter = adapter();
+        log(adapter, Logger.VERBOSE, "v");
+        log(adapter, Logger.DEBUG, "d");
+        log(adapter, Logger.INFO, "i");
+        log(adapter, Logger.ERROR, "e");
+
+        assertEquals(Arrays.asList("d", "i", "e"), debug.messages);
+        assertEquals(Arrays.asList("i", "e"), info.messages);
+        assertEquals(Collections.singletonList("e"), error.messages);
+        assertEquals(1, adapter.getStats().getFiltered());
+    }
+
+    @Test
+    public void setLogLevel_overridesATagForOneSink() throws FLLoggerException {
+        FLCompositeFileLogAdapter adapter = adapter();
+        adapter.setLogLevel(info, "Net", Logger.VERBOSE);
+        adapter.setLogLevel(debug, "Noisy", Logger.ERROR);
+
+        log(adapter, Logger.VERBOSE, "Net", "net");
+        log(adapter, Logger.WARN, "Noisy", "noisy");
+        log(adapter, Logger.DEBUG, "Db", "db");
+
+        // raised for the debug sink only
+        assertEquals(Collections.singletonList("db"), debug.messages);
+        assertEquals(Arrays.asList("net", "noisy"), info.messages);
+        assertTrue(error.messages.isEmpty());
+
+        adapter.clearLogLevel(info, "Net");
+        assertFalse(adapter.isLoggable(Logger.VERBOSE, "Net"));
+    }
+
+    @Test
+    public void setLogLevel_changesOneSink() throws FLLoggerException {
+        FLCompositeFileLogAdapter adapter = adapter();
+        adapter.setLogLevel(error, Logger.VERBOSE);
+        log(adapter, Logger.VERBOSE, "v");
+        assertTrue(debug.messages.isEmpty());
+        assertEquals(Collections.singletonList("v"), error.messages);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void setLogLevel_unknownSink() throws FLLoggerException {
+        adapter().setLogLevel(new Sink(), "Net", Logger.VERBOSE);
+    }
+
+    @Test(expected = FLLoggerException.class)
+    public void build_withoutSinks() throws FLLoggerException {
+        FLCompositeFileLogAdapter.newBuilder().build();
+    }
+
+    /**
+     * Logs the way {@code Logger} does, asking first.
+     */
+    private static void log(FLCompositeFileLogAdapter adapter, int priority, String message) {
+        log(adapter, priority, null, message);
+    }
+
+    private static void log(FLCompositeFileLogAdapter adapter, int priority, String tag, String message) {
+        if (adapter.isLoggable(priority, tag)) {
+            adapter.log(priority, tag, message);
+        }
+    }
+
+    private FLCompositeFileLogAdapter adapter() throws FLLoggerException {
+        return FLCompositeFileLogAdapter.newBuilder()
+                .addSink(debug, Logger.DEBUG)
+                .addSink(info, Logger.INFO)
+                .addSink(error, Logger.ERROR)
+                .build();
+    }
+
+    /**
+     * A sink that formats on its own, it gets the record as it was logged.
+     */
+    private static final class Sink implements FormatStrategy {
+        final List<String> messages = new ArrayList<>();
+
+        @Override
+        public void log(int priority, String tag, String message) {
+            messages.add(message);
+        }
+    }
+}
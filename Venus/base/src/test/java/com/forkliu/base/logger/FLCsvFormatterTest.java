@@ -0,0 +1,111 @@
+package com.forkliu.base.logger;
+
+import com.orhanobut.logger.Logger;
+
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.text.SimpleDateFormat;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.Locale;
+
+import static org.junit.Assert.assertArrayEquals;
+
+/**
+ * The CSV lines have to stay byte for byte what FLRotatingFormatStrategy wrote before it
+ * formatted into a {@link FLRecordBuffer}.
+ */
+public class FLCsvFormatterTest {
+    private static final String PATTERN = "yyyy.MM.dd HH:mm:ss.SSS";
+    private static final String NEW_LINE = System.getProperty("line.separator");
+
+    private static final String[] TAGS = {null, "", "Venus", "Net"};
+    private static final String[] MESSAGES = {
+            "",
+            "LogTestThread::run|42",
+            "first" + NEW_LINE + "second" + NEW_LINE,
+            NEW_LINE + NEW_LINE,
+            "a,b,c with commas",
+            "中文日志 ünïcödé",
+            "emoji 😀 pair",
+            "lone \uD800 surrogate \uDC00",
+    };
+    private static final int[] LEVELS = {Logger.VERBOSE, Logger.DEBUG, Logger.INFO, Logger.WARN,
+            Logger.ERROR, Logger.ASSERT, 42};
+
+    @Test
+    public void format_matchesLegacyFormatter() {
+        for (String tag : TAGS) {
+            FLCsvFormatter formatter = new FLCsvFormatter(
+                    new FLTimestampFormatter(PATTERN, Locale.CHINA), tag);
+            SimpleDateFormat dateFormat = new SimpleDateFormat(PATTERN, Locale.CHINA);
+            for (String onceOnlyTag : TAGS) {
+                for (String message : MESSAGES) {
+                    for (int level : LEVELS) {
+                        FLRecordBuffer buffer = formatter.format(level, onceOnlyTag, message);
+                        String expected = legacy(dateFormat, tag, millis(buffer), level, onceOnlyTag, message);
+                        assertArrayEquals(expected,
+                                expected.getBytes(StandardCharsets.UTF_8),
+                                Arrays.copyOf(buffer.bytes, buffer.byteCount));
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    public void format_growsBufferForLongRecords() {
+        FLCsvFormatter formatter = new FLCsvFormatter(new FLTimestampFormatter(PATTERN, Locale.CHINA), "Venus");
+        SimpleDateFormat dateFormat = new SimpleDateFormat(PATTERN, Locale.CHINA);
+        StringBuilder message = new StringBuilder();
+        for (int i = 0; i < 2000; i++) {
+            message.append("line ").append(i).append(NEW_LINE);
+        }
+        // a short record after a long one reuses the buffer
+        for (String m : new String[]{message.toString(), "short"}) {
+            FLRecordBuffer buffer = formatter.format(Logger.INFO, "Net", m);
+            String expected = legacy(dateFormat, "Venus", millis(buffer), Logger.INFO, "Net", m);
+            assertArrayEquals(expected.getBytes(StandardCharsets.UTF_8),
+                    Arrays.copyOf(buffer.bytes, buffer.byteCount));
+        }
+    }
+
+    /**
+     * @return the time the formatter put into the first column
+     */
+    private static long millis(FLRecordBuffer buffer) {
+        String line = new String(buffer.bytes, 0, buffer.byteCount, StandardCharsets.UTF_8);
+        return Long.parseLong(line.substring(0, line.indexOf(',')));
+    }
+
+    /**
+     * FLRotatingFormatStrategy.log as it was, with the time passed in.
+     */
+    private static String legacy(SimpleDateFormat dateFormat, String ownTag, long millis,
+                                 int priority, String onceOnlyTag, String message) {
+        String tag = ownTag;
+        if (!FLLogUtils.isEmpty(onceOnlyTag) && !FLLogUtils.equals(ownTag, onceOnlyTag)) {
+            tag = ownTag + "-" + onceOnlyTag;
+        }
+
+        Date date = new Date();
+        date.setTime(millis);
+
+        StringBuilder builder = new StringBuilder();
+        builder.append(Long.toString(date.getTime()));
+        builder.append(",");
+        builder.append(dateFormat.format(date));
+        builder.append(",");
+        builder.append(FLLogUtils.logLevel(priority));
+        builder.append(",");
+        builder.append(tag);
+        if (message.contains(NEW_LINE)) {
+            message = message.replaceAll(NEW_LINE, " <br> ");
+        }
+        builder.append(",");
+        builder.append(message);
+        builder.append(NEW_LINE);
+        return builder.toString();
+    }
+}
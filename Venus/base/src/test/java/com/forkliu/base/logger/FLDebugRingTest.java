@@ -0,0 +1,137 @@
+package com.forkliu.base.logger;
+
+import com.orhanobut.logger.FormatStrategy;
+import com.orhanobut.logger.Logger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class FLDebugRingTest {
+    private final RingTarget target = new RingTarget();
+    private Thread.UncaughtExceptionHandler previous;
+
+    @Before
+    public void setUp() {
+        previous = Thread.getDefaultUncaughtExceptionHandler();
+    }
+
+    @After
+    public void tearDown() {
+        Thread.setDefaultUncaughtExceptionHandler(previous);
+    }
+
+    @Test
+    public void captures_recordsBelowTheFileLevel() {
+        FLDebugRing ring = new FLDebugRing(8, Logger.INFO);
+        assertTrue(ring.captures(Logger.VERBOSE));
+        assertTrue(ring.captures(Logger.DEBUG));
+        assertFalse(ring.captures(Logger.INFO));
+        assertFalse(ring.captures(Logger.ERROR));
+    }
+
+    @Test
+    public void drain_writesOldestFirstAndEmptiesTheRing() {
+        FLDebugRing ring = new FLDebugRing(8, Logger.INFO);
+        ring.add(Logger.DEBUG, "A", "one");
+        ring.add(Logger.VERBOSE, null, "two");
+        ring.drain(target);
+        assertEquals(Arrays.asList("D/A one", "V/null two"), target.records);
+
+        target.records.clear();
+        ring.drain(target);
+        assertTrue(target.records.isEmpty());
+    }
+
+    @Test
+    public void drain_keepsTheNewestWhenFull() {
+        FLDebugRing ring = new FLDebugRing(4, Logger.INFO);
+        for (int i = 0; i < 6; i++) {
+            ring.add(Logger.DEBUG, null, "d" + i);
+        }
+        ring.drain(target);
+        assertEquals(Arrays.asList("D/null d2", "D/null d3", "D/null d4", "D/null d5"), target.records);
+    }
+
+    @Test
+    public void adapter_writesTheRingBeforeAnError() {
+        Sink sink = new Sink();
+        FLFileLogAdapter adapter = new FLFileLogAdapter(sink);
+        adapter.setLogLevel(Logger.VERBOSE);
+        adapter.setDebugRing(new FLDebugRing(8, Logger.INFO));
+
+        adapter.log(Logger.DEBUG, "Net", "connecting");
+        adapter.log(Logger.INFO, "Net", "started");
+        adapter.log(Logger.DEBUG, "Net", "timeout");
+        assertEquals(Collections.singletonList("I/Net started"), sink.records);
+
+        adapter.log(Logger.ERROR, "Net", "failed");
+        adapter.log(Logger.WARN, "Net", "retry");
+        assertEquals(Arrays.asList("I/Net started", "D/Net connecting", "D/Net timeout",
+                "E/Net failed", "W/Net retry"), sink.records);
+    }
+
+    @Test
+    public void crashHandler_writesTheRingAndTheExceptionThenHandsItOn() {
+        final List<Throwable> handedOn = new ArrayList<>();
+        Thread.setDefaultUncaughtExceptionHandler(new Thread.UncaughtExceptionHandler() {
+            @Override
+            public void uncaughtException(Thread thread, Throwable e) {
+                handedOn.add(e);
+            }
+        });
+        FLDebugRing ring = new FLDebugRing(8, Logger.INFO);
+        ring.installCrashHandler();
+        ring.attach(target);
+        ring.add(Logger.DEBUG, "Db", "query");
+
+        IllegalStateException crash = new IllegalStateException("boom");
+        Thread.getDefaultUncaughtExceptionHandler().uncaughtException(new Thread("worker"), crash);
+
+        assertEquals(2, target.records.size());
+        assertEquals("D/Db query", target.records.get(0));
+        assertTrue(target.records.get(1).startsWith("A/null uncaught exception in worker"));
+        assertTrue(target.records.get(1).contains("boom"));
+        assertEquals(1, target.syncs);
+        assertEquals(1, handedOn.size());
+        assertSame(crash, handedOn.get(0));
+    }
+
+    private static String record(int priority, String tag, String message) {
+        return FLLogUtils.logLevel(priority) + "/" + tag + " " + message;
+    }
+
+    private static final class RingTarget implements FLDebugRing.Target {
+        final List<String> records = new ArrayList<>();
+        int syncs;
+
+        @Override
+        public void write(long millis, int priority, String tag, String message) {
+            records.add(record(priority, tag, message));
+        }
+
+        @Override
+        public void sync(long timeoutMillis) {
+            syncs++;
+        }
+    }
+
+    private static final class Sink implements FormatStrategy {
+        final List<String> records = new ArrayList<>();
+
+        @Override
+        public void log(int priority, String tag, String message) {
+            records.add(record(priority, tag, message));
+        }
+    }
+}
@@ -0,0 +1,190 @@
+package com.forkliu.base.logger;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static com.forkliu.base.logger.FLRotatingFormatStrategy.Builder.WRITER_STREAM;
+import static com.forkliu.base.logger.FLTestUtils.awaitMaintenance;
+import static com.forkliu.base.logger.FLTestUtils.write;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class FLDiskBudgetTest {
+    private static final long MINUTE = 60 * 1000L;
+    // every segment is this big
+    private static final String SEGMENT = "0123456789";
+
+    @Rule public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private File folder;
+    private long now;
+
+    @Before
+    public void setUp() throws IOException {
+        folder = temporaryFolder.newFolder("logger");
+        now = System.currentTimeMillis();
+    }
+
+    @Test
+    public void register_evictsTheOldestFirst() throws Exception {
+        File oldest = segment("app.log.3", 30);
+        File older = segment("app.log.2", 20);
+        File newest = segment("app.log.1", 10);
+        File active = segment("app.log", 60);
+        File other = segment("other.log.1", 90);
+
+        FLDiskBudget budget = new FLDiskBudget(15, 0);
+        Handler handler = handler("app.log", budget);
+        handler.onCreated();
+        awaitMaintenance();
+
+        assertFalse(oldest.exists());
+        assertFalse(older.exists());
+        assertTrue(newest.exists());
+        assertTrue(active.exists());
+        assertTrue(other.exists());
+        assertEquals(10, budget.getTotalBytes());
+        assertEquals(Arrays.asList(oldest, older), handler.evicted);
+    }
+
+    @Test
+    public void add_evictsAcrossStrategies() throws Exception {
+        File a2 = segment("a.log.2", 40);
+        File b1 = segment("b.log.1", 30);
+        File a1 = segment("a.log.1", 20);
+
+        FLDiskBudget budget = new FLDiskBudget(25, 0);
+        Handler a = handler("a.log", budget);
+        Handler b = handler("b.log", budget);
+        a.onCreated();
+        b.onCreated();
+        awaitMaintenance();
+        assertFalse(a2.exists());
+        assertEquals(20, budget.getTotalBytes());
+
+        // b rolls a segment, b's older one goes before a's newer one
+        final File b2 = segment("b.log.2", 0);
+        final Handler owner = b;
+        FLLogMaintenance.execute(new Runnable() {
+            @Override
+            public void run() {
+                owner.onSegmentAdded(b2);
+            }
+        });
+        awaitMaintenance();
+
+        assertFalse(b1.exists());
+        assertTrue(a1.exists());
+        assertTrue(b2.exists());
+        assertEquals(Collections.singletonList(a2), a.evicted);
+        assertEquals(Collections.singletonList(b1), b.evicted);
+        assertEquals(20, budget.getTotalBytes());
+    }
+
+    @Test
+    public void removeAndRename_keepTheTotal() throws Exception {
+        final File first = segment("app.log.1", 20);
+        final File second = segment("app.log.2", 10);
+        final File renamed = new File(folder, "app.log.3");
+
+        FLDiskBudget budget = new FLDiskBudget(100, 0);
+        final Handler handler = handler("app.log", budget);
+        handler.onCreated();
+        awaitMaintenance();
+        assertEquals(20, budget.getTotalBytes());
+
+        assertTrue(first.delete());
+        assertTrue(second.renameTo(renamed));
+        FLLogMaintenance.execute(new Runnable() {
+            @Override
+            public void run() {
+                handler.onSegmentDeleted(first);
+                handler.onSegmentRenamed(second, renamed);
+            }
+        });
+        awaitMaintenance();
+        assertEquals(10, budget.getTotalBytes());
+        assertTrue(handler.evicted.isEmpty());
+    }
+
+    @Test
+    public void maxAge_evictsOldSegments() throws Exception {
+        File old = segment("app.log.2", 120);
+        File recent = segment("app.log.1", 1);
+
+        FLDiskBudget budget = new FLDiskBudget(0, 60 * MINUTE);
+        Handler handler = handler("app.log", budget);
+        handler.onCreated();
+        awaitMaintenance();
+
+        assertFalse(old.exists());
+        assertTrue(recent.exists());
+        assertEquals(Collections.singletonList(old), handler.evicted);
+    }
+
+    @Test
+    public void maxAge_checkedWhileIdle() throws Exception {
+        File segment = segment("app.log.1", 0);
+
+        FLDiskBudget budget = new FLDiskBudget(0, 1000);
+        Handler handler = handler("app.log", budget);
+        handler.onCreated();
+        awaitMaintenance();
+        assertTrue(segment.exists());
+
+        // nothing is logged, the budget wakes up on its own
+        long deadline = System.currentTimeMillis() + 5000;
+        while (segment.exists() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(50);
+        }
+        assertFalse(segment.exists());
+        assertEquals(0, budget.getTotalBytes());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void negativeLimits() {
+        new FLDiskBudget(-1, 0);
+    }
+
+    /**
+     * Writes a segment that was last modified {@code minutesAgo}.
+     */
+    private File segment(String name, int minutesAgo) throws IOException {
+        return write(new File(folder, name), SEGMENT, now - minutesAgo * MINUTE);
+    }
+
+    private Handler handler(String logName, FLDiskBudget budget) {
+        FLWriterConfig config = new FLWriterConfig();
+        config.diskBudget = budget;
+        config.applyDefaults();
+        return new Handler(folder, logName, config);
+    }
+
+    /**
+     * Remembers the segments the budget evicted.
+     */
+    private static final class Handler extends FLRotatingStrategy.WriteHandler {
+        final List<File> evicted = new ArrayList<>();
+
+        Handler(File folder, String logName, FLWriterConfig config) {
+            super(FLLogWriterScheduler.getDefault().nextWorker(), folder.getPath(), logName,
+                    1024, 5, WRITER_STREAM, config);
+        }
+
+        @Override
+        void onSegmentEvicted(File segment) {
+            super.onSegmentEvicted(segment);
+            evicted.add(segment);
+        }
+    }
+}
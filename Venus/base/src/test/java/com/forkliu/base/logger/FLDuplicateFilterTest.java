@@ -0,0 +1,128 @@
+package com.forkliu.base.logger;
+
+import com.orhanobut.logger.Logger;
+
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class FLDuplicateFilterTest {
+    private static final long HOUR = 3600 * 1000L;
+
+    private final SummaryTarget target = new SummaryTarget();
+
+    @Test
+    public void offer_collapsesRepeats() {
+        FLDuplicateFilter filter = new FLDuplicateFilter(HOUR, target);
+        assertNull(filter.offer(Logger.INFO, "Net", "hello"));
+        for (int i = 0; i < 5; i++) {
+            assertSame(FLDuplicateFilter.REPEATED, filter.offer(Logger.INFO, "Net", "hello"));
+        }
+
+        FLDuplicateFilter.Run run = filter.offer(Logger.INFO, "Net", "world");
+        assertEquals(Logger.INFO, run.priority);
+        assertEquals("Net", run.tag);
+        assertEquals("... repeated 5 times", run.summary());
+    }
+
+    @Test
+    public void offer_priorityTagAndMessageMakeTheRecord() {
+        FLDuplicateFilter filter = new FLDuplicateFilter(HOUR, target);
+        assertNull(filter.offer(Logger.INFO, "Net", "hello"));
+        assertNull(filter.offer(Logger.WARN, "Net", "hello"));
+        assertNull(filter.offer(Logger.WARN, null, "hello"));
+        assertSame(FLDuplicateFilter.REPEATED, filter.offer(Logger.WARN, null, "hello"));
+        assertEquals("... repeated 1 times", filter.offer(Logger.WARN, "Db", "hello").summary());
+    }
+
+    @Test
+    public void offer_noSummaryWithoutRepeats() {
+        FLDuplicateFilter filter = new FLDuplicateFilter(HOUR, target);
+        assertNull(filter.offer(Logger.INFO, null, "a"));
+        assertNull(filter.offer(Logger.INFO, null, "b"));
+        assertNull(filter.offer(Logger.INFO, null, "a"));
+    }
+
+    @Test
+    public void offer_longRunIsSummedUpAndWrittenAgain() throws InterruptedException {
+        FLDuplicateFilter filter = new FLDuplicateFilter(50, target);
+        assertNull(filter.offer(Logger.INFO, null, "hello"));
+        assertSame(FLDuplicateFilter.REPEATED, filter.offer(Logger.INFO, null, "hello"));
+        assertSame(FLDuplicateFilter.REPEATED, filter.offer(Logger.INFO, null, "hello"));
+        Thread.sleep(100);
+
+        // either the record after the window or the maintenance thread sums the run up
+        FLDuplicateFilter.Run run = filter.offer(Logger.INFO, null, "hello");
+        if (run != null) {
+            assertEquals("... repeated 2 times", run.summary());
+        } else {
+            target.await();
+            assertEquals("... repeated 2 times", target.message);
+        }
+    }
+
+    @Test
+    public void expire_writesTheSummaryWhenTheWindowIsUp() throws InterruptedException {
+        FLDuplicateFilter filter = new FLDuplicateFilter(50, target);
+        assertNull(filter.offer(Logger.WARN, "Net", "hello"));
+        for (int i = 0; i < 3; i++) {
+            assertSame(FLDuplicateFilter.REPEATED, filter.offer(Logger.WARN, "Net", "hello"));
+        }
+
+        // nothing else is logged
+        target.await();
+        assertEquals(Logger.WARN, target.priority);
+        assertEquals("Net", target.tag);
+        assertEquals("... repeated 3 times", target.message);
+
+        // the run is over, the same record starts a new one
+        assertNull(filter.offer(Logger.WARN, "Net", "hello"));
+    }
+
+    @Test
+    public void offer_countsEveryRepeatAcrossThreads() throws InterruptedException {
+        final FLDuplicateFilter filter = new FLDuplicateFilter(HOUR, target);
+        assertNull(filter.offer(Logger.INFO, null, "hello"));
+        Thread[] threads = new Thread[4];
+        for (int t = 0; t < threads.length; t++) {
+            threads[t] = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    for (int i = 0; i < 1000; i++) {
+                        filter.offer(Logger.INFO, null, "hello");
+                    }
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals("... repeated 4000 times", filter.offer(Logger.INFO, null, "bye").summary());
+    }
+
+    private static final class SummaryTarget implements FLDuplicateFilter.Target {
+        private final CountDownLatch written = new CountDownLatch(1);
+        volatile int priority;
+        volatile String tag;
+        volatile String message;
+
+        @Override
+        public void write(int priority, String tag, String message) {
+            this.priority = priority;
+            this.tag = tag;
+            this.message = message;
+            written.countDown();
+        }
+
+        void await() throws InterruptedException {
+            assertTrue(written.await(5, TimeUnit.SECONDS));
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package com.forkliu.base.logger;
+
+import com.orhanobut.logger.Logger;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import static com.forkliu.base.logger.FLRotatingFormatStrategy.Builder.WRITER_STREAM;
+import static com.forkliu.base.logger.FLTestUtils.handle;
+import static com.forkliu.base.logger.FLTestUtils.idleWorker;
+import static com.forkliu.base.logger.FLTestUtils.read;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * When the write handler forces its batches, counted by the metrics. The messages are handled
+ * by hand.
+ */
+public class FLDurabilityTest {
+    @Rule public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private File folder;
+
+    @Before
+    public void setUp() throws IOException {
+        folder = temporaryFolder.newFolder("logger");
+    }
+
+    @Test
+    public void forces() {
+        assertFalse(FLDurability.none().forces(Logger.ASSERT));
+        assertFalse(FLDurability.interval(1000).forces(Logger.ASSERT));
+        assertTrue(FLDurability.always().forces(Logger.VERBOSE));
+        assertFalse(FLDurability.onLevel(Logger.ERROR).forces(Logger.WARN));
+        assertTrue(FLDurability.onLevel(Logger.ERROR).forces(Logger.ERROR));
+        assertTrue(FLDurability.onLevel(Logger.ERROR).forces(Logger.ASSERT));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void interval_mustBePositive() {
+        FLDurability.interval(0);
+    }
+
+    @Test
+    public void none_neverForces() throws Exception {
+        FLFileWriteHandler handler = handler(FLDurability.none(), 128);
+        log(handler, Logger.ERROR, "e\n");
+        handle(handler, FLFileWriteHandler.MSG_DRAIN);
+        handle(handler, FLFileWriteHandler.MSG_CLOSE);
+        assertEquals(0, handler.metrics.syncs);
+        assertEquals("e\n", read(new File(folder, "log.log")));
+    }
+
+    @Test
+    public void always_forcesEveryBatchOnce() throws Exception {
+        FLFileWriteHandler handler = handler(FLDurability.always(), 4);
+        for (int i = 0; i < 6; i++) {
+            log(handler, Logger.INFO, "r" + i + "\n");
+        }
+        handle(handler, FLFileWriteHandler.MSG_DRAIN);
+        assertEquals(1, handler.metrics.syncs);
+        assertEquals("r0\nr1\nr2\nr3\n", read(new File(folder, "log.log")));
+        handle(handler, FLFileWriteHandler.MSG_DRAIN);
+        assertEquals(2, handler.metrics.syncs);
+        assertEquals("r0\nr1\nr2\nr3\nr4\nr5\n", read(new File(folder, "log.log")));
+    }
+
+    @Test
+    public void onLevel_forcesTheBatchesWithTheLevel() throws Exception {
+        FLFileWriteHandler handler = handler(FLDurability.onLevel(Logger.ERROR), 128);
+        log(handler, Logger.WARN, "w\n");
+        handle(handler, FLFileWriteHandler.MSG_DRAIN);
+        assertEquals(0, handler.metrics.syncs);
+
+        log(handler, Logger.INFO, "i\n");
+        log(handler, Logger.ERROR, "e\n");
+        handle(handler, FLFileWriteHandler.MSG_DRAIN);
+        assertEquals(1, handler.metrics.syncs);
+        assertEquals("w\ni\ne\n", read(new File(folder, "log.log")));
+    }
+
+    @Test
+    public void interval_forcesOnTheTimerOnlyIfSomethingWasWritten() throws Exception {
+        FLFileWriteHandler handler = handler(FLDurability.interval(1000), 128);
+        log(handler, Logger.ERROR, "e\n");
+        handle(handler, FLFileWriteHandler.MSG_DRAIN);
+        assertEquals(0, handler.metrics.syncs);
+
+        handle(handler, FLFileWriteHandler.MSG_SYNC);
+        assertEquals(1, handler.metrics.syncs);
+        handle(handler, FLFileWriteHandler.MSG_SYNC);
+        assertEquals(1, handler.metrics.syncs);
+    }
+
+    @Test
+    public void close_forcesWhatIsLeft() throws Exception {
+        FLFileWriteHandler handler = handler(FLDurability.interval(1000), 128);
+        log(handler, Logger.INFO, "i\n");
+        handle(handler, FLFileWriteHandler.MSG_DRAIN);
+        handle(handler, FLFileWriteHandler.MSG_CLOSE);
+        assertEquals(1, handler.metrics.syncs);
+        assertEquals("i\n", read(new File(folder, "log.log")));
+    }
+
+    private FLFileWriteHandler handler(FLDurability durability, int batchSize) {
+        FLWriterConfig config = new FLWriterConfig();
+        config.durability = durability;
+        config.batchSize = batchSize;
+        config.applyDefaults();
+        return new FLRotatingStrategy.WriteHandler(idleWorker(), folder.getPath(), "log.log",
+                1024 * 1024, 3, WRITER_STREAM, config);
+    }
+
+    private static void log(FLFileWriteHandler handler, int level, String line) {
+        byte[] data = line.getBytes(StandardCharsets.UTF_8);
+        handler.enqueue(level, System.nanoTime(), data, 0, data.length);
+    }
+}
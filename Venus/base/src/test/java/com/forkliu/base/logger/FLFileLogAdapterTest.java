@@ -0,0 +1,84 @@
+package com.forkliu.base.logger;
+
+import com.orhanobut.logger.FormatStrategy;
+import com.orhanobut.logger.Logger;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+public class FLFileLogAdapterTest {
+    private static final long HOUR = 3600 * 1000L;
+
+    private final Sink sink = new Sink();
+    private final FLFileLogAdapter adapter = new FLFileLogAdapter(sink);
+
+    @Test
+    public void log_levelFilterIsCounted() {
+        adapter.setLogLevel(Logger.INFO);
+        log(Logger.DEBUG, "d");
+        log(Logger.INFO, "i");
+        assertEquals(Arrays.asList("i"), sink.messages);
+        assertEquals(1, adapter.getStats().getFiltered());
+    }
+
+    @Test
+    public void log_repeatsAreCollapsed() {
+        adapter.setDuplicateWindow(HOUR);
+        for (int i = 0; i < 4; i++) {
+            log(Logger.INFO, "same");
+        }
+        log(Logger.INFO, "other");
+        assertEquals(Arrays.asList("same", "... repeated 3 times", "other"), sink.messages);
+        assertEquals(3, adapter.getStats().getFiltered());
+    }
+
+    @Test
+    public void log_rateLimitDropsAndCounts() {
+        // a token every second, the test never sees a refill
+        adapter.setRateLimiter(new FLRateLimiter(1, 2));
+        for (int i = 0; i < 5; i++) {
+            log(Logger.INFO, "Net", "n" + i);
+        }
+        log(Logger.INFO, "Db", "d");
+        assertEquals(Arrays.asList("n0", "n1", "d"), sink.messages);
+        assertEquals(3, adapter.getStats().getFiltered());
+    }
+
+    @Test
+    public void log_repeatsDontUseUpTheRateLimit() {
+        adapter.setDuplicateWindow(HOUR);
+        adapter.setRateLimiter(new FLRateLimiter(1, 2));
+        for (int i = 0; i < 10; i++) {
+            log(Logger.INFO, "Net", "same");
+        }
+        log(Logger.INFO, "Net", "other");
+        assertEquals(Arrays.asList("same", "... repeated 9 times", "other"), sink.messages);
+    }
+
+    private void log(int priority, String message) {
+        log(priority, null, message);
+    }
+
+    /**
+     * Logs the way {@code Logger} does, asking first.
+     */
+    private void log(int priority, String tag, String message) {
+        if (adapter.isLoggable(priority, tag)) {
+            adapter.log(priority, tag, message);
+        }
+    }
+
+    private static final class Sink implements FormatStrategy {
+        final List<String> messages = new ArrayList<>();
+
+        @Override
+        public void log(int priority, String tag, String message) {
+            messages.add(message);
+        }
+    }
+}
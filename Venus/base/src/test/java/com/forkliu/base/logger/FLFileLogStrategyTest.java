@@ -0,0 +1,154 @@
+package com.forkliu.base.logger;
+
+import com.orhanobut.logger.Logger;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.forkliu.base.logger.FLRotatingFormatStrategy.Builder.WRITER_STREAM;
+import static com.forkliu.base.logger.FLTestUtils.awaitMaintenance;
+import static com.forkliu.base.logger.FLTestUtils.handle;
+import static com.forkliu.base.logger.FLTestUtils.idleWorker;
+import static com.forkliu.base.logger.FLTestUtils.read;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * The lazy setup of the write handler and the startup buffer that holds the records until
+ * then. The handler's messages are handled by hand.
+ */
+public class FLFileLogStrategyTest {
+    @Rule public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private File folder;
+    private final FLWriterConfig config = new FLWriterConfig();
+    // the factory waits for it, so the test decides when the handler is set up
+    private final CountDownLatch release = new CountDownLatch(1);
+    private final AtomicInteger created = new AtomicInteger();
+    private volatile Thread createdOn;
+    private volatile FLFileWriteHandler createdHandler;
+
+    @Before
+    public void setUp() throws IOException {
+        folder = temporaryFolder.newFolder("logger");
+        config.applyDefaults();
+    }
+
+    @Test
+    public void handler_isSetUpOnceOffTheCallingThread() throws Exception {
+        release.countDown();
+        FLFileLogStrategy strategy = new FLRotatingStrategy(config, factory(false));
+        awaitMaintenance();
+        assertEquals(1, created.get());
+        assertNotSame(Thread.currentThread(), createdOn);
+
+        strategy.metrics();
+        strategy.flush();
+        assertEquals(1, created.get());
+    }
+
+    @Test
+    public void startup_keepsTheRecordsInOrderUntilTheHandlerIsThere() throws Exception {
+        FLFileLogStrategy strategy = new FLRotatingStrategy(config, factory(false));
+        strategy.log(Logger.INFO, null, "a\n");
+        strategy.log(Logger.WARN, null, "b\n");
+        release.countDown();
+
+        FLFileWriteHandler handler = handler(strategy);
+        strategy.log(Logger.INFO, null, "c\n");
+        handle(handler, FLFileWriteHandler.MSG_FLUSH);
+        assertEquals("a\nb\nc\n", read(new File(folder, "log.log")));
+        assertEquals(3, handler.metrics.enqueued.sum());
+        assertEquals(0, handler.metrics.dropped.sum());
+    }
+
+    @Test
+    public void startup_dropsBelowErrorWhenFull() throws Exception {
+        FLFileLogStrategy strategy = new FLRotatingStrategy(config, factory(false));
+        for (int i = 0; i < FLFileLogStrategy.STARTUP_RECORDS + 6; i++) {
+            strategy.log(Logger.INFO, null, "i" + i + "\n");
+        }
+        release.countDown();
+
+        FLFileWriteHandler handler = handler(strategy);
+        assertEquals(FLFileLogStrategy.STARTUP_RECORDS, handler.metrics.enqueued.sum());
+        assertEquals(6, handler.metrics.dropped.sum());
+        handle(handler, FLFileWriteHandler.MSG_FLUSH);
+        assertTrue(read(new File(folder, "log.log")).endsWith(
+                "i" + (FLFileLogStrategy.STARTUP_RECORDS - 1) + "\n"));
+    }
+
+    @Test
+    public void startup_errorsPushOutTheOldest() throws Exception {
+        FLFileLogStrategy strategy = new FLRotatingStrategy(config, factory(false));
+        for (int i = 0; i < FLFileLogStrategy.STARTUP_RECORDS; i++) {
+            strategy.log(Logger.INFO, null, "i" + i + "\n");
+        }
+        strategy.log(Logger.ERROR, null, "e0\n");
+        strategy.log(Logger.ASSERT, null, "e1\n");
+        release.countDown();
+
+        FLFileWriteHandler handler = handler(strategy);
+        assertEquals(2, handler.metrics.dropped.sum());
+        handle(handler, FLFileWriteHandler.MSG_FLUSH);
+        String written = read(new File(folder, "log.log"));
+        assertTrue(written.startsWith("i2\n"));
+        assertTrue(written.endsWith("i" + (FLFileLogStrategy.STARTUP_RECORDS - 1) + "\ne0\ne1\n"));
+    }
+
+    @Test
+    public void setupFailure_dropsAndCountsEverything() throws Exception {
+        FLFileLogStrategy strategy = new FLRotatingStrategy(config, factory(true));
+        strategy.log(Logger.INFO, null, "a\n");
+        strategy.log(Logger.ERROR, null, "b\n");
+        release.countDown();
+        awaitMaintenance();
+
+        FLLoggerMetrics metrics = strategy.metrics();
+        assertEquals(1, metrics.errors);
+        assertEquals(2, metrics.dropped.sum());
+        strategy.log(Logger.INFO, null, "c\n");
+        assertEquals(3, metrics.dropped.sum());
+        assertEquals(1, created.get());
+    }
+
+    /**
+     * @return the handler, once the maintenance thread has set it up
+     */
+    private FLFileWriteHandler handler(FLFileLogStrategy strategy) throws InterruptedException {
+        awaitMaintenance();
+        assertSame(createdHandler.metrics, strategy.metrics());
+        return createdHandler;
+    }
+
+    private FLFileLogStrategy.HandlerFactory factory(final boolean fails) {
+        return new FLFileLogStrategy.HandlerFactory() {
+            @Override
+            public FLFileWriteHandler create() {
+                created.incrementAndGet();
+                createdOn = Thread.currentThread();
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    throw new IllegalStateException(e);
+                }
+                if (fails) {
+                    throw new IllegalStateException("no storage");
+                }
+                createdHandler = new FLRotatingStrategy.WriteHandler(idleWorker(),
+                        folder.getPath(), "log.log", 1024 * 1024, 3, WRITER_STREAM, config);
+                return createdHandler;
+            }
+        };
+    }
+}
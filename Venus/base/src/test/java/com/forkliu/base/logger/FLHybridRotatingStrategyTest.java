@@ -0,0 +1,146 @@
+package com.forkliu.base.logger;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+
+import static com.forkliu.base.logger.FLRotatingFormatStrategy.Builder.WRITER_STREAM;
+import static com.forkliu.base.logger.FLTestUtils.awaitMaintenance;
+import static com.forkliu.base.logger.FLTestUtils.read;
+import static com.forkliu.base.logger.FLTestUtils.write;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Naming and retention of {@link FLHybridRotatingStrategy.WriteHandler}, the rollovers are
+ * triggered by hand.
+ */
+public class FLHybridRotatingStrategyTest {
+    private static final long MINUTE = 60 * 1000L;
+
+    @Rule public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private File folder;
+    private long now;
+
+    @Before
+    public void setUp() throws IOException {
+        folder = temporaryFolder.newFolder("logger");
+        now = System.currentTimeMillis();
+    }
+
+    @Test
+    public void rollover_numbersTheSegmentsOfAPeriod() throws Exception {
+        FLHybridRotatingStrategy.WriteHandler handler = handler(5, 0, 0);
+        handler.onCreated();
+        awaitMaintenance();
+        roll(handler, "first");
+        roll(handler, "second");
+
+        String period = handler.period.format(handler.segmentStart);
+        assertEquals("first", read(new File(folder, "log.log." + period + ".1")));
+        assertEquals("second", read(new File(folder, "log.log." + period + ".2")));
+    }
+
+    @Test
+    public void rollover_continuesTheSequenceOfAnEarlierProcess() throws Exception {
+        FLHybridRotatingStrategy.WriteHandler handler = handler(5, 0, 0);
+        String period = handler.period.format(handler.segmentStart);
+        write(new File(folder, "log.log." + period + ".1"), "old 1", now - 2000);
+        write(new File(folder, "log.log." + period + ".2"), "old 2", now - 1000);
+        handler.onCreated();
+        awaitMaintenance();
+
+        roll(handler, "new");
+        assertEquals("old 2", read(new File(folder, "log.log." + period + ".2")));
+        assertEquals("new", read(new File(folder, "log.log." + period + ".3")));
+    }
+
+    @Test
+    public void retain_keepsBackupCountSegments() throws Exception {
+        FLHybridRotatingStrategy.WriteHandler handler = handler(2, 0, 0);
+        handler.onCreated();
+        awaitMaintenance();
+        for (int i = 0; i < 4; i++) {
+            roll(handler, "segment " + i);
+        }
+        String period = handler.period.format(handler.segmentStart);
+        assertFalse(new File(folder, "log.log." + period + ".2").exists());
+        assertEquals("segment 2", read(new File(folder, "log.log." + period + ".3")));
+        assertEquals("segment 3", read(new File(folder, "log.log." + period + ".4")));
+    }
+
+    @Test
+    public void retain_limitsTheTotalBytes() throws Exception {
+        FLHybridRotatingStrategy.WriteHandler handler = handler(10, 25, 0);
+        handler.onCreated();
+        awaitMaintenance();
+        for (int i = 0; i < 4; i++) {
+            roll(handler, "0123456789");
+        }
+        assertEquals(2, segmentCount());
+    }
+
+    @Test
+    public void retain_agesOutWhileIdle() throws Exception {
+        FLHybridRotatingStrategy.WriteHandler handler = handler(5, 0, 60 * MINUTE);
+        String period = handler.period.format(handler.segmentStart);
+        File old = write(new File(folder, "log.log." + period + ".1"), "old", now - 61 * MINUTE);
+        // ages out a second after the start
+        File aging = write(new File(folder, "log.log." + period + ".2"), "aging", now - 60 * MINUTE + 1000);
+        File recent = write(new File(folder, "log.log." + period + ".3"), "recent", now);
+
+        handler.onCreated();
+        awaitMaintenance();
+        assertFalse(old.exists());
+        assertTrue(aging.exists());
+
+        // nothing is logged, the handler wakes up on its own
+        long deadline = System.currentTimeMillis() + 5000;
+        while (aging.exists() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(50);
+        }
+        assertFalse(aging.exists());
+        assertTrue(recent.exists());
+    }
+
+    @Test
+    public void isSegment() {
+        FLHybridRotatingStrategy.WriteHandler handler = handler(5, 0, 0);
+        String period = handler.period.format(handler.segmentStart);
+        assertTrue(handler.isSegment("log.log." + period + ".1"));
+        assertTrue(handler.isSegment("log.log." + period + ".12.gz"));
+        assertFalse(handler.isSegment("log.log." + period + ".1" + FLSegmentIndex.EXTENSION));
+        assertFalse(handler.isSegment("log.log." + period));
+        assertFalse(handler.isSegment("log.log"));
+        assertFalse(handler.isSegment("log.log2." + period + ".1"));
+    }
+
+    private FLHybridRotatingStrategy.WriteHandler handler(int backupCount, long maxTotalBytes, long maxAge) {
+        FLWriterConfig config = new FLWriterConfig();
+        config.applyDefaults();
+        return new FLHybridRotatingStrategy.WriteHandler(FLLogWriterScheduler.getDefault().nextWorker(),
+                folder.getPath(), "log.log", 1024, backupCount, maxTotalBytes, maxAge,
+                FLTimedRotatingFormatStrategy.Builder.H, 1, WRITER_STREAM, config);
+    }
+
+    /**
+     * Writes {@code text} as the active file and rolls it over.
+     */
+    private void roll(FLHybridRotatingStrategy.WriteHandler handler, String text) throws Exception {
+        File logFile = new File(folder, "log.log");
+        write(logFile, text, System.currentTimeMillis());
+        handler.doRollover(folder, logFile);
+        awaitMaintenance();
+        assertFalse(logFile.exists());
+    }
+
+    private int segmentCount() {
+        return folder.list().length;
+    }
+}
@@ -0,0 +1,99 @@
+package com.forkliu.base.logger;
+
+import com.orhanobut.logger.Logger;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class FLLevelFilterTest {
+
+    @Test
+    public void isLoggable_defaultLevel() {
+        FLLevelFilter filter = new FLLevelFilter(Logger.INFO);
+        assertFalse(filter.isLoggable(Logger.DEBUG, null));
+        assertTrue(filter.isLoggable(Logger.INFO, null));
+        assertTrue(filter.isLoggable(Logger.ERROR, "Net"));
+        assertEquals(Logger.INFO, filter.getLevel("Net"));
+    }
+
+    @Test
+    public void isLoggable_tagOverridesInBothDirections() {
+        FLLevelFilter filter = new FLLevelFilter(Logger.INFO);
+        filter.setLevel("Net", Logger.VERBOSE);
+        filter.setLevel("Noisy", Logger.ERROR);
+
+        assertTrue(filter.isLoggable(Logger.VERBOSE, "Net"));
+        assertFalse(filter.isLoggable(Logger.VERBOSE, "Db"));
+        assertFalse(filter.isLoggable(Logger.VERBOSE, null));
+        assertFalse(filter.isLoggable(Logger.WARN, "Noisy"));
+        assertTrue(filter.isLoggable(Logger.WARN, "Db"));
+        assertEquals(Logger.VERBOSE, filter.getLevel("Net"));
+        assertEquals(Logger.INFO, filter.getLevel(null));
+    }
+
+    @Test
+    public void isLoggable_minFollowsTheOverrides() {
+        FLLevelFilter filter = new FLLevelFilter(Logger.WARN);
+        filter.setLevel("Net", Logger.DEBUG);
+        assertTrue(filter.isLoggable(Logger.DEBUG, "Net"));
+
+        // the lowest level is WARN again, DEBUG is turned away before the lookup
+        filter.clearLevel("Net");
+        assertFalse(filter.isLoggable(Logger.DEBUG, "Net"));
+        assertTrue(filter.isLoggable(Logger.WARN, "Net"));
+
+        filter.setLevel("Net", Logger.DEBUG);
+        filter.clearLevels();
+        assertFalse(filter.isLoggable(Logger.INFO, "Net"));
+    }
+
+    @Test
+    public void setLevel_keepsTheOverrides() {
+        FLLevelFilter filter = new FLLevelFilter(Logger.INFO);
+        filter.setLevel("Net", Logger.VERBOSE);
+        filter.setLevel(Logger.ERROR);
+
+        assertTrue(filter.isLoggable(Logger.VERBOSE, "Net"));
+        assertFalse(filter.isLoggable(Logger.WARN, "Db"));
+        assertEquals(Logger.ERROR, filter.getLevel(null));
+    }
+
+    @Test
+    public void clearLevel_unknownTag() {
+        FLLevelFilter filter = new FLLevelFilter(Logger.INFO);
+        filter.clearLevel("Net");
+        assertEquals(Logger.INFO, filter.getLevel("Net"));
+    }
+
+    @Test
+    public void setLevel_concurrentUpdatesAreNotLost() throws InterruptedException {
+        final FLLevelFilter filter = new FLLevelFilter(Logger.ASSERT);
+        Thread[] threads = new Thread[4];
+        for (int t = 0; t < threads.length; t++) {
+            final int thread = t;
+            threads[t] = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    for (int i = 0; i < 200; i++) {
+                        filter.setLevel("tag" + thread + "-" + i, Logger.VERBOSE);
+                        // readers never block on the writers
+                        filter.isLoggable(Logger.DEBUG, "tag0-0");
+                    }
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        for (int t = 0; t < threads.length; t++) {
+            for (int i = 0; i < 200; i++) {
+                assertTrue(filter.isLoggable(Logger.VERBOSE, "tag" + t + "-" + i));
+            }
+        }
+        assertFalse(filter.isLoggable(Logger.ERROR, "other"));
+    }
+}
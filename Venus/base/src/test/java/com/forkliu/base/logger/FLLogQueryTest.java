@@ -0,0 +1,200 @@
+package com.forkliu.base.logger;
+
+import com.orhanobut.logger.Logger;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+import static com.forkliu.base.logger.FLSegmentIndexTest.line;
+import static com.forkliu.base.logger.FLSegmentIndexTest.truncate;
+import static com.forkliu.base.logger.FLSegmentIndexTest.write;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class FLLogQueryTest {
+    @Rule public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private File folder;
+    private long now;
+
+    @Before
+    public void setUp() throws IOException {
+        folder = temporaryFolder.newFolder("logger");
+        now = System.currentTimeMillis();
+    }
+
+    @Test
+    public void query_rangeBetweenIndexBlocks() throws Exception {
+        File segment = new File(folder, "log.log");
+        write(segment, 2, true,
+                line(1000, 'I'), line(1001, 'I'),
+                line(2000, 'I'), line(2001, 'I'));
+        assertEquals(Collections.<Long>emptyList(), millis(query(1500, 1900, Logger.VERBOSE)));
+
+        // the first block holds records of the range now, its index entry says it doesn't
+        rewrite(segment, "1000,", "2000,");
+        rewrite(segment, "1001,", "2001,");
+        assertEquals(Arrays.asList(2000L, 2001L), millis(query(1500, 2500, Logger.VERBOSE)));
+    }
+
+    @Test
+    public void query_skipsBlocksWithoutTheLevel() throws Exception {
+        File segment = new File(folder, "log.log");
+        write(segment, 2, true,
+                line(1000, 'D'), line(1001, 'D'),
+                line(2000, 'D'), line(2001, 'E'));
+        // the first block has no ERROR, its records aren't even parsed
+        rewrite(segment, "1000,2020.10.18 10:00:00.000,D", "1000,2020.10.18 10:00:00.000,E");
+        assertEquals(Collections.singletonList(2001L), millis(query(0, Long.MAX_VALUE, Logger.ERROR)));
+    }
+
+    @Test
+    public void query_segmentWithoutSidecarIsScanned() throws Exception {
+        write(new File(folder, "log.log"), 0, false,
+                line(1000, 'D'), line(2000, 'W'), line(3000, 'E'), line(4000, 'I'));
+        assertEquals(Arrays.asList(2000L, 3000L), millis(query(1500, 3500, Logger.INFO)));
+    }
+
+    @Test
+    public void query_sidecarPastTheEndOfTheSegment() throws Exception {
+        File segment = new File(folder, "log.log");
+        write(segment, 1, true, line(1000, 'I'), line(2000, 'I'), line(3000, 'I'));
+        // the data of the last block never reached the storage, its index entry did
+        long end = FLSegmentIndex.read(segment).offsets[3];
+        truncate(segment, end + 2);
+
+        assertEquals(Arrays.asList(1000L, 2000L), millis(query(0, Long.MAX_VALUE, Logger.VERBOSE)));
+        assertEquals(Collections.<Long>emptyList(), millis(query(2500, 3500, Logger.VERBOSE)));
+    }
+
+    @Test
+    public void query_acrossRolledSegments() throws Exception {
+        File oldest = new File(folder, "log.log.3");
+        write(oldest, 1, true, line(1000, 'I', "Venus-Net", "a"), line(1100, 'D', "Venus-Net", "b"));
+        gzip(oldest);
+        write(new File(folder, "log.log.2"), 2, true,
+                line(2000, 'W', "Venus-Db", "c"), line(2100, 'I', "Venus-Net", "d"));
+        write(new File(folder, "log.log.1"), 0, false, line(3000, 'E', "Venus-Net", "e"));
+        write(new File(folder, "log.log"), 1, false, line(4000, 'I', "Venus-Net", "f"));
+        write(new File(folder, "other.log"), 0, false, line(1500, 'I', "Venus-Net", "x"));
+        touch("log.log.3.gz", now - 4000);
+        touch("log.log.2", now - 3000);
+        touch("log.log.1", now - 2000);
+        touch("log.log", now - 1000);
+        touch("other.log", now);
+
+        FLLogCursor cursor = builder().minLevel(Logger.INFO).tag("Venus-Net").build().open();
+        List<String> messages = new ArrayList<>();
+        List<String> files = new ArrayList<>();
+        try {
+            while (cursor.next()) {
+                messages.add(cursor.getMessage());
+                files.add(cursor.getFile().getName());
+            }
+        } finally {
+            cursor.close();
+        }
+        assertEquals(Arrays.asList("a", "d", "e", "f"), messages);
+        assertEquals(Arrays.asList("log.log.3.gz", "log.log.2", "log.log.1", "log.log"), files);
+    }
+
+    @Test
+    public void cursor_readsTheColumns() throws Exception {
+        write(new File(folder, "log.log"), 0, false, line(1000, 'W', "Venus-Net", "took 3 ms"));
+        FLLogCursor cursor = builder().build().open();
+        try {
+            assertTrue(cursor.next());
+            assertEquals(1000, cursor.getMillis());
+            assertEquals(Logger.WARN, cursor.getLevel());
+            assertEquals("Venus-Net", cursor.getTag());
+            assertEquals("took 3 ms", cursor.getMessage());
+            assertEquals(line(1000, 'W', "Venus-Net", "took 3 ms").trim(), cursor.getLine());
+            assertFalse(cursor.next());
+        } finally {
+            cursor.close();
+        }
+    }
+
+    @Test(expected = FLLoggerException.class)
+    public void build_withoutLogDir() throws FLLoggerException {
+        FLLogQuery.newBuilder().logName("log.log").build();
+    }
+
+    private FLLogQuery.Builder builder() {
+        return FLLogQuery.newBuilder()
+                .logDir(folder.getParent())
+                .logName("log.log");
+    }
+
+    private FLLogCursor query(long from, long to, int minLevel) throws FLLoggerException {
+        return builder().from(from).to(to).minLevel(minLevel).build().open();
+    }
+
+    private static List<Long> millis(FLLogCursor cursor) throws IOException {
+        List<Long> millis = new ArrayList<>();
+        try {
+            while (cursor.next()) {
+                millis.add(cursor.getMillis());
+            }
+        } finally {
+            cursor.close();
+        }
+        return millis;
+    }
+
+    /**
+     * Replaces {@code from} with {@code to} of the same length, leaving the index as it is.
+     */
+    private static void rewrite(File segment, String from, String to) throws IOException {
+        byte[] data = new byte[(int) segment.length()];
+        RandomAccessFile raf = new RandomAccessFile(segment, "rw");
+        try {
+            raf.readFully(data);
+            String text = new String(data, StandardCharsets.UTF_8);
+            int at = text.indexOf(from);
+            assertTrue(at >= 0 && from.length() == to.length());
+            raf.seek(at);
+            raf.write(to.getBytes(StandardCharsets.UTF_8));
+        } finally {
+            raf.close();
+        }
+    }
+
+    /**
+     * Compresses {@code segment} the way a rolled segment is, its index stays where it is.
+     */
+    private static void gzip(File segment) throws IOException {
+        FileInputStream in = new FileInputStream(segment);
+        GZIPOutputStream out = new GZIPOutputStream(new FileOutputStream(segment.getPath() + FLCompression.EXTENSION));
+        try {
+            byte[] buffer = new byte[4096];
+            int n;
+            while ((n = in.read(buffer)) > 0) {
+                out.write(buffer, 0, n);
+            }
+        } finally {
+            in.close();
+            out.close();
+        }
+        assertTrue(segment.delete());
+    }
+
+    private void touch(String name, long lastModified) {
+        assertTrue(new File(folder, name).setLastModified(lastModified));
+    }
+}
@@ -0,0 +1,139 @@
+package com.forkliu.base.logger;
+
+import com.orhanobut.logger.FormatStrategy;
+import com.orhanobut.logger.LogAdapter;
+import com.orhanobut.logger.Logger;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class FLLogTest {
+
+    @After
+    public void tearDown() {
+        FLLog.clearLogAdapters();
+    }
+
+    @Test
+    public void log_filteredLevelIsNeverFormatted() {
+        RecordingAdapter adapter = new RecordingAdapter(Logger.INFO);
+        FLLog.addLogAdapter(adapter);
+        Counting arg = new Counting();
+
+        FLLog.d("value {}", arg);
+        FLLog.d("values {} {}", arg, arg);
+        FLLog.d(new FLMessageSupplier() {
+            @Override
+            public String get() {
+                throw new AssertionError("built for a filtered level");
+            }
+        });
+
+        assertEquals(0, arg.calls);
+        assertTrue(adapter.messages.isEmpty());
+    }
+
+    @Test
+    public void log_formatsOnceForEveryAdapter() {
+        RecordingAdapter first = new RecordingAdapter(Logger.WARN);
+        RecordingAdapter second = new RecordingAdapter(Logger.DEBUG);
+        RecordingAdapter third = new RecordingAdapter(Logger.INFO);
+        FLLog.addLogAdapter(first);
+        FLLog.addLogAdapter(second);
+        FLLog.addLogAdapter(third);
+        Counting arg = new Counting();
+
+        FLLog.i("{} of {}", arg, 2);
+
+        assertEquals(1, arg.calls);
+        assertTrue(first.messages.isEmpty());
+        assertEquals(Collections.singletonList("counted of 2"), second.messages);
+        assertEquals(Collections.singletonList("counted of 2"), third.messages);
+    }
+
+    @Test
+    public void log_passesLevelAndTag() {
+        RecordingAdapter adapter = new RecordingAdapter(Logger.VERBOSE);
+        FLLog.addLogAdapter(adapter);
+
+        FLLog.log(Logger.WARN, "Net", "took {} ms", 12L);
+        assertEquals(Logger.WARN, adapter.priority);
+        assertEquals("Net", adapter.tag);
+
+        FLLog.e("ratio {}", 0.25);
+        assertEquals(Logger.ERROR, adapter.priority);
+        assertNull(adapter.tag);
+        assertEquals(Arrays.asList("took 12 ms", "ratio 0.25"), adapter.messages);
+    }
+
+    @Test
+    public void isLoggable_asksTheAdapters() {
+        FLLog.addLogAdapter(new RecordingAdapter(Logger.WARN));
+        assertFalse(FLLog.isLoggable(Logger.INFO, null));
+        assertTrue(FLLog.isLoggable(Logger.WARN, "Net"));
+
+        FLLog.clearLogAdapters();
+        assertFalse(FLLog.isLoggable(Logger.ASSERT, null));
+    }
+
+    @Test
+    public void isLoggable_doesNotCountAsFiltered() {
+        FLFileLogAdapter adapter = new FLFileLogAdapter(new FormatStrategy() {
+            @Override
+            public void log(int priority, String tag, String message) {
+            }
+        });
+        adapter.setLogLevel(Logger.INFO);
+        FLLog.addLogAdapter(adapter);
+
+        assertFalse(FLLog.isLoggable(Logger.DEBUG, null));
+        assertEquals(0, adapter.getStats().getFiltered());
+
+        // counted once by the logging call itself
+        FLLog.d("filtered");
+        assertEquals(1, adapter.getStats().getFiltered());
+    }
+
+    private static final class RecordingAdapter implements LogAdapter {
+        private final int level;
+        final List<String> messages = new ArrayList<>();
+        int priority;
+        String tag;
+
+        RecordingAdapter(int level) {
+            this.level = level;
+        }
+
+        @Override
+        public boolean isLoggable(int priority, String tag) {
+            return priority >= level;
+        }
+
+        @Override
+        public void log(int priority, String tag, String message) {
+            this.priority = priority;
+            this.tag = tag;
+            messages.add(message);
+        }
+    }
+
+    private static final class Counting {
+        int calls;
+
+        @Override
+        public String toString() {
+            calls++;
+            return "counted";
+        }
+    }
+}
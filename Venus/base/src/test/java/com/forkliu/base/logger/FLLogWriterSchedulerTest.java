@@ -0,0 +1,105 @@
+package com.forkliu.base.logger;
+
+import com.orhanobut.logger.Logger;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import static com.forkliu.base.logger.FLRotatingFormatStrategy.Builder.WRITER_STREAM;
+import static com.forkliu.base.logger.FLTestUtils.handle;
+import static com.forkliu.base.logger.FLTestUtils.idleWorker;
+import static com.forkliu.base.logger.FLTestUtils.read;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Sharing of the writer threads and the turns of the sinks on them. The messages of the
+ * worker and the handlers are handled by hand.
+ */
+public class FLLogWriterSchedulerTest {
+    @Rule public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private File folder;
+
+    @Before
+    public void setUp() throws IOException {
+        folder = temporaryFolder.newFolder("logger");
+    }
+
+    @Test
+    public void nextWorker_handsTheThreadsOutRoundRobin() {
+        FLLogWriterScheduler scheduler = new FLLogWriterScheduler(2);
+        FLLogWriterScheduler.Worker first = scheduler.nextWorker();
+        FLLogWriterScheduler.Worker second = scheduler.nextWorker();
+        assertNotSame(first, second);
+        assertSame(first, scheduler.nextWorker());
+        assertSame(second, scheduler.nextWorker());
+    }
+
+    @Test
+    public void getDefault_isShared() {
+        FLLogWriterScheduler scheduler = FLLogWriterScheduler.getDefault();
+        assertSame(scheduler, FLLogWriterScheduler.getDefault());
+        assertSame(scheduler.nextWorker(), scheduler.nextWorker());
+    }
+
+    @Test
+    public void drain_writesAtMostBatchSizeRecordsPerTurn() throws Exception {
+        FLWriterConfig config = new FLWriterConfig();
+        config.batchSize = 4;
+        FLLogWriterScheduler.Worker worker = idleWorker();
+        FLRotatingStrategy.WriteHandler handler = handler(worker, "log.log", config);
+        File logFile = new File(folder, "log.log");
+        for (int i = 0; i < 10; i++) {
+            // the ERROR is flushed with its batch right away
+            log(handler, i == 3 ? Logger.ERROR : Logger.INFO, "r" + i + "\n");
+        }
+
+        handle(handler, FLFileWriteHandler.MSG_DRAIN);
+        assertEquals("r0\nr1\nr2\nr3\n", read(logFile));
+        // buffered until the worker's flush timer is up, which writes the rest too
+        handle(handler, FLFileWriteHandler.MSG_DRAIN);
+        assertEquals("r0\nr1\nr2\nr3\n", read(logFile));
+        handle(worker, FLLogWriterScheduler.Worker.MSG_TICK);
+        assertTrue(config.transport.isEmpty());
+        assertEquals("r0\nr1\nr2\nr3\nr4\nr5\nr6\nr7\nr8\nr9\n", read(logFile));
+    }
+
+    @Test
+    public void tick_flushesEverySinkOfTheThread() throws Exception {
+        FLLogWriterScheduler.Worker worker = idleWorker();
+        FLRotatingStrategy.WriteHandler a = handler(worker, "a.log", new FLWriterConfig());
+        FLRotatingStrategy.WriteHandler b = handler(worker, "b.log", new FLWriterConfig());
+        log(a, Logger.INFO, "a\n");
+        log(b, Logger.INFO, "b\n");
+        handle(a, FLFileWriteHandler.MSG_DRAIN);
+        handle(b, FLFileWriteHandler.MSG_DRAIN);
+        assertFalse(new File(folder, "a.log").length() > 0);
+        assertFalse(new File(folder, "b.log").length() > 0);
+
+        handle(worker, FLLogWriterScheduler.Worker.MSG_TICK);
+        assertEquals("a\n", read(new File(folder, "a.log")));
+        assertEquals("b\n", read(new File(folder, "b.log")));
+    }
+
+    private FLRotatingStrategy.WriteHandler handler(FLLogWriterScheduler.Worker worker, String logName,
+                                                    FLWriterConfig config) {
+        config.applyDefaults();
+        return new FLRotatingStrategy.WriteHandler(worker, folder.getPath(), logName,
+                1024 * 1024, 3, WRITER_STREAM, config);
+    }
+
+    private static void log(FLFileWriteHandler handler, int level, String line) {
+        byte[] data = line.getBytes(StandardCharsets.UTF_8);
+        handler.enqueue(level, System.nanoTime(), data, 0, data.length);
+    }
+}
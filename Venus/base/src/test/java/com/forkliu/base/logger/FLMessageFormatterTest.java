@@ -0,0 +1,77 @@
+package com.forkliu.base.logger;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class FLMessageFormatterTest {
+
+    @Test
+    public void format_replacesThePlaceholdersInOrder() {
+        assertEquals("a=1", FLMessageFormatter.format("a={}", "1"));
+        assertEquals("1 of 2", FLMessageFormatter.format("{} of {}", 1, 2));
+        assertEquals("1, 2, 3", FLMessageFormatter.format("{}, {}, {}", new Object[]{1, 2, 3}));
+        assertEquals("null", FLMessageFormatter.format("{}", (Object) null));
+    }
+
+    @Test
+    public void format_primitives() {
+        assertEquals("n=42 ms", FLMessageFormatter.format("n={} ms", 42L));
+        assertEquals("x=0.5", FLMessageFormatter.format("x={}", 0.5));
+    }
+
+    @Test
+    public void format_keepsPlaceholdersWithoutArgument() {
+        assertEquals("1 and {}", FLMessageFormatter.format("{} and {}", "1"));
+        assertEquals("1 {} {}", FLMessageFormatter.format("{} {} {}", new Object[]{1}));
+    }
+
+    @Test
+    public void format_dropsArgumentsWithoutPlaceholder() {
+        assertEquals("1", FLMessageFormatter.format("{}", 1, 2));
+        assertEquals("none", FLMessageFormatter.format("none", new Object[]{1, 2}));
+        assertEquals("none", FLMessageFormatter.format("none", 3L));
+    }
+
+    @Test
+    public void format_withoutPlaceholderReturnsTheFormat() {
+        String format = "nothing to replace";
+        assertSame(format, FLMessageFormatter.format(format, "x"));
+        assertSame(format, FLMessageFormatter.format(format, 1L));
+        assertSame(format, FLMessageFormatter.format(format, new Object[0]));
+    }
+
+    @Test
+    public void format_escapedPlaceholderIsLiteral() {
+        assertEquals("set {} to 1", FLMessageFormatter.format("set \\{} to {}", 1));
+        assertEquals("{} 1 2", FLMessageFormatter.format("\\{} {} {}", 1, 2));
+        assertEquals("{}", FLMessageFormatter.format("\\{}", 1L));
+    }
+
+    @Test
+    public void format_escapedBackslashKeepsThePlaceholder() {
+        assertEquals("C:\\1", FLMessageFormatter.format("C:\\\\{}", "1"));
+        assertEquals("\\1 and 2", FLMessageFormatter.format("\\\\{} and {}", 1, 2));
+    }
+
+    @Test
+    public void format_restAfterTheLastArgumentIsKept() {
+        assertEquals("1 \\{}", FLMessageFormatter.format("{} \\{}", "1"));
+    }
+
+    @Test
+    public void format_lastThrowableAddsItsStackTrace() {
+        Exception e = new IllegalStateException("boom");
+        String message = FLMessageFormatter.format("upload of {} failed", "a.txt", e);
+        assertTrue(message, message.startsWith("upload of a.txt failed" + FLCsvFormatter.NEW_LINE
+                + "java.lang.IllegalStateException: boom"));
+
+        message = FLMessageFormatter.format("failed", e);
+        assertTrue(message, message.startsWith("failed" + FLCsvFormatter.NEW_LINE));
+
+        // taken by a placeholder, no stack trace
+        assertEquals("failed: " + e, FLMessageFormatter.format("failed: {}", e));
+    }
+}
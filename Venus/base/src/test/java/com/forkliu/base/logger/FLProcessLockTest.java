@@ -0,0 +1,122 @@
+package com.forkliu.base.logger;
+
+import com.orhanobut.logger.Logger;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static com.forkliu.base.logger.FLTestUtils.awaitMaintenance;
+import static com.forkliu.base.logger.FLTestUtils.read;
+import static com.forkliu.base.logger.FLTestUtils.rotating;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class FLProcessLockTest {
+    @Rule public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private File folder;
+
+    @Before
+    public void setUp() throws IOException {
+        folder = temporaryFolder.newFolder("logger");
+    }
+
+    @Test
+    public void forFile_sharedWithinTheProcess() {
+        File file = new File(folder, "log.log" + FLProcessLock.EXTENSION);
+        assertSame(FLProcessLock.forFile(file), FLProcessLock.forFile(new File(folder.getPath(), "log.log.lock")));
+        assertNotSame(FLProcessLock.forFile(file), FLProcessLock.forFile(new File(folder, "app.log.lock")));
+    }
+
+    @Test
+    public void lock_keepsOtherThreadsOut() throws Exception {
+        final FLProcessLock lock = FLProcessLock.forFile(new File(folder, "threads.lock"));
+        final CountDownLatch started = new CountDownLatch(1);
+        final AtomicBoolean entered = new AtomicBoolean();
+        final CountDownLatch done = new CountDownLatch(1);
+        // both strategies of the process go through the same instance
+        lock.lock();
+        Thread other = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                started.countDown();
+                try {
+                    FLProcessLock.forFile(new File(folder, "threads.lock")).lock();
+                } catch (IOException e) {
+                    throw new AssertionError(e);
+                }
+                entered.set(true);
+                FLProcessLock.forFile(new File(folder, "threads.lock")).unlock();
+                done.countDown();
+            }
+        });
+        other.start();
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        Thread.sleep(100);
+        assertFalse(entered.get());
+
+        lock.unlock();
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertTrue(entered.get());
+    }
+
+    @Test
+    public void advance_survivesClose() throws IOException {
+        FLProcessLock lock = FLProcessLock.forFile(new File(folder, "generation.lock"));
+        lock.lock();
+        try {
+            assertEquals(0, lock.generation());
+            assertEquals(1, lock.advance());
+            assertEquals(2, lock.advance());
+        } finally {
+            lock.unlock();
+        }
+        lock.close();
+
+        lock.lock();
+        try {
+            assertEquals(2, lock.generation());
+        } finally {
+            lock.unlock();
+        }
+        lock.close();
+    }
+
+    @Test
+    public void rolloverIfDue_takesTheLockAndAdvancesTheGeneration() throws Exception {
+        FLWriterConfig config = new FLWriterConfig();
+        config.multiProcess = true;
+        FLRotatingStrategy.WriteHandler handler = rotating(folder, "shared.log", 3, config);
+        // past maxFileSize, so the file is due once it is written
+        byte[] record = new byte[2048];
+        Arrays.fill(record, (byte) 'x');
+        handler.enqueue(Logger.INFO, System.nanoTime(), record, 0, record.length);
+
+        handler.rolloverIfDue();
+        awaitMaintenance();
+
+        assertFalse(new File(folder, "shared.log").exists());
+        assertEquals(new String(record, StandardCharsets.US_ASCII), read(new File(folder, "shared.log.1")));
+        FLProcessLock lock = FLProcessLock.forFile(new File(folder, "shared.log" + FLProcessLock.EXTENSION));
+        lock.lock();
+        try {
+            assertEquals(1, lock.generation());
+        } finally {
+            lock.unlock();
+        }
+        lock.close();
+    }
+}
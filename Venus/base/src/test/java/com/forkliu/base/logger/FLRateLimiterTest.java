@@ -0,0 +1,61 @@
+package com.forkliu.base.logger;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class FLRateLimiterTest {
+
+    @Test
+    public void acquire_burstThenDenied() {
+        // a token every second, the test never sees a refill
+        FLRateLimiter limiter = new FLRateLimiter(1, 3);
+        for (int i = 0; i < 3; i++) {
+            assertEquals(0, limiter.acquire("Net"));
+        }
+        assertEquals(FLRateLimiter.DENIED, limiter.acquire("Net"));
+        assertEquals(FLRateLimiter.DENIED, limiter.acquire("Net"));
+    }
+
+    @Test
+    public void acquire_bucketPerTag() {
+        FLRateLimiter limiter = new FLRateLimiter(1, 1);
+        assertEquals(0, limiter.acquire("Net"));
+        assertEquals(FLRateLimiter.DENIED, limiter.acquire("Net"));
+        assertEquals(0, limiter.acquire("Db"));
+        assertEquals(0, limiter.acquire(null));
+        assertEquals(FLRateLimiter.DENIED, limiter.acquire(null));
+    }
+
+    @Test
+    public void acquire_tagsBeyondTheLimitShareABucket() {
+        FLRateLimiter limiter = new FLRateLimiter(1, 1);
+        for (int i = 0; i < 256; i++) {
+            assertEquals(0, limiter.acquire("tag" + i));
+        }
+        // the shared bucket, also used by records without a tag
+        assertEquals(0, limiter.acquire("tag256"));
+        assertEquals(FLRateLimiter.DENIED, limiter.acquire("tag257"));
+        assertEquals(FLRateLimiter.DENIED, limiter.acquire(null));
+    }
+
+    @Test
+    public void acquire_reportsTheDroppedRecords() throws InterruptedException {
+        // a token every 100 ms
+        FLRateLimiter limiter = new FLRateLimiter(10, 1);
+        assertEquals(0, limiter.acquire("Net"));
+        for (int i = 0; i < 4; i++) {
+            assertEquals(FLRateLimiter.DENIED, limiter.acquire("Net"));
+        }
+        Thread.sleep(250);
+        assertEquals(4, limiter.acquire("Net"));
+        assertEquals(FLRateLimiter.DENIED, limiter.acquire("Net"));
+        Thread.sleep(250);
+        assertEquals(1, limiter.acquire("Net"));
+    }
+
+    @Test
+    public void droppedMessage() {
+        assertEquals("... 12 records dropped by the rate limit", FLRateLimiter.droppedMessage(12));
+    }
+}
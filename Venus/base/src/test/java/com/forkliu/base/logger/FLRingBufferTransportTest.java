@@ -0,0 +1,150 @@
+package com.forkliu.base.logger;
+
+import com.orhanobut.logger.Logger;
+
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class FLRingBufferTransportTest {
+
+    @Test
+    public void capacity_roundedUpToPowerOfTwo() {
+        FLLogTransport transport = FLLogTransport.ringBuffer(3, FLLogTransport.OVERFLOW_DROP_NEWEST);
+        for (int i = 0; i < 4; i++) {
+            assertTrue(offer(transport, Logger.INFO, i));
+        }
+        assertFalse(offer(transport, Logger.INFO, 4));
+        assertEquals(4, transport.size());
+    }
+
+    @Test
+    public void dropNewest_keepsTheQueuedRecords() {
+        FLLogTransport transport = FLLogTransport.ringBuffer(4, FLLogTransport.OVERFLOW_DROP_NEWEST);
+        for (int i = 0; i < 6; i++) {
+            assertEquals(i < 4, offer(transport, Logger.INFO, i));
+        }
+        assertPolls(transport, 0, 1, 2, 3);
+        assertEquals(0, transport.dropped());
+    }
+
+    @Test
+    public void dropOldest_makesRoomForTheNewest() {
+        FLLogTransport transport = FLLogTransport.ringBuffer(4, FLLogTransport.OVERFLOW_DROP_OLDEST);
+        for (int i = 0; i < 6; i++) {
+            assertTrue(offer(transport, Logger.INFO, i));
+        }
+        assertPolls(transport, 2, 3, 4, 5);
+        assertEquals(2, transport.dropped());
+    }
+
+    @Test
+    public void dropBelowLevel_onlyImportantRecordsMakeRoom() {
+        FLLogTransport transport = FLLogTransport.ringBuffer(4, FLLogTransport.OVERFLOW_DROP_BELOW_LEVEL, Logger.WARN);
+        for (int i = 0; i < 4; i++) {
+            assertTrue(offer(transport, Logger.DEBUG, i));
+        }
+        assertFalse(offer(transport, Logger.INFO, 4));
+        assertTrue(offer(transport, Logger.WARN, 5));
+        assertTrue(offer(transport, Logger.ERROR, 6));
+        assertPolls(transport, 2, 3, 5, 6);
+        assertEquals(2, transport.dropped());
+    }
+
+    @Test
+    public void block_waitsForTheWriter() throws InterruptedException {
+        final FLLogTransport transport = FLLogTransport.ringBuffer(2, FLLogTransport.OVERFLOW_BLOCK);
+        assertTrue(offer(transport, Logger.INFO, 0));
+        assertTrue(offer(transport, Logger.INFO, 1));
+
+        final CountDownLatch offered = new CountDownLatch(1);
+        Thread producer = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                offer(transport, Logger.INFO, 2);
+                offered.countDown();
+            }
+        });
+        producer.start();
+        assertFalse(offered.await(100, TimeUnit.MILLISECONDS));
+
+        assertPoll(transport, 0);
+        assertTrue(offered.await(5, TimeUnit.SECONDS));
+        assertPolls(transport, 1, 2);
+        assertEquals(0, transport.dropped());
+        producer.join();
+    }
+
+    @Test
+    public void poll_copiesRecordsOfAnyLength() {
+        FLLogTransport transport = FLLogTransport.ringBuffer(2, FLLogTransport.OVERFLOW_DROP_NEWEST);
+        FLLogRecord record = new FLLogRecord();
+        for (int length : new int[]{1000, 3, 5000, 0}) {
+            byte[] data = new byte[length + 2];
+            for (int i = 0; i < data.length; i++) data[i] = (byte) i;
+            assertTrue(transport.offer(Logger.WARN, length, data, 1, length));
+            assertTrue(transport.poll(record));
+            assertEquals(Logger.WARN, record.level);
+            assertEquals(length, record.nanos);
+            assertEquals(length, record.length);
+            for (int i = 0; i < length; i++) {
+                assertEquals(data[i + 1], record.data[i]);
+            }
+        }
+        assertTrue(transport.isEmpty());
+        assertFalse(transport.poll(record));
+    }
+
+    @Test
+    public void clear_discardsEverything() {
+        FLLogTransport transport = FLLogTransport.ringBuffer(4, FLLogTransport.OVERFLOW_DROP_NEWEST);
+        offer(transport, Logger.INFO, 0);
+        offer(transport, Logger.INFO, 1);
+        transport.clear();
+        assertTrue(transport.isEmpty());
+        assertEquals(0, transport.dropped());
+        assertTrue(offer(transport, Logger.INFO, 2));
+        assertPolls(transport, 2);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void ringBuffer_dropBelowLevelNeedsALevel() {
+        FLLogTransport.ringBuffer(4, FLLogTransport.OVERFLOW_DROP_BELOW_LEVEL);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void ringBuffer_unknownPolicy() {
+        FLLogTransport.ringBuffer(4, 0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void ringBuffer_capacityOutOfRange() {
+        FLLogTransport.ringBuffer(0, FLLogTransport.OVERFLOW_BLOCK);
+    }
+
+    private static boolean offer(FLLogTransport transport, int level, int value) {
+        byte[] data = Integer.toString(value).getBytes();
+        return transport.offer(level, value, data, 0, data.length);
+    }
+
+    private static void assertPoll(FLLogTransport transport, int value) {
+        FLLogRecord record = new FLLogRecord();
+        assertTrue(transport.poll(record));
+        assertEquals(Integer.toString(value), new String(record.data, 0, record.length));
+    }
+
+    /**
+     * Polls exactly {@code values}.
+     */
+    private static void assertPolls(FLLogTransport transport, int... values) {
+        for (int value : values) {
+            assertPoll(transport, value);
+        }
+        assertTrue(transport.isEmpty());
+    }
+}
@@ -0,0 +1,110 @@
+package com.forkliu.base.logger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Calendar;
+import java.util.TimeZone;
+
+import static com.forkliu.base.logger.FLTimedRotatingFormatStrategy.Builder.D;
+import static com.forkliu.base.logger.FLTimedRotatingFormatStrategy.Builder.H;
+import static com.forkliu.base.logger.FLTimedRotatingFormatStrategy.Builder.M;
+import static com.forkliu.base.logger.FLTimedRotatingFormatStrategy.Builder.S;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class FLRollPeriodTest {
+    private TimeZone defaultZone;
+
+    @Before
+    public void setUp() {
+        defaultZone = TimeZone.getDefault();
+        TimeZone.setDefault(TimeZone.getTimeZone("Asia/Shanghai"));
+    }
+
+    @After
+    public void tearDown() {
+        TimeZone.setDefault(defaultZone);
+    }
+
+    @Test
+    public void seconds() {
+        FLRollPeriod period = new FLRollPeriod(S, 10);
+        long time = time(2026, 10, 18, 14, 37, 25, 678);
+        assertEquals(time(2026, 10, 18, 14, 37, 20, 0), period.start(time));
+        assertEquals(time(2026, 10, 18, 14, 37, 30, 0), period.next(time));
+        // 50 + 10 crosses the minute
+        assertEquals(time(2026, 10, 18, 14, 38, 0, 0), period.next(time(2026, 10, 18, 14, 37, 55, 0)));
+        assertEquals("2026-10-18_14-37-20", period.format(time));
+    }
+
+    @Test
+    public void minutes() {
+        FLRollPeriod period = new FLRollPeriod(M, 15);
+        long time = time(2026, 10, 18, 14, 47, 12, 345);
+        assertEquals(time(2026, 10, 18, 14, 45, 0, 0), period.start(time));
+        assertEquals(time(2026, 10, 18, 15, 0, 0, 0), period.next(time));
+        assertEquals("2026-10-18_14-45", period.format(time));
+    }
+
+    @Test
+    public void hours_neverCrossTheDay() {
+        FLRollPeriod period = new FLRollPeriod(H, 5);
+        // 20:00 + 5h would be 01:00, the next day starts at 00:00
+        long time = time(2026, 10, 18, 21, 30, 0, 0);
+        assertEquals(time(2026, 10, 18, 20, 0, 0, 0), period.start(time));
+        assertEquals(time(2026, 10, 19, 0, 0, 0, 0), period.next(time));
+        assertEquals(time(2026, 10, 19, 5, 0, 0, 0), period.next(time(2026, 10, 19, 0, 0, 0, 0)));
+        assertEquals("2026-10-18_20", period.format(time));
+    }
+
+    @Test
+    public void days_startAtMidnight() {
+        FLRollPeriod period = new FLRollPeriod(D, 1);
+        long time = time(2026, 12, 31, 23, 59, 59, 999);
+        assertEquals(time(2026, 12, 31, 0, 0, 0, 0), period.start(time));
+        assertEquals(time(2027, 1, 1, 0, 0, 0, 0), period.next(time));
+        assertEquals("2026-12-31", period.format(time));
+    }
+
+    @Test
+    public void unknownUnit_isDays() {
+        FLRollPeriod period = new FLRollPeriod(42, 1);
+        long time = time(2026, 10, 18, 14, 37, 25, 678);
+        assertEquals(time(2026, 10, 18, 0, 0, 0, 0), period.start(time));
+        assertEquals("2026-10-18", period.format(time));
+    }
+
+    @Test
+    public void boundary_startsTheNextPeriod() {
+        int[] units = {S, M, H, D};
+        for (int when : units) {
+            // the days aren't aligned to the interval, every one starts at midnight
+            FLRollPeriod period = new FLRollPeriod(when, when == D ? 1 : 2);
+            long start = period.start(time(2026, 10, 18, 14, 37, 25, 678));
+            long next = period.next(start);
+            assertEquals(start, period.start(next - 1));
+            assertEquals(next, period.start(next));
+            assertEquals(next, period.next(next - 1));
+        }
+    }
+
+    @Test
+    public void matches_exactSuffixOnly() {
+        FLRollPeriod period = new FLRollPeriod(H, 1);
+        assertTrue(period.matches("2026-10-18_14"));
+        assertFalse(period.matches("2026-10-18_14-37"));
+        assertFalse(period.matches("2026-10-18"));
+        assertFalse(period.matches("2026-10-18_14.gz"));
+    }
+
+    private static long time(int year, int month, int day, int hour, int minute, int second, int millis) {
+        Calendar calendar = Calendar.getInstance();
+        calendar.clear();
+        calendar.set(year, month - 1, day, hour, minute, second);
+        calendar.set(Calendar.MILLISECOND, millis);
+        return calendar.getTimeInMillis();
+    }
+}
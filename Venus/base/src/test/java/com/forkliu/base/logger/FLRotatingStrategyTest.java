@@ -0,0 +1,143 @@
+package com.forkliu.base.logger;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+
+import static com.forkliu.base.logger.FLTestUtils.awaitMaintenance;
+import static com.forkliu.base.logger.FLTestUtils.read;
+import static com.forkliu.base.logger.FLTestUtils.rotating;
+import static com.forkliu.base.logger.FLTestUtils.write;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Backup shifting and retention of {@link FLRotatingStrategy.WriteHandler}, the rollovers are
+ * triggered by hand.
+ */
+public class FLRotatingStrategyTest {
+    @Rule public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private File folder;
+
+    @Before
+    public void setUp() throws IOException {
+        folder = temporaryFolder.newFolder("logger");
+    }
+
+    @Test
+    public void rollover_shiftsTheBackups() throws Exception {
+        FLRotatingStrategy.WriteHandler handler = rotating(folder, "log.log", 3, new FLWriterConfig());
+        for (int i = 0; i < 5; i++) {
+            roll(handler, "segment " + i);
+        }
+        assertFiles("log.log.1", "log.log.2", "log.log.3");
+        assertEquals("segment 4", read(new File(folder, "log.log.1")));
+        assertEquals("segment 3", read(new File(folder, "log.log.2")));
+        assertEquals("segment 2", read(new File(folder, "log.log.3")));
+    }
+
+    @Test
+    public void rollover_keepsAtLeastOneBackup() throws Exception {
+        FLRotatingStrategy.WriteHandler handler = rotating(folder, "log.log", 1, new FLWriterConfig());
+        roll(handler, "first");
+        roll(handler, "second");
+        assertFiles("log.log.1");
+        assertEquals("second", read(new File(folder, "log.log.1")));
+    }
+
+    @Test
+    public void rollover_compressesTheBackups() throws Exception {
+        FLWriterConfig config = new FLWriterConfig();
+        config.compression = FLCompression.GZIP;
+        FLRotatingStrategy.WriteHandler handler = rotating(folder, "log.log", 2, config);
+        for (int i = 0; i < 3; i++) {
+            roll(handler, "segment " + i);
+        }
+        assertFiles("log.log.1.gz", "log.log.2.gz");
+        assertEquals("segment 2", read(new File(folder, "log.log.1.gz")));
+        assertEquals("segment 1", read(new File(folder, "log.log.2.gz")));
+    }
+
+    @Test
+    public void rollover_picksUpWhatAnEarlierProcessLeft() throws Exception {
+        long now = System.currentTimeMillis();
+        write(new File(folder, "log.log.1"), "old 1", now);
+        write(new File(folder, "log.log.2"), "old 2", now);
+        // renamed by a process that died before it shifted the backups
+        write(new File(folder, "log.log.rolling-0000000000001-000001"), "orphan", now);
+
+        FLRotatingStrategy.WriteHandler handler = rotating(folder, "log.log", 3, new FLWriterConfig());
+        roll(handler, "new");
+        assertFiles("log.log.1", "log.log.2", "log.log.3");
+        assertEquals("new", read(new File(folder, "log.log.1")));
+        assertEquals("orphan", read(new File(folder, "log.log.2")));
+        assertEquals("old 1", read(new File(folder, "log.log.3")));
+    }
+
+    @Test
+    public void rollover_shiftsWhatEarlierProcessesLeftInTheOrderTheyRolled() throws Exception {
+        long now = System.currentTimeMillis();
+        // the process that started later rolled over first
+        write(new File(folder, "log.log.rolling-0000000000002-000001"), "rolled first", now - 2000);
+        write(new File(folder, "log.log.rolling-0000000000001-000005"), "rolled last", now - 1000);
+
+        FLRotatingStrategy.WriteHandler handler = rotating(folder, "log.log", 3, new FLWriterConfig());
+        roll(handler, "new");
+        assertEquals("new", read(new File(folder, "log.log.1")));
+        assertEquals("rolled last", read(new File(folder, "log.log.2")));
+        assertEquals("rolled first", read(new File(folder, "log.log.3")));
+    }
+
+    @Test
+    public void rollover_movesTheIndexAlong() throws Exception {
+        FLRotatingStrategy.WriteHandler handler = rotating(folder, "log.log", 2, new FLWriterConfig());
+        File logFile = new File(folder, "log.log");
+        write(logFile, "indexed", System.currentTimeMillis());
+        write(FLSegmentIndex.sidecar(logFile), "index", System.currentTimeMillis());
+        handler.doRollover(folder, logFile);
+        awaitMaintenance();
+        roll(handler, "plain");
+
+        assertFiles("log.log.1", "log.log.2", "log.log.2" + FLSegmentIndex.EXTENSION);
+        assertEquals("index", read(FLSegmentIndex.sidecar(new File(folder, "log.log.2"))));
+    }
+
+    @Test
+    public void isSegment() {
+        FLRotatingStrategy.WriteHandler handler = rotating(folder, "log.log", 3, new FLWriterConfig());
+        assertTrue(handler.isSegment("log.log.1"));
+        assertTrue(handler.isSegment("log.log.123456789.gz"));
+        assertTrue(handler.isSegment("log.log.rolling-1603000000000-000001"));
+        assertFalse(handler.isSegment("log.log"));
+        assertFalse(handler.isSegment("log.log.1" + FLSegmentIndex.EXTENSION));
+        assertFalse(handler.isSegment("log.log.rolling-1603000000000-000001" + FLSegmentIndex.EXTENSION));
+        assertFalse(handler.isSegment("log.log.bak"));
+        assertFalse(handler.isSegment("log.log2.1"));
+        assertFalse(handler.isSegment("app.log.1"));
+    }
+
+    /**
+     * Writes {@code text} as the active file and rolls it over.
+     */
+    private void roll(FLRotatingStrategy.WriteHandler handler, String text) throws Exception {
+        File logFile = new File(folder, "log.log");
+        write(logFile, text, System.currentTimeMillis());
+        handler.doRollover(folder, logFile);
+        awaitMaintenance();
+        assertFalse(logFile.exists());
+    }
+
+    private void assertFiles(String... names) {
+        String[] files = folder.list();
+        Arrays.sort(files);
+        assertArrayEquals(names, files);
+    }
+}
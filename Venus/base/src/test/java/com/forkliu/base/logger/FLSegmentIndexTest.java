@@ -0,0 +1,167 @@
+package com.forkliu.base.logger;
+
+import com.orhanobut.logger.Logger;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class FLSegmentIndexTest {
+    @Rule public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private File segment;
+
+    @Before
+    public void setUp() throws IOException {
+        segment = new File(temporaryFolder.newFolder("logger"), "log.log");
+    }
+
+    @Test
+    public void writer_blocksOfIntervalRecords() throws IOException {
+        long length = write(segment, 2, true,
+                line(1000, 'D'), line(1001, 'I'),
+                line(2000, 'W'), line(2002, 'E'),
+                line(3000, 'V'));
+        FLSegmentIndex index = FLSegmentIndex.read(segment);
+
+        assertTrue(index.sealed);
+        assertEquals(3, index.blocks);
+        assertEquals(0, index.offsets[0]);
+        assertEquals(index.offsets[1], index.offsets[2]);
+        assertEquals(length, index.offsets[5]);
+        assertEquals(2000, index.millis[2]);
+        assertEquals(2002, index.millis[3]);
+        assertEquals(2, index.count(0, Logger.VERBOSE));
+        assertEquals(1, index.count(0, Logger.INFO));
+        assertEquals(1, index.count(1, Logger.ERROR));
+        assertEquals(0, index.count(2, Logger.DEBUG));
+    }
+
+    @Test
+    public void writer_unfinishedBlockIsNotIndexed() throws IOException {
+        write(segment, 2, false, line(1000, 'I'), line(1001, 'I'), line(1002, 'I'));
+        FLSegmentIndex index = FLSegmentIndex.read(segment);
+        assertFalse(index.sealed);
+        assertEquals(1, index.blocks);
+    }
+
+    @Test
+    public void writer_dropsBlocksPastTheEndOfTheSegment() throws IOException {
+        write(segment, 1, false, line(1000, 'I'), line(2000, 'I'), line(3000, 'I'));
+        long end = FLSegmentIndex.read(segment).offsets[3];
+        // the last record never reached the storage
+        truncate(segment, end);
+
+        FLSegmentIndex.Writer writer = new FLSegmentIndex.Writer(1);
+        writer.open(segment, end);
+        writer.close(true, end);
+        FLSegmentIndex index = FLSegmentIndex.read(segment);
+        assertEquals(2, index.blocks);
+        assertEquals(end, index.offsets[3]);
+        assertTrue(index.sealed);
+    }
+
+    @Test
+    public void read_withoutSidecar() throws IOException {
+        write(segment, 0, false, line(1000, 'I'));
+        assertNull(FLSegmentIndex.read(segment));
+    }
+
+    @Test
+    public void read_cutOffBlockIsIgnored() throws IOException {
+        write(segment, 1, false, line(1000, 'I'), line(2000, 'I'));
+        File sidecar = FLSegmentIndex.sidecar(segment);
+        truncate(sidecar, sidecar.length() - 3);
+        assertEquals(1, FLSegmentIndex.read(segment).blocks);
+    }
+
+    @Test
+    public void sidecar_withoutTheCompressionSuffix() {
+        File folder = segment.getParentFile();
+        assertEquals(new File(folder, "log.log.1.idx"), FLSegmentIndex.sidecar(new File(folder, "log.log.1.gz")));
+        assertEquals(new File(folder, "log.log.idx"), FLSegmentIndex.sidecar(segment));
+        assertTrue(FLSegmentIndex.isSidecar("log.log.rolling-1603000000000-000001.idx"));
+        assertFalse(FLSegmentIndex.isSidecar("log.log.1"));
+    }
+
+    @Test(expected = FLLoggerException.class)
+    public void build_rejectsAnIndexedGzipStream() throws FLLoggerException {
+        FLRotatingFormatStrategy.newBuilder()
+                .logDir(segment.getParentFile().getParent())
+                .compression(FLCompression.GZIP_STREAM)
+                .indexInterval(64)
+                .build();
+    }
+
+    @Test(expected = FLLoggerException.class)
+    public void build_rejectsAnIndexedGzipStreamTimed() throws FLLoggerException {
+        FLTimedRotatingFormatStrategy.newBuilder()
+                .logDir(segment.getParentFile().getParent())
+                .compression(FLCompression.GZIP_STREAM)
+                .indexInterval(64)
+                .build();
+    }
+
+    static String line(long millis, char level) {
+        return line(millis, level, "Venus", "message " + millis);
+    }
+
+    static String line(long millis, char level, String tag, String message) {
+        return millis + ",2020.10.18 10:00:00.000," + level + "," + tag + "," + message + "\n";
+    }
+
+    /**
+     * Writes a CSV segment, with its index if {@code interval} is above 0.
+     *
+     * @return the length of the segment
+     */
+    static long write(File segment, int interval, boolean sealed, String... lines) throws IOException {
+        FLSegmentIndex.Writer index = interval > 0 ? new FLSegmentIndex.Writer(interval) : null;
+        if (index != null) index.open(segment, 0);
+        FileOutputStream out = new FileOutputStream(segment);
+        long length = 0;
+        try {
+            for (String line : lines) {
+                byte[] bytes = line.getBytes(StandardCharsets.UTF_8);
+                out.write(bytes);
+                if (index != null) {
+                    index.add(length, length + bytes.length, level(line), bytes, bytes.length);
+                }
+                length += bytes.length;
+            }
+        } finally {
+            out.close();
+        }
+        if (index != null) {
+            index.flush();
+            index.close(sealed, length);
+        }
+        return length;
+    }
+
+    private static int level(String line) {
+        int date = line.indexOf(',');
+        return FLLogUtils.parseLevel(line.charAt(line.indexOf(',', date + 1) + 1));
+    }
+
+    static void truncate(File file, long length) throws IOException {
+        RandomAccessFile raf = new RandomAccessFile(file, "rw");
+        try {
+            raf.setLength(length);
+        } finally {
+            raf.close();
+        }
+    }
+}
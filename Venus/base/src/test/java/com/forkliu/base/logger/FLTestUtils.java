@@ -0,0 +1,100 @@
+package com.forkliu.base.logger;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.os.Message;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPInputStream;
+
+import static com.forkliu.base.logger.FLRotatingFormatStrategy.Builder.WRITER_STREAM;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Helpers for the tests that drive the write handlers by hand, without a writer thread.
+ */
+final class FLTestUtils {
+
+    private FLTestUtils() {
+    }
+
+    /**
+     * A rotating handler on an {@link #idleWorker()}, nothing is logged through it.
+     */
+    static FLRotatingStrategy.WriteHandler rotating(File folder, String logName, int backupCount,
+                                                    FLWriterConfig config) {
+        config.applyDefaults();
+        return new FLRotatingStrategy.WriteHandler(idleWorker(),
+                folder.getPath(), logName, 1024, backupCount, WRITER_STREAM, config);
+    }
+
+    /**
+     * A worker whose looper nobody runs, the test hands the messages to the handlers itself.
+     */
+    static FLLogWriterScheduler.Worker idleWorker() {
+        return new FLLogWriterScheduler.Worker(Looper.myLooper());
+    }
+
+    /**
+     * Handles a {@code what} message on the calling thread.
+     */
+    static void handle(Handler handler, int what) {
+        Message msg = new Message();
+        msg.what = what;
+        handler.handleMessage(msg);
+    }
+
+    /**
+     * Waits until the {@link FLLogMaintenance} thread has run the tasks submitted so far.
+     */
+    static void awaitMaintenance() throws InterruptedException {
+        final CountDownLatch done = new CountDownLatch(1);
+        FLLogMaintenance.execute(new Runnable() {
+            @Override
+            public void run() {
+                done.countDown();
+            }
+        });
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+    }
+
+    static File write(File file, String text, long lastModified) throws IOException {
+        FileOutputStream out = new FileOutputStream(file);
+        try {
+            out.write(text.getBytes(StandardCharsets.UTF_8));
+        } finally {
+            out.close();
+        }
+        assertTrue(file.setLastModified(lastModified));
+        return file;
+    }
+
+    /**
+     * @return the content of {@code file}, decompressed if it ends with ".gz"
+     */
+    static String read(File file) throws IOException {
+        InputStream in = new FileInputStream(file);
+        if (file.getName().endsWith(FLCompression.EXTENSION)) {
+            in = new GZIPInputStream(in);
+        }
+        try {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[4096];
+            int n;
+            while ((n = in.read(buffer)) > 0) {
+                out.write(buffer, 0, n);
+            }
+            return new String(out.toByteArray(), StandardCharsets.UTF_8);
+        } finally {
+            in.close();
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package com.forkliu.base.logger;
+
+import org.junit.Test;
+
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Locale;
+
+import static org.junit.Assert.assertEquals;
+
+public class FLTimestampFormatterTest {
+    private static final long NOW = 1603000000000L;
+
+    @Test
+    public void format_patchesMillisWithinTheSecond() {
+        assertMatchesSimpleDateFormat("yyyy.MM.dd HH:mm:ss.SSS", NOW, NOW + 3000);
+    }
+
+    @Test
+    public void format_negativeEpochs() {
+        // the second of -1 ms starts at -1000, not at 0
+        assertMatchesSimpleDateFormat("yyyy.MM.dd HH:mm:ss.SSS", -3000, 1000);
+        assertMatchesSimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSS", -86400000L * 365 - 1500, -86400000L * 365 + 1500);
+    }
+
+    @Test
+    public void format_patternWithoutMillis() {
+        assertMatchesSimpleDateFormat("yyyy-MM-dd HH:mm:ss", NOW - 1500, NOW + 1500);
+    }
+
+    @Test
+    public void format_uncacheableMillis() {
+        // "S" prints the millis without padding, they can't be patched in
+        assertMatchesSimpleDateFormat("HH:mm:ss.S", NOW - 1500, NOW + 1500);
+        assertMatchesSimpleDateFormat("SSS HH:mm:ss SSS", NOW - 1500, NOW + 1500);
+    }
+
+    @Test
+    public void format_secondsOutOfOrder() {
+        FLTimestampFormatter formatter = new FLTimestampFormatter("HH:mm:ss.SSS", Locale.US);
+        SimpleDateFormat expected = new SimpleDateFormat("HH:mm:ss.SSS", Locale.US);
+        long[] times = {NOW + 5, NOW - 995, NOW + 1999, NOW + 7, -1, 0, -1};
+        for (long millis : times) {
+            assertEquals(expected.format(new Date(millis)), formatter.format(millis));
+        }
+    }
+
+    @Test
+    public void format_fromSimpleDateFormatTemplate() {
+        SimpleDateFormat template = new SimpleDateFormat("yyyy.MM.dd HH:mm:ss.SSS", Locale.CHINA);
+        FLTimestampFormatter formatter = new FLTimestampFormatter(template);
+        assertEquals(template.format(new Date(NOW + 123)), formatter.format(NOW + 123));
+    }
+
+    private static void assertMatchesSimpleDateFormat(String pattern, long from, long to) {
+        FLTimestampFormatter formatter = new FLTimestampFormatter(pattern, Locale.US);
+        SimpleDateFormat expected = new SimpleDateFormat(pattern, Locale.US);
+        FLRecordBuffer buffer = new FLRecordBuffer();
+        for (long millis = from; millis <= to; millis += 7) {
+            String text = expected.format(new Date(millis));
+            assertEquals("at " + millis, text, formatter.format(millis));
+
+            buffer.reset();
+            formatter.format(millis, buffer);
+            assertEquals("at " + millis, text, new String(buffer.chars, 0, buffer.charCount));
+        }
+    }
+}
@@ -0,0 +1,152 @@
+package com.forkliu.base.logger;
+
+import android.os.HandlerThread;
+
+import androidx.annotation.NonNull;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.CountDownLatch;
+
+import static com.forkliu.base.logger.FLTimedRotatingFormatStrategy.Builder.D;
+
+/**
+ * A file strategy in a temporary folder on its own writer thread, so a benchmark can wait for
+ * everything to be written and clean up after itself.
+ */
+final class FLBenchmarkSink implements Closeable {
+    static final String MESSAGE = "LogTestThread::run|12345 user=42 action=click view=MainActivity";
+    static final int RING_CAPACITY = 4096;
+
+    @NonNull final File dir;
+    @NonNull final FLFileLogStrategy strategy;
+    @NonNull private final HandlerThread thread;
+
+    private FLBenchmarkSink(@NonNull File dir, @NonNull HandlerThread thread, @NonNull FLFileLogStrategy strategy) {
+        this.dir = dir;
+        this.thread = thread;
+        this.strategy = strategy;
+    }
+
+    @NonNull static FLBenchmarkSink rotating(int maxBytes, int backupCount, @NonNull FLLogTransport transport)
+            throws IOException {
+        return rotating(maxBytes, backupCount, transport, FLDurability.none());
+    }
+
+    @NonNull static FLBenchmarkSink rotating(int maxBytes, int backupCount, @NonNull FLLogTransport transport,
+            @NonNull FLDurability durability) throws IOException {
+        File dir = createDir();
+        HandlerThread thread = start();
+        FLRotatingStrategy.WriteHandler handler = new FLRotatingStrategy.WriteHandler(
+                new FLLogWriterScheduler.Worker(thread.getLooper()),
+                dir.getPath(),
+                "bench.log",
+                maxBytes,
+                backupCount,
+                FLRotatingFormatStrategy.Builder.WRITER_STREAM,
+                config(transport, durability)
+        );
+        return new FLBenchmarkSink(dir, thread, new FLRotatingStrategy(handler));
+    }
+
+    /**
+     * A rotating strategy in {@code dir} that other processes may write as well.
+     */
+    @NonNull static FLBenchmarkSink multiProcess(@NonNull File dir, boolean multiProcess,
+            @NonNull FLLogTransport transport) {
+        HandlerThread thread = start();
+        FLWriterConfig config = config(transport, FLDurability.none());
+        config.multiProcess = multiProcess;
+        FLRotatingStrategy.WriteHandler handler = new FLRotatingStrategy.WriteHandler(
+                new FLLogWriterScheduler.Worker(thread.getLooper()),
+                dir.getPath(),
+                "bench.log",
+                4 * 1024 * 1024,
+                2,
+                FLRotatingFormatStrategy.Builder.WRITER_STREAM,
+                config
+        );
+        return new FLBenchmarkSink(dir, thread, new FLRotatingStrategy(handler));
+    }
+
+    @NonNull static FLBenchmarkSink timed(@NonNull FLLogTransport transport) throws IOException {
+        File dir = createDir();
+        HandlerThread thread = start();
+        FLTimedRotatingStrategy.WriteHandler handler = new FLTimedRotatingStrategy.WriteHandler(
+                new FLLogWriterScheduler.Worker(thread.getLooper()),
+                dir.getPath(),
+                "bench.log",
+                7,
+                D,
+                1,
+                config(transport, FLDurability.none())
+        );
+        return new FLBenchmarkSink(dir, thread, new FLTimedRotatingStrategy(handler));
+    }
+
+    /**
+     * A transport that makes the producers wait for the writer, so a benchmark measures what
+     * the file can take instead of how fast a queue grows.
+     */
+    @NonNull static FLLogTransport blocking() {
+        return FLLogTransport.ringBuffer(RING_CAPACITY, FLLogTransport.OVERFLOW_BLOCK);
+    }
+
+    /**
+     * Writes what is queued, closes the file, waits for the writer and maintenance threads
+     * and deletes the folder.
+     */
+    @Override
+    public void close() throws IOException {
+        strategy.close();
+        thread.quitSafely();
+        try {
+            thread.join();
+            final CountDownLatch maintenance = new CountDownLatch(1);
+            FLLogMaintenance.execute(new Runnable() {
+                @Override
+                public void run() {
+                    maintenance.countDown();
+                }
+            });
+            maintenance.await();
+        } catch (InterruptedException e) {
+            throw new IOException(e);
+        }
+        delete(dir);
+    }
+
+    @NonNull private static FLWriterConfig config(@NonNull FLLogTransport transport,
+            @NonNull FLDurability durability) {
+        FLWriterConfig config = new FLWriterConfig();
+        config.transport = transport;
+        config.durability = durability;
+        config.applyDefaults();
+        return config;
+    }
+
+    @NonNull private static HandlerThread start() {
+        HandlerThread thread = new HandlerThread("FLBenchmarkWriter");
+        thread.start();
+        return thread;
+    }
+
+    @NonNull static File createDir() throws IOException {
+        File dir = File.createTempFile("fllogger", "");
+        if (!dir.delete() || !dir.mkdir()) {
+            throw new IOException("can't create " + dir);
+        }
+        return dir;
+    }
+
+    static void delete(@NonNull File file) {
+        File[] children = file.listFiles();
+        if (children != null) {
+            for (File child : children) {
+                delete(child);
+            }
+        }
+        file.delete();
+    }
+}
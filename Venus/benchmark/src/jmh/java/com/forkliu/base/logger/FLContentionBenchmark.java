@@ -0,0 +1,87 @@
+package com.forkliu.base.logger;
+
+import com.orhanobut.logger.Logger;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+
+import java.io.IOException;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+import static com.forkliu.base.logger.FLBenchmarkSink.MESSAGE;
+
+/**
+ * 1 to 32 producers logging into one size based strategy. With {@code block} they wait for
+ * the writer thread, with {@code dropNewest} a full ring buffer drops records, which shows
+ * the cost of the hand over itself.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class FLContentionBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class Sink {
+        @Param({"block", "dropNewest"})
+        public String overflow;
+
+        FLBenchmarkSink sink;
+        FLCsvFormatter formatter;
+
+        @Setup
+        public void setup() throws IOException {
+            int policy = "dropNewest".equals(overflow)
+                    ? FLLogTransport.OVERFLOW_DROP_NEWEST : FLLogTransport.OVERFLOW_BLOCK;
+            sink = FLBenchmarkSink.rotating(8 * 1024 * 1024, 2,
+                    FLLogTransport.ringBuffer(FLBenchmarkSink.RING_CAPACITY, policy));
+            formatter = new FLCsvFormatter(new FLTimestampFormatter("yyyy.MM.dd HH:mm:ss.SSS", Locale.CHINA), "Venus");
+        }
+
+        @TearDown
+        public void tearDown() throws IOException {
+            sink.close();
+        }
+
+        void log() {
+            sink.strategy.log(Logger.INFO, formatter.format(Logger.INFO, null, MESSAGE));
+        }
+    }
+
+    @Benchmark @Threads(1)
+    public void producers_1(Sink sink) {
+        sink.log();
+    }
+
+    @Benchmark @Threads(2)
+    public void producers_2(Sink sink) {
+        sink.log();
+    }
+
+    @Benchmark @Threads(4)
+    public void producers_4(Sink sink) {
+        sink.log();
+    }
+
+    @Benchmark @Threads(8)
+    public void producers_8(Sink sink) {
+        sink.log();
+    }
+
+    @Benchmark @Threads(16)
+    public void producers_16(Sink sink) {
+        sink.log();
+    }
+
+    @Benchmark @Threads(32)
+    public void producers_32(Sink sink) {
+        sink.log();
+    }
+}
@@ -0,0 +1,74 @@
+package com.forkliu.base.logger;
+
+import com.orhanobut.logger.Logger;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.IOException;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+import static com.forkliu.base.logger.FLBenchmarkSink.MESSAGE;
+
+/**
+ * What each {@link FLDurability} costs. One producer logs INFO records and every
+ * {@code ERROR_EVERY}th an ERROR record, the ring buffer makes it wait for the writer thread,
+ * so the throughput is what the writer sustains with the fsyncs of the policy. The number of
+ * syncs is printed at the end of each trial, compare it to the number of records to see how
+ * many records one sync covers.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+public class FLDurabilityBenchmark {
+    private static final int ERROR_EVERY = 1000;
+
+    @Param({"none", "interval", "onLevel", "always"})
+    public String policy;
+
+    private FLBenchmarkSink sink;
+    private FLCsvFormatter formatter;
+    private int count;
+
+    @Setup
+    public void setup() throws IOException {
+        sink = FLBenchmarkSink.rotating(Integer.MAX_VALUE, 1, FLBenchmarkSink.blocking(), durability(policy));
+        formatter = new FLCsvFormatter(new FLTimestampFormatter("yyyy.MM.dd HH:mm:ss.SSS", Locale.CHINA), "Venus");
+    }
+
+    private static FLDurability durability(String policy) {
+        switch (policy) {
+            case "interval":
+                return FLDurability.interval(100);
+            case "onLevel":
+                return FLDurability.onLevel(Logger.ERROR);
+            case "always":
+                return FLDurability.always();
+            default:
+                return FLDurability.none();
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        FLLoggerStats stats = FLLoggerStats.create(0, sink.strategy.metrics());
+        sink.close();
+        System.out.println();
+        System.out.println(policy + ": written=" + stats.getWritten() + " syncs=" + stats.getSyncs()
+                + " syncTime=" + stats.getSyncTimeMicros() + "us");
+    }
+
+    @Benchmark
+    public void log() {
+        int level = ++count % ERROR_EVERY == 0 ? Logger.ERROR : Logger.INFO;
+        sink.strategy.log(level, formatter.format(level, null, MESSAGE));
+    }
+}
@@ -0,0 +1,82 @@
+package com.forkliu.base.logger;
+
+import com.orhanobut.logger.FormatStrategy;
+import com.orhanobut.logger.Logger;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link FLLog} against building the message first, the way {@code Logger.d("..." + i)} does,
+ * for a DEBUG record that the adapter filters and an INFO record that it takes. Run with
+ * {@code -prof gc}, the filtered facade call should allocate nothing.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+public class FLFacadeBenchmark {
+    private static final String PREFIX = "LogTestThread::run|";
+
+    private FLFileLogAdapter adapter;
+    private Blackhole blackhole;
+    private int i;
+
+    @Setup
+    public void setup(Blackhole bh) {
+        blackhole = bh;
+        adapter = new FLFileLogAdapter(new FormatStrategy() {
+            @Override
+            public void log(int priority, String tag, String message) {
+                blackhole.consume(message);
+            }
+        });
+        adapter.setLogLevel(Logger.INFO);
+        FLLog.clearLogAdapters();
+        FLLog.addLogAdapter(adapter);
+    }
+
+    @TearDown
+    public void tearDown() {
+        FLLog.clearLogAdapters();
+    }
+
+    @Benchmark
+    public void filteredConcat() {
+        String message = PREFIX + i++;
+        if (adapter.isLoggable(Logger.DEBUG, null)) {
+            adapter.log(Logger.DEBUG, null, message);
+        }
+    }
+
+    @Benchmark
+    public void filteredFacade() {
+        FLLog.d("LogTestThread::run|{}", i++);
+    }
+
+    @Benchmark
+    public void filteredFacadeBoxed() {
+        FLLog.d("LogTestThread::run|{} {}", i++, i);
+    }
+
+    @Benchmark
+    public void loggedConcat() {
+        String message = PREFIX + i++;
+        if (adapter.isLoggable(Logger.INFO, null)) {
+            adapter.log(Logger.INFO, null, message);
+        }
+    }
+
+    @Benchmark
+    public void loggedFacade() {
+        FLLog.i("LogTestThread::run|{}", i++);
+    }
+}
@@ -0,0 +1,73 @@
+package com.forkliu.base.logger;
+
+import com.orhanobut.logger.LogStrategy;
+import com.orhanobut.logger.Logger;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+import static com.forkliu.base.logger.FLBenchmarkSink.MESSAGE;
+
+/**
+ * Cost of turning one {@code Logger} call into a CSV line, without any file I/O.
+ * <p>
+ * {@code csvFormat} is what the format strategies do before they hand the bytes to an FL file
+ * strategy. The {@code rotating} and {@code timed} benchmarks go through the public
+ * {@code log()} of the format strategies into a plain {@link LogStrategy}, which also builds a
+ * String of the line.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+public class FLFormatBenchmark {
+    private FLCsvFormatter formatter;
+    private FLRotatingFormatStrategy rotating;
+    private FLTimedRotatingFormatStrategy timed;
+    private Blackhole blackhole;
+
+    @Setup
+    public void setup(Blackhole bh) throws FLLoggerException {
+        blackhole = bh;
+        LogStrategy consumer = new LogStrategy() {
+            @Override
+            public void log(int priority, String tag, String message) {
+                blackhole.consume(message);
+            }
+        };
+        formatter = new FLCsvFormatter(new FLTimestampFormatter("yyyy.MM.dd HH:mm:ss.SSS", Locale.CHINA), "Venus");
+        rotating = FLRotatingFormatStrategy.newBuilder()
+                .logDir("unused")
+                .tag("Venus")
+                .logStrategy(consumer)
+                .build();
+        timed = FLTimedRotatingFormatStrategy.newBuilder()
+                .logDir("unused")
+                .tag("Venus")
+                .logStrategy(consumer)
+                .build();
+    }
+
+    @Benchmark
+    public int csvFormat() {
+        return formatter.format(Logger.INFO, null, MESSAGE).byteCount;
+    }
+
+    @Benchmark
+    public void rotating() {
+        rotating.log(Logger.INFO, null, MESSAGE);
+    }
+
+    @Benchmark
+    public void timed() {
+        timed.log(Logger.INFO, null, MESSAGE);
+    }
+}
@@ -0,0 +1,79 @@
+package com.forkliu.base.logger;
+
+import com.orhanobut.logger.Logger;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+import static com.forkliu.base.logger.FLBenchmarkSink.MESSAGE;
+
+/**
+ * What the multi-process mode costs. "single" is the plain rotating strategy, "locked" takes
+ * the process lock for every batch without anyone else around, "contended" has a second
+ * process logging into the same file as fast as it can the whole time. The ring buffer makes
+ * the producer wait for the writer thread, so the throughput is what the writer sustains.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+public class FLMultiProcessBenchmark {
+    @Param({"single", "locked", "contended"})
+    public String mode;
+
+    private FLBenchmarkSink sink;
+    private FLCsvFormatter formatter;
+    private Process other;
+
+    @Setup
+    public void setup() throws IOException {
+        File dir = FLBenchmarkSink.createDir();
+        if ("contended".equals(mode)) {
+            other = new ProcessBuilder(
+                    System.getProperty("java.home") + File.separator + "bin" + File.separator + "java",
+                    "-cp", System.getProperty("java.class.path"),
+                    FLMultiProcessBenchmark.class.getName(), dir.getPath()
+            ).inheritIO().start();
+        }
+        sink = FLBenchmarkSink.multiProcess(dir, !"single".equals(mode), FLBenchmarkSink.blocking());
+        formatter = new FLCsvFormatter(new FLTimestampFormatter("yyyy.MM.dd HH:mm:ss.SSS", Locale.CHINA), "Venus");
+    }
+
+    @TearDown
+    public void tearDown() throws IOException, InterruptedException {
+        if (other != null) {
+            other.destroy();
+            other.waitFor();
+        }
+        sink.close();
+    }
+
+    @Benchmark
+    public void log() {
+        sink.strategy.log(Logger.INFO, formatter.format(Logger.INFO, null, MESSAGE));
+    }
+
+    /**
+     * The other process of "contended", logs into the folder in {@code args[0]} until it is
+     * killed.
+     */
+    public static void main(String[] args) {
+        FLBenchmarkSink sink = FLBenchmarkSink.multiProcess(new File(args[0]), true, FLBenchmarkSink.blocking());
+        FLCsvFormatter formatter = new FLCsvFormatter(
+                new FLTimestampFormatter("yyyy.MM.dd HH:mm:ss.SSS", Locale.CHINA), "Remote");
+        while (true) {
+            sink.strategy.log(Logger.INFO, formatter.format(Logger.INFO, null, MESSAGE));
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package com.forkliu.base.logger;
+
+import com.orhanobut.logger.Logger;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.IOException;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+import static com.forkliu.base.logger.FLBenchmarkSink.MESSAGE;
+
+/**
+ * Same as {@link FLWriteBenchmark} for the size based strategy, but with segments small
+ * enough to roll over all the time. Compare against it for the cost of the rollovers, and
+ * across {@code backupCount} for the cost of shifting the backups.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+public class FLRotationBenchmark {
+    @Param({"65536", "524288", "4194304"})
+    public int maxBytes;
+
+    @Param({"1", "7", "32"})
+    public int backupCount;
+
+    private FLBenchmarkSink sink;
+    private FLCsvFormatter formatter;
+
+    @Setup
+    public void setup() throws IOException {
+        sink = FLBenchmarkSink.rotating(maxBytes, backupCount, FLBenchmarkSink.blocking());
+        formatter = new FLCsvFormatter(new FLTimestampFormatter("yyyy.MM.dd HH:mm:ss.SSS", Locale.CHINA), "Venus");
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        sink.close();
+    }
+
+    @Benchmark
+    public void log() {
+        sink.strategy.log(Logger.INFO, formatter.format(Logger.INFO, null, MESSAGE));
+    }
+}
@@ -0,0 +1,94 @@
+package com.forkliu.base.logger;
+
+import com.orhanobut.logger.Logger;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.text.SimpleDateFormat;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+import static com.forkliu.base.logger.FLBenchmarkSink.MESSAGE;
+
+/**
+ * How long the main thread spends setting up a file adapter at launch, in a fresh JVM every
+ * time. "eager" sets everything up on the calling thread the way the builders used to: the
+ * date format, the writer thread and the write handler. "lazy" is what the builders do now.
+ * {@link #registerAndLog()} logs the first record right away, while the maintenance thread
+ * is still setting up; with a single core that thread competes with the caller.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 0)
+@Measurement(iterations = 1)
+@Fork(20)
+@State(Scope.Benchmark)
+public class FLStartupBenchmark {
+    private static final String PATTERN = "yyyy.MM.dd HH:mm:ss.SSS";
+
+    @Param({"eager", "lazy"})
+    public String mode;
+
+    private File dir;
+    private FLRotatingFormatStrategy strategy;
+
+    @Setup
+    public void setup() throws IOException {
+        dir = FLBenchmarkSink.createDir();
+    }
+
+    @TearDown
+    public void tearDown() {
+        strategy.sync(1000);
+        strategy.close();
+        FLBenchmarkSink.delete(dir);
+    }
+
+    @Benchmark
+    public FLFileLogAdapter register() throws FLLoggerException {
+        return adapter();
+    }
+
+    @Benchmark
+    public FLFileLogAdapter registerAndLog() throws FLLoggerException {
+        FLFileLogAdapter adapter = adapter();
+        adapter.log(Logger.INFO, null, MESSAGE);
+        return adapter;
+    }
+
+    private FLFileLogAdapter adapter() throws FLLoggerException {
+        FLRotatingFormatStrategy.Builder builder = FLRotatingFormatStrategy.newBuilder()
+                .logDir(dir.getPath())
+                .tag("Venus");
+        if ("eager".equals(mode)) {
+            FLWriterConfig config = new FLWriterConfig();
+            config.applyDefaults();
+            FLRotatingStrategy.WriteHandler handler = new FLRotatingStrategy.WriteHandler(
+                    new FLLogWriterScheduler(1).nextWorker(),
+                    dir.getPath() + File.separatorChar + "logger",
+                    "log.log",
+                    500 * 1024,
+                    7,
+                    FLRotatingFormatStrategy.Builder.WRITER_STREAM,
+                    config
+            );
+            builder.dateFormat(new FLTimestampFormatter(new SimpleDateFormat(PATTERN, Locale.CHINA)))
+                    .logStrategy(new FLRotatingStrategy(handler));
+        }
+        strategy = builder.build();
+        return new FLFileLogAdapter(strategy);
+    }
+}
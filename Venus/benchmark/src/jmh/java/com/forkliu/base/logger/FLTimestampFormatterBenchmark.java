@@ -0,0 +1,84 @@
+package com.forkliu.base.logger;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Shared {@link SimpleDateFormat} (synchronized, since it isn't thread safe) against
+ * {@link FLTimestampFormatter}, with 1, 4 and 16 logging threads.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class FLTimestampFormatterBenchmark {
+    private static final String PATTERN = "yyyy.MM.dd HH:mm:ss.SSS";
+
+    @State(Scope.Benchmark)
+    public static class Shared {
+        final SimpleDateFormat simpleDateFormat = new SimpleDateFormat(PATTERN, Locale.CHINA);
+        final FLTimestampFormatter timestampFormatter = new FLTimestampFormatter(PATTERN, Locale.CHINA);
+    }
+
+    @State(Scope.Thread)
+    public static class PerThread {
+        final FLRecordBuffer buffer = new FLRecordBuffer();
+    }
+
+    private static String simpleDateFormat(Shared shared) {
+        Date date = new Date(System.currentTimeMillis());
+        synchronized (shared.simpleDateFormat) {
+            return shared.simpleDateFormat.format(date);
+        }
+    }
+
+    private static int timestampFormatter(Shared shared, PerThread perThread) {
+        FLRecordBuffer buffer = perThread.buffer;
+        buffer.reset();
+        shared.timestampFormatter.format(System.currentTimeMillis(), buffer);
+        return buffer.charCount;
+    }
+
+    @Benchmark @Threads(1)
+    public String simpleDateFormat_1(Shared shared) {
+        return simpleDateFormat(shared);
+    }
+
+    @Benchmark @Threads(4)
+    public String simpleDateFormat_4(Shared shared) {
+        return simpleDateFormat(shared);
+    }
+
+    @Benchmark @Threads(16)
+    public String simpleDateFormat_16(Shared shared) {
+        return simpleDateFormat(shared);
+    }
+
+    @Benchmark @Threads(1)
+    public int timestampFormatter_1(Shared shared, PerThread perThread) {
+        return timestampFormatter(shared, perThread);
+    }
+
+    @Benchmark @Threads(4)
+    public int timestampFormatter_4(Shared shared, PerThread perThread) {
+        return timestampFormatter(shared, perThread);
+    }
+
+    @Benchmark @Threads(16)
+    public int timestampFormatter_16(Shared shared, PerThread perThread) {
+        return timestampFormatter(shared, perThread);
+    }
+
+    @Benchmark @Threads(16)
+    public String timestampFormatterString_16(Shared shared) {
+        return shared.timestampFormatter.format(System.currentTimeMillis());
+    }
+}
@@ -0,0 +1,53 @@
+package com.forkliu.base.logger;
+
+import com.orhanobut.logger.Logger;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.IOException;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+import static com.forkliu.base.logger.FLBenchmarkSink.MESSAGE;
+
+/**
+ * One producer logging through a format strategy into a real file, end to end. The ring
+ * buffer makes the producer wait for the writer thread, so the throughput is what the writer
+ * sustains. Neither strategy rotates here, see {@link FLRotationBenchmark} for that.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+public class FLWriteBenchmark {
+    @Param({"rotating", "timed"})
+    public String strategy;
+
+    private FLBenchmarkSink sink;
+    private FLCsvFormatter formatter;
+
+    @Setup
+    public void setup() throws IOException {
+        sink = "timed".equals(strategy)
+                ? FLBenchmarkSink.timed(FLBenchmarkSink.blocking())
+                : FLBenchmarkSink.rotating(Integer.MAX_VALUE, 1, FLBenchmarkSink.blocking());
+        formatter = new FLCsvFormatter(new FLTimestampFormatter("yyyy.MM.dd HH:mm:ss.SSS", Locale.CHINA), "Venus");
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        sink.close();
+    }
+
+    @Benchmark
+    public void log() {
+        sink.strategy.log(Logger.INFO, formatter.format(Logger.INFO, null, MESSAGE));
+    }
+}
@@ -0,0 +1,10 @@
+package android.content;
+
+import java.io.File;
+
+/**
+ * JVM stand-in for the Android class, only what the logger uses.
+ */
+public abstract class Context {
+    public abstract File getFilesDir();
+}
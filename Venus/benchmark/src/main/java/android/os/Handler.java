@@ -0,0 +1,60 @@
+package android.os;
+
+/**
+ * JVM stand-in for the Android class, only what the logger uses.
+ */
+public class Handler {
+    private final Looper looper;
+
+    public Handler(Looper looper) {
+        this.looper = looper;
+    }
+
+    public void handleMessage(Message msg) {
+    }
+
+    public void dispatchMessage(Message msg) {
+        if (msg.callback != null) {
+            msg.callback.run();
+        } else {
+            handleMessage(msg);
+        }
+    }
+
+    public final Looper getLooper() {
+        return looper;
+    }
+
+    public final boolean post(Runnable r) {
+        Message msg = new Message();
+        msg.callback = r;
+        return sendMessageAtTime(msg, SystemClock.uptimeMillis());
+    }
+
+    public final boolean sendEmptyMessage(int what) {
+        return sendEmptyMessageAtTime(what, SystemClock.uptimeMillis());
+    }
+
+    public final boolean sendEmptyMessageDelayed(int what, long delayMillis) {
+        return sendEmptyMessageAtTime(what, SystemClock.uptimeMillis() + Math.max(0, delayMillis));
+    }
+
+    public final boolean sendEmptyMessageAtTime(int what, long uptimeMillis) {
+        Message msg = new Message();
+        msg.what = what;
+        return sendMessageAtTime(msg, uptimeMillis);
+    }
+
+    public boolean sendMessageAtTime(Message msg, long uptimeMillis) {
+        msg.target = this;
+        return looper.queue.enqueue(msg, uptimeMillis);
+    }
+
+    public final boolean hasMessages(int what) {
+        return looper.queue.hasMessages(this, what);
+    }
+
+    public final void removeMessages(int what) {
+        looper.queue.removeMessages(this, what);
+    }
+}
@@ -0,0 +1,59 @@
+package android.os;
+
+/**
+ * JVM stand-in for the Android class. The threads are daemons so a benchmark JVM can exit
+ * without closing every scheduler.
+ */
+public class HandlerThread extends Thread {
+    private Looper looper;
+
+    public HandlerThread(String name) {
+        super(name);
+        setDaemon(true);
+    }
+
+    public HandlerThread(String name, int priority) {
+        this(name);
+    }
+
+    @Override
+    public void run() {
+        Looper.prepare();
+        synchronized (this) {
+            looper = Looper.myLooper();
+            notifyAll();
+        }
+        Looper.loop();
+    }
+
+    public Looper getLooper() {
+        boolean interrupted = false;
+        synchronized (this) {
+            while (isAlive() && looper == null) {
+                try {
+                    wait();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+        return looper;
+    }
+
+    public boolean quit() {
+        Looper l = getLooper();
+        if (l == null) return false;
+        l.quit();
+        return true;
+    }
+
+    public boolean quitSafely() {
+        Looper l = getLooper();
+        if (l == null) return false;
+        l.quitSafely();
+        return true;
+    }
+}
@@ -0,0 +1,52 @@
+package android.os;
+
+/**
+ * JVM stand-in for the Android class.
+ */
+public final class Looper {
+    private static final ThreadLocal<Looper> LOOPERS = new ThreadLocal<>();
+
+    final MessageQueue queue = new MessageQueue();
+    private final Thread thread = Thread.currentThread();
+
+    private Looper() {
+    }
+
+    public static void prepare() {
+        if (LOOPERS.get() != null) {
+            throw new RuntimeException("Only one Looper may be created per thread");
+        }
+        LOOPERS.set(new Looper());
+    }
+
+    public static Looper myLooper() {
+        return LOOPERS.get();
+    }
+
+    public static void loop() {
+        Looper me = LOOPERS.get();
+        if (me == null) {
+            throw new RuntimeException("No Looper; Looper.prepare() wasn't called on this thread.");
+        }
+        try {
+            Message msg;
+            while ((msg = me.queue.next()) != null) {
+                msg.target.dispatchMessage(msg);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    public Thread getThread() {
+        return thread;
+    }
+
+    public void quit() {
+        queue.quit(false);
+    }
+
+    public void quitSafely() {
+        queue.quit(true);
+    }
+}
@@ -0,0 +1,14 @@
+package android.os;
+
+/**
+ * JVM stand-in for the Android class, only what the logger uses.
+ */
+public final class Message {
+    public int what;
+    public Object obj;
+
+    Handler target;
+    Runnable callback;
+    long when;
+    long sequence;
+}
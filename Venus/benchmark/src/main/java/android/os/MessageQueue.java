@@ -0,0 +1,70 @@
+package android.os;
+
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.PriorityQueue;
+
+/**
+ * JVM stand-in for the Android class: messages ordered by due time, then by arrival.
+ */
+final class MessageQueue {
+    private final PriorityQueue<Message> messages = new PriorityQueue<>(16, new Comparator<Message>() {
+        @Override
+        public int compare(Message a, Message b) {
+            if (a.when != b.when) return a.when < b.when ? -1 : 1;
+            return a.sequence < b.sequence ? -1 : (a.sequence == b.sequence ? 0 : 1);
+        }
+    });
+    private long sequence;
+    // messages due after this are dropped, Long.MAX_VALUE while the looper runs
+    private long quitAt = Long.MAX_VALUE;
+
+    synchronized boolean enqueue(Message msg, long when) {
+        if (quitAt != Long.MAX_VALUE) return false;
+        msg.when = when;
+        msg.sequence = sequence++;
+        messages.add(msg);
+        notifyAll();
+        return true;
+    }
+
+    /**
+     * @return the next due message, or null once the looper has quit
+     */
+    synchronized Message next() throws InterruptedException {
+        for (;;) {
+            Message msg = messages.peek();
+            if (msg != null && msg.when > quitAt) return null;
+            if (msg == null && quitAt != Long.MAX_VALUE) return null;
+
+            long now = SystemClock.uptimeMillis();
+            if (msg != null && msg.when <= now) {
+                return messages.poll();
+            }
+            wait(msg == null ? 0 : msg.when - now);
+        }
+    }
+
+    synchronized boolean hasMessages(Handler target, int what) {
+        for (Message msg : messages) {
+            if (msg.target == target && msg.what == what && msg.callback == null) return true;
+        }
+        return false;
+    }
+
+    synchronized void removeMessages(Handler target, int what) {
+        Iterator<Message> it = messages.iterator();
+        while (it.hasNext()) {
+            Message msg = it.next();
+            if (msg.target == target && msg.what == what && msg.callback == null) it.remove();
+        }
+    }
+
+    /**
+     * @param safe handle the messages that are due already before quitting
+     */
+    synchronized void quit(boolean safe) {
+        quitAt = safe ? SystemClock.uptimeMillis() : Long.MIN_VALUE;
+        notifyAll();
+    }
+}
@@ -0,0 +1,15 @@
+package android.os;
+
+/**
+ * JVM stand-in for the Android class, thread priorities are ignored.
+ */
+public class Process {
+    public static final int THREAD_PRIORITY_BACKGROUND = 10;
+
+    public static void setThreadPriority(int priority) {
+    }
+
+    public static int myPid() {
+        return 0;
+    }
+}
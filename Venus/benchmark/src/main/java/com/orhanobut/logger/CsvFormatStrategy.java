@@ -0,0 +1,7 @@
+package com.orhanobut.logger;
+
+/**
+ * JVM stand-in, the logger sources only import it.
+ */
+public class CsvFormatStrategy {
+}
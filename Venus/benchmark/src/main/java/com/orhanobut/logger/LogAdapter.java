@@ -0,0 +1,10 @@
+package com.orhanobut.logger;
+
+/**
+ * JVM stand-in for the logger library interface.
+ */
+public interface LogAdapter {
+    boolean isLoggable(int priority, String tag);
+
+    void log(int priority, String tag, String message);
+}
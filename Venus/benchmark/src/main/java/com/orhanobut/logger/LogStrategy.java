@@ -0,0 +1,8 @@
+package com.orhanobut.logger;
+
+/**
+ * JVM stand-in for the logger library interface.
+ */
+public interface LogStrategy {
+    void log(int priority, String tag, String message);
+}
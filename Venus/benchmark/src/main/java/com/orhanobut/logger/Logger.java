@@ -0,0 +1,30 @@
+package com.orhanobut.logger;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * JVM stand-in for the logger library, the levels and the adapter list. The levels match
+ * android.util.Log.
+ */
+public final class Logger {
+    public static final int VERBOSE = 2;
+    public static final int DEBUG = 3;
+    public static final int INFO = 4;
+    public static final int WARN = 5;
+    public static final int ERROR = 6;
+    public static final int ASSERT = 7;
+
+    private static final List<LogAdapter> adapters = new CopyOnWriteArrayList<>();
+
+    private Logger() {
+    }
+
+    public static void addLogAdapter(LogAdapter adapter) {
+        adapters.add(adapter);
+    }
+
+    public static void clearLogAdapters() {
+        adapters.clear();
+    }
+}
@@ -0,0 +1,154 @@
+package com.forkliu.logtool;
+
+import com.forkliu.base.logger.FLBinaryLogDecoder;
+import com.forkliu.base.logger.FLTimestampFormatter;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.TimeZone;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Renders log files pulled from a device back to the CSV layout. Binary segments are
+ * decoded, CSV segments are copied as they are, ".gz" files are decompressed first.
+ */
+public final class LogTool {
+    private static final String USAGE =
+            "usage: logtool [-p pattern] [-z timezone] [-l locale] [-o dir] file...\n"
+                    + "  -p  date pattern of the device, default yyyy.MM.dd HH:mm:ss.SSS\n"
+                    + "  -z  time zone of the device, default the local one, e.g. Asia/Shanghai\n"
+                    + "  -l  locale of the date pattern, default zh-CN\n"
+                    + "  -o  write <dir>/<file>.csv for every file instead of everything to stdout";
+
+    private LogTool() {
+    }
+
+    public static void main(String[] args) {
+        String pattern = "yyyy.MM.dd HH:mm:ss.SSS";
+        TimeZone zone = TimeZone.getDefault();
+        Locale locale = Locale.CHINA;
+        File outDir = null;
+        List<File> files = new ArrayList<>();
+
+        for (int i = 0; i < args.length; i++) {
+            String arg = args[i];
+            if (arg.startsWith("-") && i + 1 >= args.length) {
+                exit(USAGE);
+            }
+            switch (arg) {
+                case "-p":
+                    pattern = args[++i];
+                    break;
+                case "-z":
+                    zone = TimeZone.getTimeZone(args[++i]);
+                    break;
+                case "-l":
+                    locale = Locale.forLanguageTag(args[++i]);
+                    break;
+                case "-o":
+                    outDir = new File(args[++i]);
+                    break;
+                default:
+                    files.add(new File(arg));
+                    break;
+            }
+        }
+        if (files.isEmpty()) {
+            exit(USAGE);
+        }
+
+        SimpleDateFormat format = new SimpleDateFormat(pattern, locale);
+        format.setTimeZone(zone);
+        FLBinaryLogDecoder decoder = new FLBinaryLogDecoder(new FLTimestampFormatter(format));
+
+        int failed = 0;
+        OutputStream stdout = new BufferedOutputStream(System.out, 64 * 1024);
+        for (File file : files) {
+            try {
+                if (outDir == null) {
+                    render(decoder, file, stdout);
+                } else {
+                    render(decoder, file, new File(outDir, csvName(file)));
+                }
+            } catch (IOException e) {
+                failed++;
+                System.err.println(file + ": " + e.getMessage());
+            }
+        }
+        try {
+            stdout.flush();
+        } catch (IOException e) {
+            failed++;
+        }
+        if (failed > 0) {
+            System.exit(1);
+        }
+    }
+
+    private static void render(FLBinaryLogDecoder decoder, File file, File target) throws IOException {
+        if (!target.getParentFile().isDirectory() && !target.getParentFile().mkdirs()) {
+            throw new IOException("can't create " + target.getParent());
+        }
+        try (OutputStream out = new BufferedOutputStream(new FileOutputStream(target), 64 * 1024)) {
+            render(decoder, file, out);
+        }
+    }
+
+    private static void render(FLBinaryLogDecoder decoder, File file, OutputStream out) throws IOException {
+        try (InputStream in = open(file)) {
+            byte[] header = new byte[4];
+            in.mark(header.length);
+            int n = 0;
+            int r;
+            while (n < header.length && (r = in.read(header, n, header.length - n)) > 0) {
+                n += r;
+            }
+            in.reset();
+
+            if (FLBinaryLogDecoder.isBinary(header, n)) {
+                decoder.decode(in, out);
+            } else {
+                byte[] buffer = new byte[64 * 1024];
+                while ((r = in.read(buffer)) > 0) {
+                    out.write(buffer, 0, r);
+                }
+            }
+        }
+    }
+
+    private static InputStream open(File file) throws IOException {
+        InputStream in = new FileInputStream(file);
+        try {
+            if (file.getName().endsWith(".gz")) {
+                in = new GZIPInputStream(in, 64 * 1024);
+            }
+            return new BufferedInputStream(in, 64 * 1024);
+        } catch (IOException e) {
+            in.close();
+            throw e;
+        }
+    }
+
+    private static String csvName(File file) {
+        String name = file.getName();
+        if (name.endsWith(".gz")) {
+            name = name.substring(0, name.length() - 3);
+        }
+        return name + ".csv";
+    }
+
+    private static void exit(String message) {
+        System.err.println(message);
+        System.exit(2);
+    }
+}